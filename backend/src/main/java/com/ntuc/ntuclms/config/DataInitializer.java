@@ -1,12 +1,16 @@
 package com.ntuc.ntuclms.config;
 
+import com.ntuc.ntuclms.entity.Book;
 import com.ntuc.ntuclms.entity.Member;
 import com.ntuc.ntuclms.repository.MemberRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.sql.ResultSet;
 import java.time.LocalDate;
 
 @Component
@@ -18,8 +22,17 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Override
     public void run(String... args) throws Exception {
+        seedBookIdGenerator();
+        backfillActiveLoanGuard();
+        dropSingleLoanPerBookKey();
+        backfillBookCopies();
+        backfillFineBalances();
+
         // Create default admin user if not exists
         if (!memberRepository.existsByUsername("admin")) {
             Member admin = new Member();
@@ -35,5 +48,80 @@ public class DataInitializer implements CommandLineRunner {
             System.out.println("Default admin user created: username=admin, password=password");
         }
     }
-}
 
+    // Books used to take AUTO_INCREMENT ids; start the pooled generator past any existing id
+    private void seedBookIdGenerator() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM books", Long.class);
+        long floor = maxId + Book.ID_ALLOCATION_SIZE + 1;
+        int updated = jdbcTemplate.update(
+            "UPDATE id_generators SET next_val = GREATEST(next_val, ?) WHERE sequence_name = 'books'", floor);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO id_generators (sequence_name, next_val) VALUES ('books', ?)", floor);
+        }
+    }
+
+    // Loans opened before the one-open-loan-per-book key existed; only the oldest open loan per book
+    // is claimed so that duplicates left by the old borrow race cannot fail the unique key
+    private void backfillActiveLoanGuard() {
+        int claimed = jdbcTemplate.update(
+            "UPDATE loans SET active_book_id = book_id WHERE active_book_id IS NULL AND id IN (" +
+            "SELECT id FROM (SELECT MIN(l.id) AS id FROM loans l WHERE l.return_date IS NULL " +
+            "GROUP BY l.book_id HAVING MAX(l.active_book_id) IS NULL) oldest)");
+        if (claimed > 0) {
+            System.out.println("Backfilled active loan guard for " + claimed + " open loans");
+        }
+    }
+
+    // With copies a book can be on loan to several members at once; uk_loans_active_book_member replaces this key
+    private void dropSingleLoanPerBookKey() {
+        Boolean present = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (ResultSet indexes = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, "loans",
+                    true, false)) {
+                while (indexes.next()) {
+                    if ("uk_loans_active_book".equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        });
+        if (Boolean.TRUE.equals(present)) {
+            jdbcTemplate.execute("ALTER TABLE loans DROP INDEX uk_loans_active_book");
+            System.out.println("Dropped the one-open-loan-per-book key");
+        }
+    }
+
+    // Books from before copies existed become single-copy titles: the copy is on loan if the book is, and the
+    // counters (added with a default of 1) follow the old available flag
+    private void backfillBookCopies() {
+        int copies = jdbcTemplate.update("INSERT INTO book_copies (book_id, barcode, status, added_at) " +
+            "SELECT b.id, CONCAT('B', b.id, '-1'), CASE WHEN EXISTS (SELECT 1 FROM loans l " +
+            "WHERE l.active_book_id = b.id) THEN 'ON_LOAN' ELSE 'AVAILABLE' END, CURRENT_TIMESTAMP FROM books b " +
+            "WHERE NOT EXISTS (SELECT 1 FROM book_copies c WHERE c.book_id = b.id)");
+        if (copies == 0) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE books SET available_copies = 0 WHERE available = false AND available_copies > 0");
+        int loans = jdbcTemplate.update("UPDATE loans SET copy_id = (SELECT MIN(c.id) FROM book_copies c " +
+            "WHERE c.book_id = loans.book_id AND c.status = 'ON_LOAN') " +
+            "WHERE active_book_id IS NOT NULL AND copy_id IS NULL");
+        jdbcTemplate.update("UPDATE loans SET active_copy_id = copy_id WHERE active_book_id IS NOT NULL " +
+            "AND active_copy_id IS NULL AND copy_id IS NOT NULL");
+        System.out.println("Backfilled " + copies + " book copies and linked " + loans + " open loans to them");
+    }
+
+    // Fines charged before the ledger existed become one opening entry per loan for members without a balance row
+    private void backfillFineBalances() {
+        String unledgered = "FROM loans l WHERE l.fine > 0 " +
+            "AND NOT EXISTS (SELECT 1 FROM member_balances b WHERE b.member_id = l.member_id)";
+        int entries = jdbcTemplate.update("INSERT INTO fine_entries (member_id, loan_id, entry_type, amount_cents, " +
+            "created_at, note) SELECT l.member_id, l.id, 'ACCRUAL', ROUND(l.fine * 100), CURRENT_TIMESTAMP, " +
+            "'Opening balance' " + unledgered);
+        if (entries > 0) {
+            int members = jdbcTemplate.update("INSERT INTO member_balances (member_id, balance_cents, accrued_cents, " +
+                "paid_cents, waived_cents, updated_at) SELECT l.member_id, SUM(ROUND(l.fine * 100)), " +
+                "SUM(ROUND(l.fine * 100)), 0, 0, CURRENT_TIMESTAMP " + unledgered + " GROUP BY l.member_id");
+            System.out.println("Backfilled fine balances for " + members + " members from " + entries + " loans");
+        }
+    }
+}
@@ -1,18 +1,47 @@
 // src/main/java/com/ntuc/ntuclms/controller/AdminController.java
 package com.ntuc.ntuclms.controller;
 
+import com.ntuc.ntuclms.dto.ArchiveReport;
+import com.ntuc.ntuclms.dto.BookSummary;
+import com.ntuc.ntuclms.dto.FineSettlementRequest;
+import com.ntuc.ntuclms.dto.MemberSummary;
+import com.ntuc.ntuclms.dto.SweepReport;
 import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.entity.FineEntry;
+import com.ntuc.ntuclms.dto.LoanView;
 import com.ntuc.ntuclms.entity.Loan;
 import com.ntuc.ntuclms.entity.Member;
+import com.ntuc.ntuclms.entity.MemberBalance;
+import com.ntuc.ntuclms.exception.ConflictException;
+import com.ntuc.ntuclms.service.BookImportService;
 import com.ntuc.ntuclms.service.BookService;
+import com.ntuc.ntuclms.service.CatalogVersion;
+import com.ntuc.ntuclms.service.CirculationDesk;
+import com.ntuc.ntuclms.service.CirculationStats;
+import com.ntuc.ntuclms.service.EntityStreamer;
+import com.ntuc.ntuclms.service.EventLog;
+import com.ntuc.ntuclms.service.FineLedger;
+import com.ntuc.ntuclms.service.LoanAnalytics;
+import com.ntuc.ntuclms.service.LoanArchiver;
 import com.ntuc.ntuclms.service.LoanService;
 import com.ntuc.ntuclms.service.MemberService;
+import com.ntuc.ntuclms.service.OutboxRelay;
+import com.ntuc.ntuclms.service.OverdueSweep;
+import com.ntuc.ntuclms.service.SecondLevelCache;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,17 +61,54 @@ public class AdminController {
     @Autowired
     private LoanService loanService;
 
+    @Autowired
+    private EntityStreamer entityStreamer;
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private SecondLevelCache secondLevelCache;
+
+    @Autowired
+    private OverdueSweep overdueSweep;
+
+    @Autowired
+    private LoanArchiver loanArchiver;
+
+    @Autowired
+    private LoanAnalytics loanAnalytics;
+
+    @Autowired
+    private FineLedger fineLedger;
+
+    @Autowired
+    private EventLog eventLog;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private CirculationStats circulationStats;
+
+    @Autowired
+    private CirculationDesk circulationDesk;
+
     @GetMapping("/dashboard")
-    public ResponseEntity<?> dashboard() {
+    public ResponseEntity<?> dashboard(WebRequest request) {
         try {
-            List<Member> allMembers = memberService.getAllMembers();
-            List<Book> allBooks = bookService.getAllBooks();
-            List<Loan> allLoans = loanService.getAllLoans();
-            List<Loan> overdueLoans = loanService.getOverdueLoans();
+            if (catalogVersion.checkNotModified(request, CatalogVersion.LOANS, LocalDate.now())) {
+                return null;
+            }
+            List<LoanView> allLoans = loanService.getAllLoans();
+            List<LoanView> overdueLoans = loanService.getOverdueLoans();
             
             Map<String, Object> dashboardData = new HashMap<>();
-            dashboardData.put("totalMembers", allMembers.size());
-            dashboardData.put("totalBooks", allBooks.size());
+            dashboardData.put("totalMembers", memberService.countMembers());
+            dashboardData.put("totalBooks", bookService.countTotalBooks());
             dashboardData.put("totalLoans", allLoans.size());
             dashboardData.put("overdueLoans", overdueLoans.size());
             dashboardData.put("recentLoans", allLoans.stream().limit(10).toList());
@@ -55,24 +121,37 @@ public class AdminController {
 
     // Members management
     @GetMapping("/members")
-    public ResponseEntity<?> getAllMembers() {
+    public ResponseEntity<?> getAllMembers(@RequestParam(required = false) String after,
+                                          @RequestParam(required = false) Integer limit,
+                                          @RequestParam(required = false) String sort,
+                                          WebRequest request) {
         try {
-            List<Member> members = memberService.getAllMembers();
-            // Remove passwords from response
-            members.forEach(member -> member.setPassword(null));
+            if (catalogVersion.checkNotModified(request, CatalogVersion.MEMBER_LOANS)) {
+                return null;
+            }
+            if (after != null || limit != null || sort != null) {
+                return ResponseEntity.ok(memberService.getMembersPage(sort, after, limit));
+            }
+            List<MemberSummary> members = memberService.getAllMembers();
             return ResponseEntity.ok(members);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error loading members: " + e.getMessage());
         }
     }
 
+    // Streaming mode: rows are written as they are read, so memory does not grow with the table
+    @GetMapping(value = "/members", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllMembers() {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(entityStreamer.jsonArray(memberService::streamAllMembers));
+    }
+
     @PostMapping("/members")
     public ResponseEntity<?> addMember(@Valid @RequestBody Member member) {
         try {
             Member savedMember = memberService.addMember(member);
-            // Remove password from response
-            savedMember.setPassword(null);
-            return ResponseEntity.ok(savedMember);
+            return ResponseEntity.ok(memberService.getSummary(savedMember));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error adding member: " + e.getMessage());
         }
@@ -92,9 +171,7 @@ public class AdminController {
     public ResponseEntity<?> updateMember(@PathVariable Long id, @Valid @RequestBody Member member) {
         try {
             Member updatedMember = memberService.updateMember(id, member);
-            // Remove password from response
-            updatedMember.setPassword(null);
-            return ResponseEntity.ok(updatedMember);
+            return ResponseEntity.ok(memberService.getSummary(updatedMember));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error updating member: " + e.getMessage());
         }
@@ -104,23 +181,54 @@ public class AdminController {
     public ResponseEntity<?> renewMembership(@PathVariable Long id) {
         try {
             Member renewedMember = memberService.renewMembership(id);
-            // Remove password from response
-            renewedMember.setPassword(null);
             return ResponseEntity.ok(Map.of(
                 "message", "Membership renewed successfully",
-                "member", renewedMember
+                "member", memberService.getSummary(renewedMember)
             ));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error renewing membership: " + e.getMessage());
         }
     }
 
+    @GetMapping("/members/{id}/fines")
+    public ResponseEntity<?> getMemberFines(@PathVariable Long id, @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(Map.of(
+                "balance", fineLedger.getBalance(id),
+                "entries", fineLedger.getEntries(id, Math.max(1, Math.min(limit, 500)))
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error loading fines: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/members/{id}/fines/payments")
+    public ResponseEntity<?> recordFinePayment(@PathVariable Long id, @Valid @RequestBody FineSettlementRequest request) {
+        try {
+            MemberBalance balance = fineLedger.settle(id, FineEntry.Type.PAYMENT, request.getAmountCents(), request.getNote());
+            return ResponseEntity.ok(Map.of("message", "Payment recorded successfully", "balance", balance));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error recording payment: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/members/{id}/fines/waivers")
+    public ResponseEntity<?> waiveFines(@PathVariable Long id, @Valid @RequestBody FineSettlementRequest request) {
+        try {
+            MemberBalance balance = fineLedger.settle(id, FineEntry.Type.WAIVER, request.getAmountCents(), request.getNote());
+            return ResponseEntity.ok(Map.of("message", "Fines waived successfully", "balance", balance));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error waiving fines: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/members/search")
-    public ResponseEntity<?> searchMembers(@RequestParam String name) {
+    public ResponseEntity<?> searchMembers(@RequestParam String name, WebRequest request) {
         try {
-            List<Member> members = memberService.searchByName(name);
-            // Remove passwords from response
-            members.forEach(member -> member.setPassword(null));
+            if (catalogVersion.checkNotModified(request, CatalogVersion.MEMBER_LOANS)) {
+                return null;
+            }
+            List<MemberSummary> members = memberService.searchByName(name);
             return ResponseEntity.ok(members);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error searching members: " + e.getMessage());
@@ -128,12 +236,13 @@ public class AdminController {
     }
 
     @GetMapping("/members/{id}")
-    public ResponseEntity<?> getMember(@PathVariable Long id) {
+    public ResponseEntity<?> getMember(@PathVariable Long id, WebRequest request) {
         try {
-            Member member = memberService.findById(id)
+            if (catalogVersion.checkNotModified(request, CatalogVersion.MEMBER_LOANS)) {
+                return null;
+            }
+            MemberSummary member = memberService.findSummaryById(id)
                 .orElseThrow(() -> new RuntimeException("Member not found"));
-            // Remove password from response
-            member.setPassword(null);
             return ResponseEntity.ok(member);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error loading member: " + e.getMessage());
@@ -145,27 +254,45 @@ public class AdminController {
     public ResponseEntity<?> addBook(@Valid @RequestBody Book book) {
         try {
             Book savedBook = bookService.addBook(book);
-            return ResponseEntity.ok(savedBook);
+            return ResponseEntity.ok(BookSummary.of(savedBook));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error adding book: " + e.getMessage());
         }
     }
 
     @GetMapping("/books")
-    public ResponseEntity<?> getAllBooks() {
+    public ResponseEntity<?> getAllBooks(@RequestParam(required = false) String after,
+                                        @RequestParam(required = false) Integer limit,
+                                        @RequestParam(required = false) String sort,
+                                        WebRequest request) {
         try {
-            List<Book> books = bookService.getAllBooks();
+            if (catalogVersion.checkNotModified(request, CatalogVersion.BOOKS)) {
+                return null;
+            }
+            if (after != null || limit != null || sort != null) {
+                return ResponseEntity.ok(bookService.getBooksPage(sort, after, limit));
+            }
+            List<BookSummary> books = bookService.getAllBooks();
             return ResponseEntity.ok(books);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error loading books: " + e.getMessage());
         }
     }
 
+    @GetMapping(value = "/books", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllBooks() {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(entityStreamer.jsonArray(bookService::streamAllBooks));
+    }
+
     @PutMapping("/books/{id}")
     public ResponseEntity<?> updateBook(@PathVariable Long id, @Valid @RequestBody Book book) {
         try {
             Book updatedBook = bookService.updateBook(id, book);
-            return ResponseEntity.ok(updatedBook);
+            return ResponseEntity.ok(BookSummary.of(updatedBook));
+        } catch (ConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Error updating book: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error updating book: " + e.getMessage());
         }
@@ -181,18 +308,83 @@ public class AdminController {
         }
     }
 
+    @GetMapping("/books/{id}/copies")
+    public ResponseEntity<?> getCopies(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(bookService.getCopies(id));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error fetching copies: " + e.getMessage());
+        }
+    }
+
+    // Body: {"count": n}; each new copy goes to the next waiting hold, or on the shelf
+    @PostMapping("/books/{id}/copies")
+    public ResponseEntity<?> addCopies(@PathVariable Long id, @RequestBody Map<String, Integer> request) {
+        try {
+            Integer count = request.get("count");
+            return ResponseEntity.ok(bookService.addCopies(id, count == null ? 1 : count));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error adding copies: " + e.getMessage());
+        }
+    }
+
+    // Lost or damaged copies leave circulation; only a copy on the shelf can be withdrawn
+    @DeleteMapping("/copies/{copyId}")
+    public ResponseEntity<?> withdrawCopy(@PathVariable Long copyId) {
+        try {
+            bookService.withdrawCopy(copyId);
+            return ResponseEntity.ok(Map.of("message", "Copy withdrawn successfully"));
+        } catch (ConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Error withdrawing copy: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error withdrawing copy: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/books/search")
     public ResponseEntity<?> searchBooks(@RequestParam(required = false) String title,
                                         @RequestParam(required = false) String author,
-                                        @RequestParam(required = false) String isbn) {
+                                        @RequestParam(required = false) String isbn,
+                                        WebRequest request) {
         try {
-            List<Book> books = bookService.searchBooks(title, author, isbn);
+            if (catalogVersion.checkNotModified(request, CatalogVersion.BOOKS)) {
+                return null;
+            }
+            List<BookSummary> books = bookService.searchBooks(title, author, isbn);
             return ResponseEntity.ok(books);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error searching books: " + e.getMessage());
         }
     }
 
+    @PostMapping("/books/search-index/rebuild")
+    public ResponseEntity<?> rebuildSearchIndex() {
+        try {
+            int indexed = bookService.rebuildSearchIndex();
+            return ResponseEntity.ok(Map.of(
+                "message", "Search index rebuilt successfully",
+                "indexed", indexed
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error rebuilding search index: " + e.getMessage());
+        }
+    }
+
+    // CSV (isbn,title,author with optional header) or JSON lines; existing ISBNs are updated in place
+    @PostMapping(value = "/books/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importBooks(@RequestParam("file") MultipartFile file,
+                                         @RequestParam(required = false) String format) {
+        try {
+            if (file.isEmpty()) {
+                return ResponseEntity.badRequest().body("Error importing books: file is empty");
+            }
+            BookImportService.Format detected = BookImportService.detectFormat(format, file.getOriginalFilename());
+            return ResponseEntity.ok(bookImportService.importBooks(file.getInputStream(), detected));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error importing books: " + e.getMessage());
+        }
+    }
+
     // Loans management
     @PostMapping("/loans")
     public ResponseEntity<?> createLoan(@RequestBody Map<String, Object> request) {
@@ -202,8 +394,10 @@ public class AdminController {
             Loan loan = loanService.createLoan(memberId, isbn);
             return ResponseEntity.ok(Map.of(
                 "message", "Loan created successfully",
-                "loan", loan
+                "loan", LoanView.of(loan)
             ));
+        } catch (ConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Error creating loan: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error creating loan: " + e.getMessage());
         }
@@ -215,7 +409,7 @@ public class AdminController {
             Loan loan = loanService.extendLoan(id);
             return ResponseEntity.ok(Map.of(
                 "message", "Loan extended successfully",
-                "loan", loan
+                "loan", LoanView.of(loan)
             ));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error extending loan: " + e.getMessage());
@@ -233,19 +427,46 @@ public class AdminController {
     }
 
     @GetMapping("/loans")
-    public ResponseEntity<?> getAllLoans() {
+    public ResponseEntity<?> getAllLoans(@RequestParam(required = false) String after,
+                                        @RequestParam(required = false) Integer limit,
+                                        @RequestParam(required = false) String sort,
+                                        WebRequest request) {
         try {
-            List<Loan> loans = loanService.getAllLoans();
+            if (catalogVersion.checkNotModified(request, CatalogVersion.LOANS, LocalDate.now())) {
+                return null;
+            }
+            if (after != null || limit != null || sort != null) {
+                return ResponseEntity.ok(loanService.getLoansPage(sort, after, limit));
+            }
+            List<LoanView> loans = loanService.getAllLoans();
             return ResponseEntity.ok(loans);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error loading loans: " + e.getMessage());
         }
     }
 
+    @GetMapping(value = "/loans", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllLoans() {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(entityStreamer.jsonArray(loanService::streamAllLoans));
+    }
+
+    // Desk scanning session: JSON lines (or bare barcodes/ISBNs) in, one result line per scan out as each batch commits
+    @PostMapping(value = "/desk/scans", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> deskScans(HttpServletRequest request) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(output -> circulationDesk.run(request.getInputStream(), output));
+    }
+
     @GetMapping("/loans/search")
-    public ResponseEntity<?> searchLoansByMemberName(@RequestParam String name) {
+    public ResponseEntity<?> searchLoansByMemberName(@RequestParam String name, WebRequest request) {
         try {
-            List<Loan> loans = loanService.searchLoansByMemberName(name);
+            if (catalogVersion.checkNotModified(request, CatalogVersion.LOANS, LocalDate.now())) {
+                return null;
+            }
+            List<LoanView> loans = loanService.searchLoansByMemberName(name);
             return ResponseEntity.ok(loans);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error searching loans: " + e.getMessage());
@@ -253,9 +474,12 @@ public class AdminController {
     }
 
     @GetMapping("/loans/overdue")
-    public ResponseEntity<?> getOverdueLoans() {
+    public ResponseEntity<?> getOverdueLoans(WebRequest request) {
         try {
-            List<Loan> overdueLoans = loanService.getOverdueLoans();
+            if (catalogVersion.checkNotModified(request, CatalogVersion.LOANS, LocalDate.now())) {
+                return null;
+            }
+            List<LoanView> overdueLoans = loanService.getOverdueLoans();
             return ResponseEntity.ok(overdueLoans);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error loading overdue loans: " + e.getMessage());
@@ -265,30 +489,66 @@ public class AdminController {
     @PostMapping("/loans/update-overdue")
     public ResponseEntity<?> updateOverdueLoansStatus() {
         try {
-            loanService.updateOverdueLoansStatus();
-            return ResponseEntity.ok(Map.of("message", "Overdue loans status updated successfully"));
+            SweepReport report = overdueSweep.sweep(true);
+            return ResponseEntity.ok(Map.of(
+                "message", "Overdue loans status updated successfully",
+                "report", report
+            ));
+        } catch (ConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Error updating overdue loans: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error updating overdue loans: " + e.getMessage());
         }
     }
 
+    @GetMapping("/loans/overdue-sweep")
+    public ResponseEntity<?> getOverdueSweepReport() {
+        SweepReport report = overdueSweep.getLastReport();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/loans/archive")
+    public ResponseEntity<?> archiveLoans() {
+        try {
+            ArchiveReport report = loanArchiver.archive();
+            return ResponseEntity.ok(Map.of(
+                "message", "Returned loans archived successfully",
+                "report", report
+            ));
+        } catch (ConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Error archiving loans: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error archiving loans: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/loans/archive")
+    public ResponseEntity<?> getArchiveStatus() {
+        try {
+            Map<String, Object> status = new HashMap<>();
+            status.put("archivedLoans", loanArchiver.countArchived());
+            status.put("lastReport", loanArchiver.getLastReport());
+            return ResponseEntity.ok(status);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error loading archive status: " + e.getMessage());
+        }
+    }
+
     // Statistics and reports
     @GetMapping("/statistics")
-    public ResponseEntity<?> getStatistics() {
+    public ResponseEntity<?> getStatistics(WebRequest request) {
         try {
-            List<Member> allMembers = memberService.getAllMembers();
-            List<Book> allBooks = bookService.getAllBooks();
-            List<Loan> allLoans = loanService.getAllLoans();
-            List<Loan> overdueLoans = loanService.getOverdueLoans();
+            if (catalogVersion.checkNotModified(request, CatalogVersion.LOANS, LocalDate.now())) {
+                return null;
+            }
+            List<MemberSummary> allMembers = memberService.getAllMembers();
+            List<LoanView> allLoans = loanService.getAllLoans();
+            List<LoanView> overdueLoans = loanService.getOverdueLoans();
             
             long activeMembers = allMembers.stream()
                 .filter(member -> member.getMembershipStatus() == Member.MembershipStatus.ACTIVE)
                 .count();
             
-            long availableBooks = allBooks.stream()
-                .filter(Book::isAvailable)
-                .count();
-            
             long activeLoans = allLoans.stream()
                 .filter(loan -> loan.getReturnDate() == null)
                 .count();
@@ -296,8 +556,8 @@ public class AdminController {
             Map<String, Object> statistics = new HashMap<>();
             statistics.put("totalMembers", allMembers.size());
             statistics.put("activeMembers", activeMembers);
-            statistics.put("totalBooks", allBooks.size());
-            statistics.put("availableBooks", availableBooks);
+            statistics.put("totalBooks", bookService.countTotalBooks());
+            statistics.put("availableBooks", bookService.countAvailableBooks());
             statistics.put("totalLoans", allLoans.size());
             statistics.put("activeLoans", activeLoans);
             statistics.put("overdueLoans", overdueLoans.size());
@@ -307,4 +567,86 @@ public class AdminController {
             return ResponseEntity.badRequest().body("Error loading statistics: " + e.getMessage());
         }
     }
+
+    // Analytics reports scan the in-memory loan snapshot; from/to filter on borrow date
+    @GetMapping("/analytics")
+    public ResponseEntity<?> getAnalyticsSnapshot() {
+        return ResponseEntity.ok(loanAnalytics.describe());
+    }
+
+    @PostMapping("/analytics/rebuild")
+    public ResponseEntity<?> rebuildAnalyticsSnapshot() {
+        try {
+            return ResponseEntity.ok(loanAnalytics.rebuild());
+        } catch (ConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Error rebuilding analytics: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error rebuilding analytics: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/analytics/summary")
+    public ResponseEntity<?> getLoanSummary(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(loanAnalytics.summary(from, to));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error loading loan summary: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/analytics/authors")
+    public ResponseEntity<?> getLoansPerAuthor(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(loanAnalytics.loansPerAuthor(from, to, Math.max(1, Math.min(limit, 1000))));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error loading loans per author: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/analytics/monthly")
+    public ResponseEntity<?> getMonthlyRenewals(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(loanAnalytics.monthlyRenewals(from, to));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error loading monthly renewals: " + e.getMessage());
+        }
+    }
+
+    // Replays the circulation event log from a sequence number; pass the last sequence seen to resume
+    @GetMapping("/events")
+    public ResponseEntity<?> getEvents(@RequestParam(defaultValue = "0") long after,
+                                       @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(eventLog.read(after, Math.max(1, Math.min(limit, 1000))));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error reading events: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/events/status")
+    public ResponseEntity<?> getEventStatus() {
+        try {
+            Map<String, Object> status = outboxRelay.status();
+            status.put("circulation", circulationStats.snapshot());
+            return ResponseEntity.ok(status);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error loading event status: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> getCacheStatistics() {
+        try {
+            return ResponseEntity.ok(secondLevelCache.statistics());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error loading cache statistics: " + e.getMessage());
+        }
+    }
 }
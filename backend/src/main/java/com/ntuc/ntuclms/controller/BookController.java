@@ -1,10 +1,12 @@
 package com.ntuc.ntuclms.controller;
 
-import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.dto.BookSummary;
 import com.ntuc.ntuclms.service.BookService;
+import com.ntuc.ntuclms.service.CatalogVersion;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -16,10 +18,23 @@ public class BookController {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private CatalogVersion catalogVersion;
+
     @GetMapping
-    public ResponseEntity<?> getAllBooks() {
+    public ResponseEntity<?> getAllBooks(@RequestParam(required = false) String after,
+                                        @RequestParam(required = false) Integer limit,
+                                        @RequestParam(required = false) String sort,
+                                        WebRequest request) {
         try {
-            List<Book> books = bookService.getAllBooks();
+            if (catalogVersion.checkNotModified(request, CatalogVersion.BOOKS)) {
+                return null;
+            }
+            // Cursor pagination is opt-in; without paging parameters the full list is returned
+            if (after != null || limit != null || sort != null) {
+                return ResponseEntity.ok(bookService.getBooksPage(sort, after, limit));
+            }
+            List<BookSummary> books = bookService.getAllBooks();
             return ResponseEntity.ok(books);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error loading books: " + e.getMessage());
@@ -27,19 +42,53 @@ public class BookController {
     }
 
     @GetMapping("/available")
-    public ResponseEntity<?> getAvailableBooks() {
+    public ResponseEntity<?> getAvailableBooks(WebRequest request) {
         try {
-            List<Book> books = bookService.getAvailableBooks();
+            if (catalogVersion.checkNotModified(request, CatalogVersion.BOOKS)) {
+                return null;
+            }
+            List<BookSummary> books = bookService.getAvailableBooks();
             return ResponseEntity.ok(books);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error loading available books: " + e.getMessage());
         }
     }
 
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(@RequestParam String q,
+                                     @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(bookService.suggest(q, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error loading suggestions: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<?> facetedSearch(@RequestParam(required = false) String author,
+                                           @RequestParam(required = false) Boolean available,
+                                           @RequestParam(required = false) String initial,
+                                           @RequestParam(required = false) String after,
+                                           @RequestParam(required = false) Integer limit,
+                                           WebRequest request) {
+        try {
+            if (catalogVersion.checkNotModified(request, CatalogVersion.BOOKS)) {
+                return null;
+            }
+            return ResponseEntity.ok(bookService.facetedSearch(author, available, initial, after, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error searching books: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<?> getBook(@PathVariable Long id) {
+    public ResponseEntity<?> getBook(@PathVariable Long id, WebRequest request) {
         try {
-            Book book = bookService.findById(id)
+            if (catalogVersion.checkNotModified(request, CatalogVersion.BOOKS)) {
+                return null;
+            }
+            BookSummary book = bookService.findById(id)
+                .map(BookSummary::of)
                 .orElseThrow(() -> new RuntimeException("Book not found"));
             return ResponseEntity.ok(book);
         } catch (Exception e) {
@@ -50,9 +99,13 @@ public class BookController {
     @GetMapping("/search")
     public ResponseEntity<?> searchBooks(@RequestParam(required = false) String title,
                                         @RequestParam(required = false) String author,
-                                        @RequestParam(required = false) String isbn) {
+                                        @RequestParam(required = false) String isbn,
+                                        WebRequest request) {
         try {
-            List<Book> books = bookService.searchBooks(title, author, isbn);
+            if (catalogVersion.checkNotModified(request, CatalogVersion.BOOKS)) {
+                return null;
+            }
+            List<BookSummary> books = bookService.searchBooks(title, author, isbn);
             return ResponseEntity.ok(books);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error searching books: " + e.getMessage());
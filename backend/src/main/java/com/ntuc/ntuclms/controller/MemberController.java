@@ -1,16 +1,29 @@
 // src/main/java/com/ntuc/ntuclms/controller/MemberController.java
 package com.ntuc.ntuclms.controller;
 
+import com.ntuc.ntuclms.dto.BatchItemResult;
+import com.ntuc.ntuclms.dto.CheckoutRequest;
+import com.ntuc.ntuclms.dto.HoldView;
+import com.ntuc.ntuclms.dto.LoanView;
+import com.ntuc.ntuclms.dto.RenewRequest;
 import com.ntuc.ntuclms.entity.Loan;
 import com.ntuc.ntuclms.entity.Member;
+import com.ntuc.ntuclms.entity.MemberBalance;
+import com.ntuc.ntuclms.exception.ConflictException;
+import com.ntuc.ntuclms.service.CatalogVersion;
+import com.ntuc.ntuclms.service.FineLedger;
+import com.ntuc.ntuclms.service.HoldService;
 import com.ntuc.ntuclms.service.LoanService;
 import com.ntuc.ntuclms.service.MemberService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,16 +40,29 @@ public class MemberController {
     @Autowired
     private LoanService loanService;
 
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private FineLedger fineLedger;
+
+    @Autowired
+    private HoldService holdService;
+
     @GetMapping("/dashboard")
-    public ResponseEntity<?> dashboard() {
+    public ResponseEntity<?> dashboard(WebRequest request) {
         try {
+            // Tags are per caller, and fines and overdue flags also move with the date
+            if (catalogVersion.checkNotModified(request, CatalogVersion.LOANS, request.getRemoteUser(), LocalDate.now())) {
+                return null;
+            }
             Member member = memberService.getCurrentMember();
-            List<Loan> currentLoans = loanService.getCurrentLoans();
-            List<Loan> history = loanService.getLoanHistory();
+            List<LoanView> currentLoans = loanService.getCurrentLoans();
+            List<LoanView> history = loanService.getLoanHistory();
             double totalFines = loanService.calculateTotalFines();
             
             Map<String, Object> dashboardData = new HashMap<>();
-            dashboardData.put("member", member);
+            dashboardData.put("member", memberService.getSummary(member));
             dashboardData.put("currentLoans", currentLoans);
             dashboardData.put("loanHistory", history);
             dashboardData.put("totalFines", totalFines);
@@ -49,12 +75,13 @@ public class MemberController {
     }
 
     @GetMapping("/profile")
-    public ResponseEntity<?> getProfile() {
+    public ResponseEntity<?> getProfile(WebRequest request) {
         try {
+            if (catalogVersion.checkNotModified(request, CatalogVersion.MEMBERS, request.getRemoteUser())) {
+                return null;
+            }
             Member member = memberService.getProfile();
-            // Remove password from response
-            member.setPassword(null);
-            return ResponseEntity.ok(member);
+            return ResponseEntity.ok(memberService.getSummary(member));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error loading profile: " + e.getMessage());
         }
@@ -64,18 +91,19 @@ public class MemberController {
     public ResponseEntity<?> updateProfile(@Valid @RequestBody Member updatedMember) {
         try {
             Member member = memberService.updateProfile(updatedMember);
-            // Remove password from response
-            member.setPassword(null);
-            return ResponseEntity.ok(member);
+            return ResponseEntity.ok(memberService.getSummary(member));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error updating profile: " + e.getMessage());
         }
     }
 
     @GetMapping("/loans")
-    public ResponseEntity<?> getCurrentLoans() {
+    public ResponseEntity<?> getCurrentLoans(WebRequest request) {
         try {
-            List<Loan> loans = loanService.getCurrentLoans();
+            if (catalogVersion.checkNotModified(request, CatalogVersion.LOANS, request.getRemoteUser(), LocalDate.now())) {
+                return null;
+            }
+            List<LoanView> loans = loanService.getCurrentLoans();
             return ResponseEntity.ok(loans);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error loading current loans: " + e.getMessage());
@@ -83,9 +111,17 @@ public class MemberController {
     }
 
     @GetMapping("/loans/history")
-    public ResponseEntity<?> getLoanHistory() {
+    public ResponseEntity<?> getLoanHistory(@RequestParam(required = false) String after,
+                                           @RequestParam(required = false) Integer limit,
+                                           WebRequest request) {
         try {
-            List<Loan> history = loanService.getLoanHistory();
+            if (catalogVersion.checkNotModified(request, CatalogVersion.LOANS, request.getRemoteUser(), LocalDate.now())) {
+                return null;
+            }
+            if (after != null || limit != null) {
+                return ResponseEntity.ok(loanService.getLoanHistoryPage(after, limit));
+            }
+            List<LoanView> history = loanService.getLoanHistory();
             return ResponseEntity.ok(history);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error loading loan history: " + e.getMessage());
@@ -98,20 +134,52 @@ public class MemberController {
             Loan loan = loanService.borrowBook(bookId);
             return ResponseEntity.ok(Map.of(
                 "message", "Book borrowed successfully",
-                "loan", loan
+                "loan", LoanView.of(loan)
             ));
+        } catch (ConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Error borrowing book: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error borrowing book: " + e.getMessage());
         }
     }
 
+    @PostMapping("/checkout")
+    public ResponseEntity<?> checkout(@Valid @RequestBody CheckoutRequest request) {
+        try {
+            List<BatchItemResult> results = loanService.checkout(request.getBookIds());
+            return ResponseEntity.ok(Map.of(
+                "message", "Checkout processed",
+                "borrowed", results.stream().filter(BatchItemResult::isSuccess).count(),
+                "results", results
+            ));
+        } catch (ConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Error checking out books: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error checking out books: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/renew")
+    public ResponseEntity<?> renewLoans(@Valid @RequestBody RenewRequest request) {
+        try {
+            List<BatchItemResult> results = loanService.renewLoans(request.getLoanIds());
+            return ResponseEntity.ok(Map.of(
+                "message", "Renewal processed",
+                "renewed", results.stream().filter(BatchItemResult::isSuccess).count(),
+                "results", results
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error renewing loans: " + e.getMessage());
+        }
+    }
+
     @PostMapping("/renew/{loanId}")
     public ResponseEntity<?> renewLoan(@PathVariable Long loanId) {
         try {
             Loan loan = loanService.renewLoan(loanId);
             return ResponseEntity.ok(Map.of(
                 "message", "Loan renewed successfully",
-                "loan", loan
+                "loan", LoanView.of(loan)
             ));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error renewing loan: " + e.getMessage());
@@ -124,7 +192,7 @@ public class MemberController {
             Loan loan = loanService.returnBook(loanId);
             return ResponseEntity.ok(Map.of(
                 "message", "Book returned successfully",
-                "loan", loan,
+                "loan", LoanView.of(loan),
                 "fine", loan.getFine()
             ));
         } catch (Exception e) {
@@ -132,19 +200,65 @@ public class MemberController {
         }
     }
 
+    @GetMapping("/holds")
+    public ResponseEntity<?> getHolds() {
+        try {
+            return ResponseEntity.ok(holdService.getMyHolds());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error loading holds: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/holds/{bookId}")
+    public ResponseEntity<?> placeHold(@PathVariable Long bookId) {
+        try {
+            HoldView hold = holdService.placeHold(bookId);
+            return ResponseEntity.ok(Map.of(
+                "message", "Hold placed successfully",
+                "hold", hold
+            ));
+        } catch (ConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Error placing hold: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error placing hold: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<?> cancelHold(@PathVariable Long holdId) {
+        try {
+            holdService.cancelHold(holdId);
+            return ResponseEntity.ok(Map.of("message", "Hold cancelled successfully"));
+        } catch (ConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Error cancelling hold: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error cancelling hold: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/fines")
-    public ResponseEntity<?> getTotalFines() {
+    public ResponseEntity<?> getTotalFines(WebRequest request) {
         try {
-            double totalFines = loanService.calculateTotalFines();
-            return ResponseEntity.ok(Map.of("totalFines", totalFines));
+            if (catalogVersion.checkNotModified(request, CatalogVersion.LOANS, request.getRemoteUser(), LocalDate.now())) {
+                return null;
+            }
+            MemberBalance balance = fineLedger.getBalance(memberService.getCurrentMember().getId());
+            return ResponseEntity.ok(Map.of(
+                "totalFines", balance.getBalanceCents() / 100.0,
+                "balance", balance
+            ));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error calculating fines: " + e.getMessage());
         }
     }
 
     @GetMapping("/eligibility")
-    public ResponseEntity<?> checkBorrowEligibility() {
+    public ResponseEntity<?> checkBorrowEligibility(WebRequest request) {
         try {
+            // canBorrow reads the membership status as well as the member's loans
+            if (catalogVersion.checkNotModified(request, CatalogVersion.MEMBER_LOANS, request.getRemoteUser(), LocalDate.now())) {
+                return null;
+            }
             Member member = memberService.getCurrentMember();
             boolean canBorrow = memberService.canBorrow(member);
             return ResponseEntity.ok(Map.of("canBorrow", canBorrow));
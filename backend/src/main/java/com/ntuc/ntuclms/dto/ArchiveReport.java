@@ -0,0 +1,24 @@
+package com.ntuc.ntuclms.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ArchiveReport {
+    // Loans returned before this day were eligible
+    private LocalDate cutoff;
+    private LocalDateTime startedAt;
+    private boolean completed;
+    private int chunks;
+    private long archived;
+    private long elapsedMillis;
+    private long slowestChunkMillis;
+    // Yearly partitions of loans_archive created by this run (MySQL only)
+    private List<String> partitionsAdded = new ArrayList<>();
+}
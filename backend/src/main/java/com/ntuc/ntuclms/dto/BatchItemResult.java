@@ -0,0 +1,24 @@
+package com.ntuc.ntuclms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Outcome for one id of a multi-item request; the other items are unaffected by a failure here
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult {
+    private Long id;
+    private boolean success;
+    private String error;
+    private LoanView loan;
+
+    public static BatchItemResult ok(Long id, LoanView loan) {
+        return new BatchItemResult(id, true, null, loan);
+    }
+
+    public static BatchItemResult failed(Long id, String error) {
+        return new BatchItemResult(id, false, error, null);
+    }
+}
@@ -0,0 +1,26 @@
+package com.ntuc.ntuclms.dto;
+
+import com.ntuc.ntuclms.entity.Book;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Read model for book listings; filled by constructor queries so no entities or loan collections are loaded
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSummary {
+    private Long id;
+    private String isbn;
+    private String title;
+    private String author;
+    private boolean available;
+    // Read from the per-title counters on the books row, so "3 of 7 available" costs no COUNT over copies
+    private int availableCopies;
+    private int totalCopies;
+
+    public static BookSummary of(Book book) {
+        return new BookSummary(book.getId(), book.getIsbn(), book.getTitle(), book.getAuthor(), book.isAvailable(),
+            book.getAvailableCopies(), book.getTotalCopies());
+    }
+}
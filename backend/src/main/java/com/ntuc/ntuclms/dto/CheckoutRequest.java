@@ -0,0 +1,20 @@
+package com.ntuc.ntuclms.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutRequest {
+
+    @NotEmpty(message = "At least one book is required")
+    @Size(max = 50, message = "At most 50 books per checkout")
+    private List<@NotNull Long> bookIds;
+}
@@ -0,0 +1,26 @@
+package com.ntuc.ntuclms.dto;
+
+import com.ntuc.ntuclms.entity.OutboxEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// An outbox event as published: one line of the event log and what subscribers receive
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CirculationEvent {
+    // Position in the event log, assigned in publish order
+    private long sequence;
+    private Long eventId;
+    private OutboxEvent.Type type;
+    private Long memberId;
+    private Long loanId;
+    private Long bookId;
+    private Map<String, Object> detail;
+    private LocalDateTime occurredAt;
+    private LocalDateTime publishedAt;
+}
@@ -0,0 +1,20 @@
+package com.ntuc.ntuclms.dto;
+
+import com.ntuc.ntuclms.entity.BookCopy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A row of the admin copy listing, selected without loading the copy or its book
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CopyView {
+    private Long id;
+    private Long bookId;
+    private String barcode;
+    private BookCopy.CopyStatus status;
+    private LocalDateTime addedAt;
+}
@@ -0,0 +1,21 @@
+package com.ntuc.ntuclms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One line of a desk scanning session; code is a copy barcode or an ISBN
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeskScan {
+
+    public enum Action {
+        MEMBER, RETURN, CHECKOUT
+    }
+
+    private Action action;
+    private String code;
+    // CHECKOUT falls back to the member of the session's last MEMBER scan
+    private Long memberId;
+}
@@ -0,0 +1,18 @@
+package com.ntuc.ntuclms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetedSearchResult {
+    private List<BookSummary> items;
+    private String nextCursor;
+    private int total;
+    private Map<String, Map<String, Integer>> facets; // facet name -> value -> matching books
+}
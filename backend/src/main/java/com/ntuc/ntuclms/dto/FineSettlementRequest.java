@@ -0,0 +1,19 @@
+package com.ntuc.ntuclms.dto;
+
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FineSettlementRequest {
+
+    @Positive(message = "Amount must be positive")
+    private long amountCents;
+
+    @Size(max = 255, message = "Note must be at most 255 characters")
+    private String note;
+}
@@ -0,0 +1,24 @@
+package com.ntuc.ntuclms.dto;
+
+import com.ntuc.ntuclms.entity.Hold;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A member's live hold; position is 1 for the head of the queue and 0 once the book is waiting for pickup
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldView {
+    private Long id;
+    private Long bookId;
+    private String bookIsbn;
+    private String bookTitle;
+    private Hold.HoldStatus status;
+    private LocalDateTime placedAt;
+    private LocalDateTime readyAt;
+    private LocalDateTime expiresAt;
+    private long position;
+}
@@ -0,0 +1,39 @@
+package com.ntuc.ntuclms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ImportReport {
+    private long processed;
+    private long inserted;
+    private long updated;
+    private long unchanged;
+    private long failed;
+    private long elapsedMillis;
+    private boolean errorsTruncated;
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String isbn;
+        private String message;
+    }
+
+    // Outcome of one upserted chunk
+    @Data
+    @AllArgsConstructor
+    public static class Chunk {
+        private int inserted;
+        private int updated;
+        private int unchanged;
+    }
+}
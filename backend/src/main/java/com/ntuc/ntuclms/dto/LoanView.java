@@ -0,0 +1,42 @@
+package com.ntuc.ntuclms.dto;
+
+import com.ntuc.ntuclms.entity.Loan;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Flat read model for loan listings; one joined row per loan, so listing size does not change the query count
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanView {
+    private Long id;
+    private Long memberId;
+    private String memberName;
+    private String memberUsername;
+    private Long bookId;
+    private String bookIsbn;
+    private String bookTitle;
+    private String bookAuthor;
+    private LocalDate borrowDate;
+    private LocalDate dueDate;
+    private LocalDate returnDate;
+    private double fine;
+    private Loan.LoanStatus status;
+    private boolean renewable;
+    private int renewalCount;
+
+    public static LoanView of(Loan loan) {
+        return new LoanView(loan.getId(),
+            loan.getMember().getId(), loan.getMember().getName(), loan.getMember().getUsername(),
+            loan.getBook().getId(), loan.getBook().getIsbn(), loan.getBook().getTitle(), loan.getBook().getAuthor(),
+            loan.getBorrowDate(), loan.getDueDate(), loan.getReturnDate(), loan.getFine(), loan.getStatus(),
+            loan.isRenewable(), loan.getRenewalCount());
+    }
+
+    public boolean isOverdue() {
+        return returnDate == null && LocalDate.now().isAfter(dueDate);
+    }
+}
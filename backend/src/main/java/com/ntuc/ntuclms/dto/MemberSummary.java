@@ -0,0 +1,23 @@
+package com.ntuc.ntuclms.dto;
+
+import com.ntuc.ntuclms.entity.Member;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Read model for member listings; never carries the password hash
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberSummary {
+    private Long id;
+    private String name;
+    private String username;
+    private String email;
+    private LocalDate registrationDate;
+    private Member.Role role;
+    private Member.MembershipStatus membershipStatus;
+    private long activeLoans;
+}
@@ -0,0 +1,19 @@
+package com.ntuc.ntuclms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Outcome for one line of a desk scanning session, numbered from 1 in input order
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanResult {
+    private long seq;
+    private DeskScan.Action action;
+    private String code;
+    private Long memberId;
+    private boolean success;
+    private String error;
+    private LoanView loan;
+}
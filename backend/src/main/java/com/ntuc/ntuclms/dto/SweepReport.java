@@ -0,0 +1,21 @@
+package com.ntuc.ntuclms.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+public class SweepReport {
+    private LocalDate sweepDate;
+    private LocalDateTime startedAt;
+    // True when this run continued a watermark left behind by an interrupted run
+    private boolean resumed;
+    private boolean completed;
+    private int chunks;
+    private long updated;
+    private long elapsedMillis;
+    private long slowestChunkMillis;
+}
@@ -0,0 +1,74 @@
+package com.ntuc.ntuclms.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Cold tier of the loans table: returned loans moved out by LoanArchiver,
+ * keeping their original ids. On MySQL the table is range-partitioned by
+ * return year (see LoanArchiveRepository), which requires the year in the
+ * primary key. Rows are written and deleted with plain JDBC only.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(ArchivedLoan.Key.class)
+@Table(name = "loans_archive", indexes = {
+    @Index(name = "idx_loans_archive_member_borrow_date", columnList = "member_id, borrow_date"),
+    @Index(name = "idx_loans_archive_book", columnList = "book_id")
+})
+public class ArchivedLoan {
+
+    @Id
+    private Long id;
+
+    @Id
+    @Column(name = "return_year")
+    private int returnYear;
+
+    // Plain ids: the archive has no foreign keys, so it never slows writes to members or books
+    @Column(name = "member_id", nullable = false)
+    private Long memberId;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(name = "copy_id")
+    private Long copyId;
+
+    @Column(nullable = false)
+    private LocalDate borrowDate;
+
+    @Column(nullable = false)
+    private LocalDate dueDate;
+
+    @Column(nullable = false)
+    private LocalDate returnDate;
+
+    @Column(nullable = false)
+    private double fine;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Loan.LoanStatus status;
+
+    private int renewalCount;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long id;
+        private int returnYear;
+    }
+}
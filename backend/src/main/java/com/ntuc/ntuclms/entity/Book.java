@@ -2,6 +2,9 @@
 package com.ntuc.ntuclms.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
@@ -10,14 +13,24 @@ import lombok.NoArgsConstructor;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "books")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "books")
+@Table(name = "books", indexes = {
+    @Index(name = "idx_books_title", columnList = "title"),
+    @Index(name = "idx_books_author", columnList = "author")
+})
 public class Book {
 
+    public static final int ID_ALLOCATION_SIZE = 100;
+
+    // Ids come from a pooled table generator so bulk inserts can be JDBC-batched (IDENTITY disables batching)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "book_id")
+    @TableGenerator(name = "book_id", table = "id_generators", pkColumnName = "sequence_name",
+        valueColumnName = "next_val", pkColumnValue = "books", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @NotBlank(message = "ISBN is required")
@@ -35,9 +48,32 @@ public class Book {
     @Column(nullable = false)
     private String author;
 
+    // Kept equal to availableCopies > 0, so availability filters and indexes need not know about copies
     @Column(nullable = false)
     private boolean available = true;
 
+    // Copies in circulation (not withdrawn) and copies on the shelf; the conditional updates in
+    // BookCounterRepository keep 0 <= availableCopies <= totalCopies, and copies kept aside for a hold count as out
+    @ColumnDefault("1")
+    @Column(nullable = false)
+    private int totalCopies = 1;
+
+    @ColumnDefault("1")
+    @Column(nullable = false)
+    private int availableCopies = 1;
+
+    // Bumped by every write, including the conditional reserve/release updates in BookRepository
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
     @OneToMany(mappedBy = "book", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Loan> loans;
+
+    // Setting availability by hand puts every copy on the shelf or takes them all off
+    public void setAvailable(boolean available) {
+        this.available = available;
+        this.availableCopies = available ? totalCopies : 0;
+    }
 }
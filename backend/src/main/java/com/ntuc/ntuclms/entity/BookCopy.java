@@ -0,0 +1,52 @@
+package com.ntuc.ntuclms.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One physical copy of a book. Loans are of a copy; the book row keeps the per-title counts
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "book_copies", indexes = {
+    @Index(name = "idx_book_copies_book_status", columnList = "book_id, status")
+})
+public class BookCopy {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    private Book book;
+
+    @Column(unique = true, nullable = false, length = 32)
+    private String barcode;
+
+    // A copy kept aside for a READY hold stays AVAILABLE here; the book's availableCopies already counts it out
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private CopyStatus status = CopyStatus.AVAILABLE;
+
+    @Column(nullable = false)
+    private LocalDateTime addedAt;
+
+    public enum CopyStatus {
+        AVAILABLE, ON_LOAN, WITHDRAWN
+    }
+
+    // Barcodes are numbered per book; the id prefix keeps them unique even if an ISBN is later reused
+    public static String barcode(Long bookId, long number) {
+        return "B" + bookId + "-" + number;
+    }
+
+    // Tells a scanned copy barcode from an ISBN, which never starts with a letter
+    public static boolean isBarcode(String code) {
+        return code.startsWith("B");
+    }
+}
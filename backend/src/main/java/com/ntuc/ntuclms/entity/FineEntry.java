@@ -0,0 +1,47 @@
+package com.ntuc.ntuclms.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Append-only: a member's balance is the sum of their entries, which are never updated or deleted
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "fine_entries", indexes = {
+    @Index(name = "idx_fine_entries_member", columnList = "member_id, id")
+})
+public class FineEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Plain ids rather than associations so deleting a loan or member leaves its history intact
+    @Column(name = "member_id", nullable = false)
+    private Long memberId;
+
+    @Column(name = "loan_id")
+    private Long loanId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 16)
+    private Type type;
+
+    // Signed: accruals add to the balance, payments and waivers are recorded as negative amounts
+    @Column(nullable = false)
+    private long amountCents;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private String note;
+
+    public enum Type {
+        ACCRUAL, PAYMENT, WAIVER
+    }
+}
@@ -0,0 +1,54 @@
+package com.ntuc.ntuclms.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A place in a book's FIFO queue: WAITING until a copy comes back, then READY for the pickup window
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "holds", indexes = {
+    @Index(name = "idx_holds_book_status", columnList = "book_id, status, id"),
+    @Index(name = "idx_holds_member_status", columnList = "member_id, status")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_holds_active_member_book", columnNames = {"active_member_id", "book_id"})
+})
+public class Hold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "member_id", nullable = false)
+    private Member member;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    private Book book;
+
+    // Member id while the hold is WAITING or READY, null afterwards; the unique key allows one live hold per member and book
+    @Column(name = "active_member_id")
+    private Long activeMemberId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private HoldStatus status = HoldStatus.WAITING;
+
+    @Column(nullable = false)
+    private LocalDateTime placedAt;
+
+    private LocalDateTime readyAt;
+
+    // End of the pickup window once READY
+    private LocalDateTime expiresAt;
+
+    public enum HoldStatus {
+        WAITING, READY, FULFILLED, EXPIRED, CANCELLED
+    }
+}
@@ -0,0 +1,44 @@
+package com.ntuc.ntuclms.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// The stored response to the first request made with an Idempotency-Key; replayed to retries until it expires
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "idempotency_keys", indexes = {
+    @Index(name = "idx_idempotency_keys_expires", columnList = "expires_at")
+})
+public class IdempotencyRecord {
+
+    // SHA-256 of the user and the client's key, so keys of any length fit and users cannot collide
+    @Id
+    @Column(name = "key_hash", length = 64)
+    private String keyHash;
+
+    // SHA-256 of method, path and body: a key reused for a different request is rejected, not replayed
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(nullable = false)
+    private int status;
+
+    @Column(length = 100)
+    private String contentType;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] body;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -2,16 +2,28 @@
 package com.ntuc.ntuclms.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.time.LocalDate;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "loans")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "loans")
+@Table(name = "loans", indexes = {
+    @Index(name = "idx_loans_borrow_date", columnList = "borrow_date"),
+    @Index(name = "idx_loans_due_date", columnList = "due_date"),
+    @Index(name = "idx_loans_open_due", columnList = "return_date, due_date"),
+    @Index(name = "idx_loans_member_borrow_date", columnList = "member_id, borrow_date")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_loans_active_book_member", columnNames = {"active_book_id", "member_id"}),
+    @UniqueConstraint(name = "uk_loans_active_copy", columnNames = "active_copy_id")
+})
 public class Loan {
 
     @Id
@@ -34,6 +46,19 @@ public class Loan {
 
     private LocalDate returnDate;
 
+    // The copy lent out, as a plain id so copies can be deleted without touching loan history;
+    // null for loans opened before copies were tracked
+    @Column(name = "copy_id")
+    private Long copyId;
+
+    // Book id while the loan is open, null once returned; the unique key allows one open loan per member and book
+    @Column(name = "active_book_id")
+    private Long activeBookId;
+
+    // Copy id while the loan is open, null once returned; the unique key allows one open loan per copy
+    @Column(name = "active_copy_id")
+    private Long activeCopyId;
+
     @Column(nullable = false)
     private double fine = 0.0;
 
@@ -47,7 +72,7 @@ public class Loan {
 
     private static final int MAX_RENEWALS = 2;
     private static final int LOAN_PERIOD_DAYS = 14;
-    private static final double FINE_PER_DAY = 1.0;
+    public static final double FINE_PER_DAY = 1.0;
 
     public enum LoanStatus {
         ACTIVE, RETURNED, OVERDUE
@@ -2,6 +2,9 @@
 package com.ntuc.ntuclms.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -12,10 +15,14 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "members")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "members")
+@Table(name = "members", indexes = {
+    @Index(name = "idx_members_name", columnList = "name")
+})
 public class Member {
 
     @Id
@@ -53,7 +60,18 @@ public class Member {
     @Column(nullable = false)
     private MembershipStatus membershipStatus = MembershipStatus.ACTIVE;
 
+    // Circulation counters over the member's open loans, kept by CirculationCounters with conditional
+    // updates; Hibernate never writes them, so saving a member cannot overwrite a concurrent borrow
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private int activeLoanCount;
+
+    @Column(insertable = false, updatable = false)
+    private LocalDate earliestActiveDueDate;
+
+    // Inverse side: LoanService evicts this entry when it adds or removes a member's loan
     @OneToMany(mappedBy = "member", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member-loans")
     private List<Loan> loans;
 
     public enum Role {
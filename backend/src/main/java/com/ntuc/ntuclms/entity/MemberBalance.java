@@ -0,0 +1,39 @@
+package com.ntuc.ntuclms.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Running totals of a member's fine entries, written in the same transaction as each entry
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "member_balances")
+public class MemberBalance {
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @Column(nullable = false)
+    private long balanceCents;
+
+    @Column(nullable = false)
+    private long accruedCents;
+
+    @Column(nullable = false)
+    private long paidCents;
+
+    @Column(nullable = false)
+    private long waivedCents;
+
+    private LocalDateTime updatedAt;
+
+    public static MemberBalance empty(Long memberId) {
+        return new MemberBalance(memberId, 0, 0, 0, 0, null);
+    }
+}
@@ -0,0 +1,52 @@
+package com.ntuc.ntuclms.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Written in the same transaction as the change it describes; OutboxRelay publishes it and sets publishedAt
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "outbox_events", indexes = {
+    @Index(name = "idx_outbox_events_pending", columnList = "published_at, id")
+})
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 32)
+    private Type type;
+
+    // Plain ids rather than associations: the event outlives deleted loans and members
+    @Column(name = "member_id", nullable = false)
+    private Long memberId;
+
+    @Column(name = "loan_id")
+    private Long loanId;
+
+    @Column(name = "book_id")
+    private Long bookId;
+
+    // JSON object with the type-specific fields (due date, fine, ...)
+    @Column(length = 1000)
+    private String detail;
+
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+
+    public enum Type {
+        LOAN_OPENED, LOAN_RENEWED, LOAN_RETURNED, LOAN_DELETED,
+        MEMBER_REGISTERED, MEMBER_UPDATED, MEMBERSHIP_RENEWED, MEMBER_DELETED
+    }
+}
@@ -0,0 +1,43 @@
+package com.ntuc.ntuclms.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Progress of a chunked background sweep, committed with each chunk so an interrupted run resumes where it stopped
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "sweep_watermarks")
+public class SweepWatermark {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    // The day the current run is sweeping for; a new day starts over from the beginning
+    private LocalDate sweepDate;
+
+    // Last (due_date, id) key covered by a committed chunk; null before the first chunk
+    private LocalDate lastDueDate;
+
+    private Long lastId;
+
+    private boolean completed;
+
+    private LocalDateTime updatedAt;
+
+    public SweepWatermark(String name) {
+        this.name = name;
+    }
+
+    public void restart(LocalDate sweepDate) {
+        this.sweepDate = sweepDate;
+        this.lastDueDate = null;
+        this.lastId = null;
+        this.completed = false;
+    }
+}
@@ -0,0 +1,13 @@
+package com.ntuc.ntuclms.exception;
+
+// The request lost a race for a shared resource (e.g. the last copy of a book); controllers answer 409
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+
+    public ConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
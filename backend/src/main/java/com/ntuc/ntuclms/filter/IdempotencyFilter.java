@@ -0,0 +1,189 @@
+package com.ntuc.ntuclms.filter;
+
+import com.ntuc.ntuclms.service.IdempotencyStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Makes the configured mutation endpoints safe to retry. A request that
+ * carries an Idempotency-Key header runs once; later requests by the same
+ * user with the same key get the stored response back (marked with
+ * Idempotent-Replayed) without reaching the controller. Only successful
+ * responses are stored: after an error the key is released, so the client
+ * can retry for real. Runs after authorization, so only permitted requests
+ * claim keys.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Value("${idempotency.paths:/api/member/borrow/*,/api/member/return/*,/api/member/checkout,/api/member/renew,/api/member/renew/*,/api/admin/loans}")
+    private String[] paths;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (request.getHeader(KEY_HEADER) == null || "GET".equals(request.getMethod())
+                || "HEAD".equals(request.getMethod()) || "OPTIONS".equals(request.getMethod())) {
+            return true;
+        }
+        String path = path(request);
+        return Arrays.stream(paths).noneMatch(pattern -> pathMatcher.match(pattern.trim(), path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String key = request.getHeader(KEY_HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            reject(response, HttpStatus.BAD_REQUEST, KEY_HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        CachedBodyRequest cached = new CachedBodyRequest(request);
+        String query = request.getQueryString();
+        String fingerprint = IdempotencyStore.fingerprint(request.getMethod(),
+            path(request) + (query == null ? "" : "?" + query), cached.body);
+        String username = auth.getName();
+
+        IdempotencyStore.Claim claim = idempotencyStore.begin(username, key, fingerprint);
+        switch (claim.outcome()) {
+            case REPLAY -> replay(response, claim.response());
+            case IN_PROGRESS -> reject(response, HttpStatus.CONFLICT,
+                "A request with this " + KEY_HEADER + " is still being processed");
+            case MISMATCH -> reject(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                KEY_HEADER + " was already used for a different request");
+            case STARTED -> {
+                ContentCachingResponseWrapper recorded = new ContentCachingResponseWrapper(response);
+                boolean stored = false;
+                try {
+                    filterChain.doFilter(cached, recorded);
+                    if (HttpStatus.valueOf(recorded.getStatus()).is2xxSuccessful()) {
+                        stored = idempotencyStore.complete(username, key, fingerprint, new IdempotencyStore.StoredResponse(
+                            recorded.getStatus(), recorded.getContentType(), recorded.getContentAsByteArray()));
+                    }
+                } finally {
+                    if (!stored) {
+                        idempotencyStore.abandon(username, key);
+                    }
+                    recorded.copyBodyToResponse();
+                }
+            }
+        }
+    }
+
+    private static void replay(HttpServletResponse response, IdempotencyStore.StoredResponse stored) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("Error: " + message);
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    // Reads the body up front for the fingerprint and serves it again to the controller
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream content = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return content.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return content.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return content.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The whole body is already in memory, so it is available at once and then all read
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+    }
+}
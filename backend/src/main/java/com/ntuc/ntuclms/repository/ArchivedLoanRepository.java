@@ -0,0 +1,40 @@
+package com.ntuc.ntuclms.repository;
+
+import com.ntuc.ntuclms.dto.LoanView;
+import com.ntuc.ntuclms.entity.ArchivedLoan;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ArchivedLoanRepository extends JpaRepository<ArchivedLoan, ArchivedLoan.Key> {
+    // Same shape as LoanRepository.VIEW; archived loans are closed and never renewable
+    String VIEW = "select new com.ntuc.ntuclms.dto.LoanView(a.id, m.id, m.name, m.username, " +
+        "a.bookId, b.isbn, b.title, b.author, a.borrowDate, a.dueDate, a.returnDate, a.fine, a.status, " +
+        "false, a.renewalCount) from ArchivedLoan a join Member m on m.id = a.memberId " +
+        "join Book b on b.id = a.bookId ";
+
+    @Query(VIEW + "where a.memberId = :memberId order by a.borrowDate desc, a.id desc")
+    List<LoanView> findViewsByMember(Long memberId);
+
+    @Query(VIEW + "where a.memberId = :memberId and " +
+        "(a.borrowDate < :borrowDate or (a.borrowDate = :borrowDate and a.id < :beforeId)) " +
+        "order by a.borrowDate desc, a.id desc")
+    List<LoanView> findPageByMemberOrderByBorrowDateDesc(Long memberId, LocalDate borrowDate, Long beforeId, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("delete from ArchivedLoan a where a.memberId = :memberId")
+    int deleteByMemberId(Long memberId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from ArchivedLoan a where a.bookId = :bookId")
+    int deleteByBookId(Long bookId);
+}
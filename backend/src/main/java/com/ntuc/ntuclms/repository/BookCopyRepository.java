@@ -0,0 +1,49 @@
+package com.ntuc.ntuclms.repository;
+
+import com.ntuc.ntuclms.dto.CopyView;
+import com.ntuc.ntuclms.entity.BookCopy;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BookCopyRepository extends JpaRepository<BookCopy, Long> {
+
+    @Query("select new com.ntuc.ntuclms.dto.CopyView(c.id, c.book.id, c.barcode, c.status, c.addedAt) " +
+        "from BookCopy c where c.book.id = :bookId order by c.id")
+    List<CopyView> findViewsByBookId(Long bookId);
+
+    // Candidates for a new loan, served by idx_book_copies_book_status
+    @Query("select c.id from BookCopy c where c.book.id = :bookId and c.status = :status order by c.id")
+    List<Long> findIdsByBookIdAndStatus(Long bookId, BookCopy.CopyStatus status, Pageable pageable);
+
+    long countByBookId(Long bookId);
+
+    @Query("select c from BookCopy c join fetch c.book where c.barcode = :barcode")
+    Optional<BookCopy> findByBarcode(String barcode);
+
+    // Check-and-set like the hold transitions: returns 0 when the copy has already moved on
+    @Modifying
+    @Query("update BookCopy c set c.status = :to where c.id = :id and c.status = :from")
+    int transition(Long id, BookCopy.CopyStatus from, BookCopy.CopyStatus to);
+
+    // One AVAILABLE copy for each of the given new books, numbered 1, in a single statement
+    @Modifying
+    @Query(value = "INSERT INTO book_copies (book_id, barcode, status, added_at) " +
+        "SELECT b.id, CONCAT('B', b.id, '-1'), 'AVAILABLE', :addedAt FROM books b WHERE b.id IN :bookIds",
+        nativeQuery = true)
+    int insertFirstCopies(Collection<Long> bookIds, LocalDateTime addedAt);
+
+    @Modifying
+    @Transactional
+    @Query("delete from BookCopy c where c.book.id = :bookId")
+    int deleteByBookId(Long bookId);
+}
@@ -0,0 +1,46 @@
+package com.ntuc.ntuclms.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Plain JDBC for the copy counters on books. A JPQL bulk update on Book would
+ * make Hibernate drop the whole "books" cache region and every cached query
+ * on the table, so these conditional updates bypass it; statements run on the
+ * caller's transaction and callers evict the book from the second-level cache.
+ */
+@Repository
+public class BookCounterRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Check-and-set in one statement: takes one copy off the shelf, returning 0 when the book is missing or
+    // another borrower got the last copy first. available is assigned before the count it is derived from
+    // because MySQL applies SET clauses left to right
+    public int reserve(Long bookId) {
+        return jdbcTemplate.update("UPDATE books SET available = (available_copies > 1), " +
+            "available_copies = available_copies - 1, version = version + 1 WHERE id = ? AND available_copies > 0",
+            bookId);
+    }
+
+    // Puts one copy back on the shelf; 0 when every copy already is
+    public int release(Long bookId) {
+        return jdbcTemplate.update("UPDATE books SET available = true, available_copies = available_copies + 1, " +
+            "version = version + 1 WHERE id = ? AND available_copies < total_copies", bookId);
+    }
+
+    // New copies enter circulation off the shelf; the caller passes each one on to a waiting hold or releases it
+    public int addCopies(Long bookId, int count) {
+        return jdbcTemplate.update("UPDATE books SET total_copies = total_copies + ?, version = version + 1 " +
+            "WHERE id = ?", count, bookId);
+    }
+
+    // Takes a copy that is on the shelf out of circulation; 0 when none is (all out or kept aside for holds)
+    public int withdrawCopy(Long bookId) {
+        return jdbcTemplate.update("UPDATE books SET available = (available_copies > 1), " +
+            "available_copies = available_copies - 1, total_copies = total_copies - 1, version = version + 1 " +
+            "WHERE id = ? AND available_copies > 0", bookId);
+    }
+}
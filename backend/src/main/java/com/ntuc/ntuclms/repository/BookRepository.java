@@ -1,21 +1,93 @@
 // src/main/java/com/ntuc/ntuclms/repository/BookRepository.java
 package com.ntuc.ntuclms.repository;
 
+import com.ntuc.ntuclms.dto.BookSummary;
 import com.ntuc.ntuclms.entity.Book;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
+    // Listings select straight into BookSummary: no managed entities, proxies or loan collections
+    String SUMMARY = "select new com.ntuc.ntuclms.dto.BookSummary(b.id, b.isbn, b.title, b.author, b.available, " +
+        "b.availableCopies, b.totalCopies) from Book b ";
+
     Optional<Book> findByIsbn(String isbn);
     boolean existsByIsbn(String isbn);
+    List<Book> findByIsbnIn(Collection<String> isbns);
     List<Book> findByTitleContainingIgnoreCase(String title);
     List<Book> findByAuthorContainingIgnoreCase(String author);
     List<Book> findByIsbnContainingIgnoreCase(String isbn);
     List<Book> findByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCase(String title, String author);
-    List<Book> findByAvailableTrue();
     long countByAvailableTrue();
+
+    // Keyset pagination: each page seeks past the (sort key, id) of the previous page's last row
+    @Query(SUMMARY + "order by b.id")
+    List<BookSummary> findAllSummaries();
+
+    @Query(SUMMARY + "where b.available = true order by b.id")
+    List<BookSummary> findAvailableSummaries();
+
+    @Query(SUMMARY + "where b.id in :ids")
+    List<BookSummary> findSummariesByIdIn(Collection<Long> ids);
+
+    @Query(SUMMARY + "where b.id > :afterId order by b.id")
+    List<BookSummary> findPageOrderById(Long afterId, Pageable pageable);
+
+    @Query(SUMMARY + "where b.title > :title or (b.title = :title and b.id > :afterId) order by b.title, b.id")
+    List<BookSummary> findPageOrderByTitle(String title, Long afterId, Pageable pageable);
+
+    @Query(SUMMARY + "where b.author > :author or (b.author = :author and b.id > :afterId) order by b.author, b.id")
+    List<BookSummary> findPageOrderByAuthor(String author, Long afterId, Pageable pageable);
+
+    // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the whole result
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        // Full scans would otherwise flush the hot rows out of the second-level cache
+        @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("select b from Book b order by b.id")
+    Stream<Book> streamAllOrderById();
+
+    @Query("select b.id, b.isbn from Book b")
+    List<Object[]> findAllIdAndIsbn();
+
+    @Query("select b.title, b.author from Book b")
+    List<Object[]> findAllTitleAndAuthor();
+
+    @Query("select b.id, b.title, b.author, b.available from Book b")
+    List<Object[]> findAllFacetFields();
+
+    // Changes whenever a book is added, deleted or written (every write bumps its version)
+    @Query("select count(b), coalesce(max(b.id), 0), coalesce(sum(b.version), 0) from Book b")
+    List<Object[]> findContentWatermark();
+
+    @Query("select b.id from Book b where b.available = true")
+    List<Long> findAvailableIds();
+
+    @Query("select b.id from Book b where b.id in :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    @Query("select b.id from Book b where b.id in :ids and b.available = true")
+    List<Long> findAvailableIdsIn(Collection<Long> ids);
+
+    @Query("select b.id, b.totalCopies, b.availableCopies from Book b")
+    List<Object[]> findAllCopyCounts();
+
+    // Serializes hold placement against returns of the same book (SELECT ... FOR UPDATE)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b.available from Book b where b.id = :id")
+    Optional<Boolean> lockAvailability(Long id);
 }
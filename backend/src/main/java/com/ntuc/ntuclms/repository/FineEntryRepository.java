@@ -0,0 +1,13 @@
+package com.ntuc.ntuclms.repository;
+
+import com.ntuc.ntuclms.entity.FineEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FineEntryRepository extends JpaRepository<FineEntry, Long> {
+    List<FineEntry> findByMemberIdOrderByIdDesc(Long memberId, Pageable pageable);
+}
@@ -0,0 +1,74 @@
+package com.ntuc.ntuclms.repository;
+
+import com.ntuc.ntuclms.entity.FineEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC writes for the fines ledger. Entries and the balance changes they
+ * imply go out as batches on the caller's transaction, so charging a whole
+ * sweep chunk costs a handful of round trips.
+ */
+@Repository
+public class FineLedgerRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Balance rows are created with a member's first entry
+    public void ensureBalances(Collection<Long> memberIds, LocalDateTime now) {
+        List<Object> args = new ArrayList<>(List.of(Timestamp.valueOf(now)));
+        args.addAll(memberIds);
+        jdbcTemplate.update("INSERT INTO member_balances (member_id, balance_cents, accrued_cents, paid_cents, " +
+            "waived_cents, updated_at) SELECT m.id, 0, 0, 0, 0, ? FROM members m WHERE m.id IN (" +
+            String.join(", ", Collections.nCopies(memberIds.size(), "?")) + ") " +
+            "AND NOT EXISTS (SELECT 1 FROM member_balances b WHERE b.member_id = m.id)", args.toArray());
+    }
+
+    public void insertEntries(List<FineEntry> entries) {
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO fine_entries (member_id, loan_id, entry_type, amount_cents, created_at, note) VALUES (?, ?, ?, ?, ?, ?)",
+            entries, entries.size(), (ps, entry) -> {
+                ps.setLong(1, entry.getMemberId());
+                if (entry.getLoanId() != null) {
+                    ps.setLong(2, entry.getLoanId());
+                } else {
+                    ps.setNull(2, Types.BIGINT);
+                }
+                ps.setString(3, entry.getType().name());
+                ps.setLong(4, entry.getAmountCents());
+                ps.setTimestamp(5, Timestamp.valueOf(entry.getCreatedAt()));
+                ps.setString(6, entry.getNote());
+            });
+    }
+
+    public void addAccruals(Map<Long, Long> centsByMember, LocalDateTime now) {
+        jdbcTemplate.batchUpdate(
+            "UPDATE member_balances SET balance_cents = balance_cents + ?, accrued_cents = accrued_cents + ?, " +
+            "updated_at = ? WHERE member_id = ?",
+            centsByMember.entrySet(), centsByMember.size(), (ps, entry) -> {
+                ps.setLong(1, entry.getValue());
+                ps.setLong(2, entry.getValue());
+                ps.setTimestamp(3, Timestamp.valueOf(now));
+                ps.setLong(4, entry.getKey());
+            });
+    }
+
+    // Conditional on the balance covering the amount; returns 0 (and changes nothing) when it does not
+    public int settle(Long memberId, FineEntry.Type type, long cents, LocalDateTime now) {
+        String total = type == FineEntry.Type.PAYMENT ? "paid_cents" : "waived_cents";
+        return jdbcTemplate.update("UPDATE member_balances SET balance_cents = balance_cents - ?, " +
+            total + " = " + total + " + ?, updated_at = ? WHERE member_id = ? AND balance_cents >= ?",
+            cents, cents, Timestamp.valueOf(now), memberId, cents);
+    }
+}
@@ -0,0 +1,83 @@
+package com.ntuc.ntuclms.repository;
+
+import com.ntuc.ntuclms.dto.HoldView;
+import com.ntuc.ntuclms.entity.Hold;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HoldRepository extends JpaRepository<Hold, Long> {
+    String WAITING = "com.ntuc.ntuclms.entity.Hold.HoldStatus.WAITING";
+    String READY = "com.ntuc.ntuclms.entity.Hold.HoldStatus.READY";
+
+    @Query("select new com.ntuc.ntuclms.dto.HoldView(h.id, b.id, b.isbn, b.title, h.status, h.placedAt, h.readyAt, h.expiresAt, " +
+        "case when h.status = " + WAITING + " then (select count(w) from Hold w where w.book = h.book " +
+        "and w.status = " + WAITING + " and w.id <= h.id) else 0 end) " +
+        "from Hold h join h.book b where h.activeMemberId = :memberId order by h.id")
+    List<HoldView> findActiveViewsByMember(Long memberId);
+
+    long countByActiveMemberId(Long memberId);
+
+    List<Hold> findByActiveMemberId(Long memberId);
+
+    // Queue order, starting after afterId; pass 0 for the head
+    @Query("select h.id from Hold h where h.book.id = :bookId and h.status = " + WAITING +
+        " and h.id > :afterId order by h.id")
+    List<Long> findWaitingIds(Long bookId, Long afterId, Pageable pageable);
+
+    @Query("select h from Hold h where h.book.id = :bookId and h.activeMemberId = :memberId and h.status = " + READY)
+    Optional<Hold> findReady(Long bookId, Long memberId);
+
+    // (hold id, book id) of the member's READY holds among the books
+    @Query("select h.id, h.book.id from Hold h where h.activeMemberId = :memberId and h.status = " + READY +
+        " and h.book.id in :bookIds")
+    List<Object[]> findReadyIn(Long memberId, Collection<Long> bookIds);
+
+    // Rows for rebuilding HoldQueue: (book id, hold id) in queue order, and (hold id, expiresAt) awaiting pickup
+    @Query("select h.book.id, h.id from Hold h where h.status = " + WAITING + " order by h.id")
+    List<Object[]> findAllWaiting();
+
+    @Query("select h.id, h.expiresAt from Hold h where h.status = " + READY)
+    List<Object[]> findAllReady();
+
+    // The transitions below are check-and-set updates: each returns 0 when a concurrent one got there first
+    @Modifying
+    @Query("update Hold h set h.status = " + READY + ", h.readyAt = :now, h.expiresAt = :expiresAt " +
+        "where h.id = :id and h.status = " + WAITING)
+    int promote(Long id, LocalDateTime now, LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("update Hold h set h.status = com.ntuc.ntuclms.entity.Hold.HoldStatus.FULFILLED, h.activeMemberId = null " +
+        "where h.id = :id and h.status = " + READY + " and h.expiresAt > :now")
+    int fulfill(Long id, LocalDateTime now);
+
+    @Modifying
+    @Query("update Hold h set h.status = com.ntuc.ntuclms.entity.Hold.HoldStatus.EXPIRED, h.activeMemberId = null " +
+        "where h.id = :id and h.status = " + READY + " and h.expiresAt <= :now")
+    int expire(Long id, LocalDateTime now);
+
+    @Modifying
+    @Query("update Hold h set h.status = com.ntuc.ntuclms.entity.Hold.HoldStatus.CANCELLED, h.activeMemberId = null " +
+        "where h.id = :id and h.status = :status")
+    int cancel(Long id, Hold.HoldStatus status);
+
+    // Finished holds are history only; these clear the rows that would block deleting their member or book
+    @Modifying
+    @Transactional
+    @Query("delete from Hold h where h.member.id = :memberId")
+    int deleteByMemberId(Long memberId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from Hold h where h.book.id = :bookId")
+    int deleteByBookId(Long bookId);
+}
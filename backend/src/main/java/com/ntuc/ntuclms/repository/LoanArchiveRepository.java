@@ -0,0 +1,135 @@
+package com.ntuc.ntuclms.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Plain JDBC for moving returned loans from loans into loans_archive and for
+ * keeping the archive's yearly partitions on MySQL. Statements run on the
+ * caller's JPA transaction; callers are responsible for the second-level
+ * cache and catalog version. Other databases get an unpartitioned table.
+ */
+@Repository
+public class LoanArchiveRepository {
+
+    // Rows past the last yearly partition land here until it is split off
+    private static final String CATCH_ALL = "pmax";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean mySql;
+
+    @Data
+    @AllArgsConstructor
+    public static class ReturnedLoan {
+        private long id;
+        private long memberId;
+    }
+
+    // Oldest returned loans first, which idx_loans_open_due (return_date, due_date) serves; locked until the caller commits
+    public List<ReturnedLoan> lockReturnedBefore(LocalDate cutoff, int limit) {
+        return jdbcTemplate.query("SELECT id, member_id FROM loans WHERE return_date IS NOT NULL AND return_date < ? " +
+                "ORDER BY return_date, id LIMIT ? FOR UPDATE",
+            (rs, i) -> new ReturnedLoan(rs.getLong(1), rs.getLong(2)), Date.valueOf(cutoff), limit);
+    }
+
+    public int copyToArchive(Collection<Long> loanIds, LocalDateTime archivedAt) {
+        List<Object> args = new ArrayList<>(List.of(Timestamp.valueOf(archivedAt)));
+        args.addAll(loanIds);
+        return jdbcTemplate.update("INSERT INTO loans_archive (id, return_year, member_id, book_id, copy_id, " +
+            "borrow_date, due_date, return_date, fine, status, renewal_count, archived_at) " +
+            "SELECT id, EXTRACT(YEAR FROM return_date), member_id, book_id, copy_id, borrow_date, due_date, " +
+            "return_date, fine, status, renewal_count, ? FROM loans WHERE id IN (" + placeholders(loanIds.size()) + ")",
+            args.toArray());
+    }
+
+    public int deleteLoans(Collection<Long> loanIds) {
+        return jdbcTemplate.update("DELETE FROM loans WHERE id IN (" + placeholders(loanIds.size()) + ")",
+            loanIds.toArray());
+    }
+
+    public long countArchived() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loans_archive", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Makes sure loans_archive is range-partitioned with one partition per
+     * return year up to throughYear, plus a catch-all. The first run
+     * partitions the table from the oldest return year on record; later runs
+     * split new years off the (empty) catch-all, which touches no rows.
+     * Returns the names of the partitions added; a no-op off MySQL.
+     */
+    public List<String> ensureYearPartitions(int throughYear) {
+        if (!isMySql()) {
+            return List.of();
+        }
+        List<String> existing = jdbcTemplate.queryForList("SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'loans_archive' AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION", String.class);
+
+        if (existing.isEmpty()) {
+            Integer oldest = jdbcTemplate.queryForObject("SELECT LEAST(" +
+                "COALESCE((SELECT MIN(return_year) FROM loans_archive), ?), " +
+                "COALESCE((SELECT EXTRACT(YEAR FROM MIN(return_date)) FROM loans), ?))", Integer.class,
+                throughYear, throughYear);
+            int fromYear = oldest == null ? throughYear : oldest;
+            jdbcTemplate.execute("ALTER TABLE loans_archive PARTITION BY RANGE (return_year) (" +
+                yearPartitions(fromYear, throughYear) + ")");
+            return yearNames(fromYear, throughYear);
+        }
+
+        int newest = existing.stream()
+            .filter(name -> !CATCH_ALL.equals(name))
+            .mapToInt(name -> Integer.parseInt(name.substring(1)))
+            .max().orElse(throughYear - 1);
+        if (newest >= throughYear) {
+            return List.of();
+        }
+        jdbcTemplate.execute("ALTER TABLE loans_archive REORGANIZE PARTITION " + CATCH_ALL + " INTO (" +
+            yearPartitions(newest + 1, throughYear) + ")");
+        return yearNames(newest + 1, throughYear);
+    }
+
+    private boolean isMySql() {
+        if (mySql == null) {
+            mySql = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql"));
+        }
+        return mySql;
+    }
+
+    private static String yearPartitions(int fromYear, int throughYear) {
+        StringBuilder sql = new StringBuilder();
+        for (int year = fromYear; year <= throughYear; year++) {
+            sql.append("PARTITION p").append(year).append(" VALUES LESS THAN (").append(year + 1).append("), ");
+        }
+        return sql.append("PARTITION ").append(CATCH_ALL).append(" VALUES LESS THAN MAXVALUE").toString();
+    }
+
+    private static List<String> yearNames(int fromYear, int throughYear) {
+        List<String> names = new ArrayList<>();
+        for (int year = fromYear; year <= throughYear; year++) {
+            names.add("p" + year);
+        }
+        return names;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
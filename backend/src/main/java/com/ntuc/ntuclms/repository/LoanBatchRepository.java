@@ -0,0 +1,142 @@
+package com.ntuc.ntuclms.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Plain JDBC for multi-item and set-based loan operations. Statements run on the
+ * caller's JPA transaction; callers are responsible for the second-level
+ * cache, availability index and catalog version, which Hibernate does not see.
+ */
+@Repository
+public class LoanBatchRepository {
+
+    private static final String OVERDUE_LOANS = "SELECT id, member_id, due_date, fine, status FROM loans ";
+    private static final RowMapper<OverdueLoan> OVERDUE_LOAN = (rs, i) -> new OverdueLoan(rs.getLong(1),
+        rs.getLong(2), rs.getDate(3).toLocalDate(), rs.getDouble(4), rs.getString(5));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Same check-and-set as BookCounterRepository.reserve; element i is 1 if bookIds[i] was reserved, else 0
+    public int[] reserveBooks(List<Long> bookIds) {
+        return jdbcTemplate.batchUpdate(
+            "UPDATE books SET available = (available_copies > 1), available_copies = available_copies - 1, " +
+            "version = version + 1 WHERE id = ? AND available_copies > 0",
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setLong(1, bookIds.get(i));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return bookIds.size();
+                }
+            });
+    }
+
+    // Loans of titles whose copies are not tracked (no book_copies rows)
+    public void insertOpenLoans(Long memberId, List<Long> bookIds, LocalDate borrowDate, LocalDate dueDate) {
+        insertOpenLoans(memberId, bookIds, Collections.nCopies(bookIds.size(), null), borrowDate, dueDate);
+    }
+
+    // copyIds[i] is the copy lent for bookIds[i], or null when the title has no copy rows
+    public void insertOpenLoans(Long memberId, List<Long> bookIds, List<Long> copyIds, LocalDate borrowDate,
+                                LocalDate dueDate) {
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO loans (member_id, book_id, active_book_id, copy_id, active_copy_id, borrow_date, due_date, " +
+            "fine, status, renewable, renewal_count) VALUES (?, ?, ?, ?, ?, ?, ?, 0, 'ACTIVE', true, 0)",
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Long copyId = copyIds.get(i);
+                    ps.setLong(1, memberId);
+                    ps.setLong(2, bookIds.get(i));
+                    ps.setLong(3, bookIds.get(i));
+                    ps.setObject(4, copyId, Types.BIGINT);
+                    ps.setObject(5, copyId, Types.BIGINT);
+                    ps.setDate(6, Date.valueOf(borrowDate));
+                    ps.setDate(7, Date.valueOf(dueDate));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return bookIds.size();
+                }
+            });
+    }
+
+    // Position in the (due_date, id) order of open loans, which idx_loans_open_due serves without a sort
+    @Data
+    @AllArgsConstructor
+    public static class DueKey {
+        private LocalDate dueDate;
+        private long id;
+    }
+
+    // An open loan past its due date, as read (and row-locked) before charging its fine
+    @Data
+    @AllArgsConstructor
+    public static class OverdueLoan {
+        private long id;
+        private long memberId;
+        private LocalDate dueDate;
+        private double fine;
+        private String status;
+    }
+
+    // Next chunk of open loans due before the given day in (due_date, id) order, locked until the caller commits
+    public List<OverdueLoan> lockOverdueChunk(LocalDate before, DueKey after, int chunkSize) {
+        List<Object> args = new ArrayList<>(List.of(Date.valueOf(before)));
+        String sql = OVERDUE_LOANS + "WHERE return_date IS NULL AND due_date < ?" + afterKey(after, args) +
+            " ORDER BY due_date, id LIMIT ? FOR UPDATE";
+        args.add(chunkSize);
+        return jdbcTemplate.query(sql, OVERDUE_LOAN, args.toArray());
+    }
+
+    // The given loans that are still open and due before the given day, locked until the caller commits
+    public List<OverdueLoan> lockOverdue(Collection<Long> loanIds, LocalDate before) {
+        List<Object> args = new ArrayList<Object>(loanIds);
+        args.add(Date.valueOf(before));
+        return jdbcTemplate.query(OVERDUE_LOANS + "WHERE id IN (" + placeholders(loanIds.size()) + ") " +
+            "AND return_date IS NULL AND due_date < ? FOR UPDATE", OVERDUE_LOAN, args.toArray());
+    }
+
+    // Sets status and the fine as of today; rows returned or renewed since they were read are left alone
+    public int markOverdue(Collection<Long> loanIds, LocalDate today, double finePerDay) {
+        List<Object> args = new ArrayList<>(List.of(Date.valueOf(today), finePerDay));
+        args.addAll(loanIds);
+        args.add(Date.valueOf(today));
+        return jdbcTemplate.update("UPDATE loans SET status = 'OVERDUE', fine = TIMESTAMPDIFF(DAY, due_date, ?) * ? " +
+            "WHERE id IN (" + placeholders(loanIds.size()) + ") " +
+            "AND return_date IS NULL AND due_date < ?", args.toArray());
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static String afterKey(DueKey after, List<Object> args) {
+        if (after == null) {
+            return "";
+        }
+        args.addAll(List.of(Date.valueOf(after.getDueDate()), Date.valueOf(after.getDueDate()), after.getId()));
+        return " AND (due_date > ? OR (due_date = ? AND id > ?))";
+    }
+}
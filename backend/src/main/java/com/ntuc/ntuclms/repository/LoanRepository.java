@@ -1,24 +1,90 @@
 // src/main/java/com/ntuc/ntuclms/repository/LoanRepository.java
 package com.ntuc.ntuclms.repository;
 
-import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.dto.LoanView;
 import com.ntuc.ntuclms.entity.Loan;
 import com.ntuc.ntuclms.entity.Member;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface LoanRepository extends JpaRepository<Loan, Long> {
+    // Listings join member and book into LoanView in one statement instead of lazy-loading them per row
+    String VIEW = "select new com.ntuc.ntuclms.dto.LoanView(l.id, m.id, m.name, m.username, " +
+        "b.id, b.isbn, b.title, b.author, l.borrowDate, l.dueDate, l.returnDate, l.fine, l.status, " +
+        "l.renewable, l.renewalCount) from Loan l join l.member m join l.book b ";
+
     List<Loan> findByMember(Member member);
-    List<Loan> findByMemberOrderByBorrowDateDesc(Member member);
-    List<Loan> findByMemberAndReturnDateIsNull(Member member);
-    List<Loan> findAllByOrderByBorrowDateDesc();
-    List<Loan> findByReturnDateIsNullAndDueDateBefore(LocalDate date);
     boolean existsByMemberAndReturnDateIsNullAndDueDateBefore(Member member, LocalDate date);
-    boolean existsByBookAndReturnDateIsNull(Book book);
+    boolean existsByActiveBookIdAndMemberId(Long activeBookId, Long memberId);
+
+    Optional<Loan> findByActiveCopyId(Long activeCopyId);
+
+    List<Loan> findByActiveBookId(Long activeBookId);
     long countByMemberAndReturnDateIsNull(Member member);
-    List<Loan> findByMemberNameContainingIgnoreCaseOrderByBorrowDateDesc(String name);
+
+    @Query("select l.id, l.dueDate from Loan l where l.returnDate is null " +
+        "and l.status = com.ntuc.ntuclms.entity.Loan.LoanStatus.ACTIVE")
+    List<Object[]> findActiveDueDates();
+
+    @Query(VIEW + "order by l.borrowDate desc, l.id desc")
+    List<LoanView> findAllViews();
+
+    @Query(VIEW + "where l.returnDate is null and l.dueDate < :date order by l.dueDate, l.id")
+    List<LoanView> findOverdueViews(LocalDate date);
+
+    @Query(VIEW + "where lower(m.name) like lower(concat('%', :name, '%')) order by l.borrowDate desc, l.id desc")
+    List<LoanView> findViewsByMemberName(String name);
+
+    @Query(VIEW + "where m.id = :memberId and l.returnDate is null order by l.dueDate, l.id")
+    List<LoanView> findActiveViewsByMember(Long memberId);
+
+    @Query(VIEW + "where m.id = :memberId order by l.borrowDate desc, l.id desc")
+    List<LoanView> findViewsByMember(Long memberId);
+
+    @Query(VIEW + "where l.activeBookId in :bookIds")
+    List<LoanView> findViewsByActiveBookIdIn(Collection<Long> bookIds);
+
+    @Query(VIEW + "where m.id = :memberId and l.activeBookId in :bookIds")
+    List<LoanView> findViewsByMemberAndActiveBookIdIn(Long memberId, Collection<Long> bookIds);
+
+    @Query("select l.activeBookId from Loan l where l.member.id = :memberId and l.activeBookId is not null")
+    List<Long> findActiveBookIdsByMemberId(Long memberId);
+
+    @Query("select l from Loan l join fetch l.member join fetch l.book where l.id in :ids")
+    List<Loan> findAllWithMemberAndBookByIdIn(Collection<Long> ids);
+
+    // Member and book are fetched in the same row so streaming never triggers per-row lazy loads
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        // Full scans would otherwise flush the hot rows out of the second-level cache
+        @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("select l from Loan l join fetch l.member join fetch l.book order by l.borrowDate desc, l.id desc")
+    Stream<Loan> streamAllOrderByBorrowDateDesc();
+
+    // Newest first, matching findAllViews
+    @Query(VIEW + "where l.borrowDate < :borrowDate or (l.borrowDate = :borrowDate and l.id < :beforeId) " +
+           "order by l.borrowDate desc, l.id desc")
+    List<LoanView> findPageOrderByBorrowDateDesc(LocalDate borrowDate, Long beforeId, Pageable pageable);
+
+    @Query(VIEW + "where l.dueDate > :dueDate or (l.dueDate = :dueDate and l.id > :afterId) " +
+           "order by l.dueDate, l.id")
+    List<LoanView> findPageOrderByDueDate(LocalDate dueDate, Long afterId, Pageable pageable);
+
+    @Query(VIEW + "where m.id = :memberId and " +
+           "(l.borrowDate < :borrowDate or (l.borrowDate = :borrowDate and l.id < :beforeId)) " +
+           "order by l.borrowDate desc, l.id desc")
+    List<LoanView> findPageByMemberOrderByBorrowDateDesc(Long memberId, LocalDate borrowDate, Long beforeId, Pageable pageable);
 }
@@ -0,0 +1,46 @@
+package com.ntuc.ntuclms.repository;
+
+import com.ntuc.ntuclms.util.LoanColumns;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+
+/**
+ * Reads both loan tiers into a LoanColumns builder for LoanAnalytics. Rows
+ * are read in id-ordered pages, so no statement holds a cursor (or the
+ * loans table) for the length of a full snapshot; the caller's transaction
+ * keeps the pages of both tables on one snapshot.
+ */
+@Repository
+public class LoanSnapshotRepository {
+
+    private static final String COLUMNS = "t.id, t.book_id, t.member_id, b.author, t.borrow_date, t.due_date, " +
+        "t.return_date, t.fine, t.renewal_count FROM %s t JOIN books b ON b.id = t.book_id " +
+        "WHERE t.id > ? ORDER BY t.id LIMIT ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Appends the next page of the table to the builder; returns the last id read, or -1 past the end
+    public long readPage(String table, long afterId, int pageSize, LoanColumns.Builder builder) {
+        if (!"loans".equals(table) && !"loans_archive".equals(table)) {
+            throw new IllegalArgumentException("Not a loans table: " + table);
+        }
+        long[] lastId = {-1};
+        jdbcTemplate.query("SELECT " + String.format(COLUMNS, table), rs -> {
+            Date returned = rs.getDate(7);
+            builder.add(Math.toIntExact(rs.getLong(2)), Math.toIntExact(rs.getLong(3)), rs.getString(4),
+                epochDay(rs.getDate(5)), epochDay(rs.getDate(6)),
+                returned == null ? LoanColumns.OPEN : epochDay(returned),
+                (int) Math.round(rs.getDouble(8) * 100), rs.getInt(9));
+            lastId[0] = rs.getLong(1);
+        }, afterId, pageSize);
+        return lastId[0];
+    }
+
+    private static int epochDay(Date date) {
+        return (int) date.toLocalDate().toEpochDay();
+    }
+}
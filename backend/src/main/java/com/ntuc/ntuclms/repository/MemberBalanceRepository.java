@@ -0,0 +1,9 @@
+package com.ntuc.ntuclms.repository;
+
+import com.ntuc.ntuclms.entity.MemberBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MemberBalanceRepository extends JpaRepository<MemberBalance, Long> {
+}
@@ -0,0 +1,52 @@
+package com.ntuc.ntuclms.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Plain JDBC for the circulation counters on members. Statements run on the
+ * caller's transaction and bypass Hibernate; callers evict the member from
+ * the second-level cache. Loan changes must be flushed before the earliest
+ * due date is recomputed from the loans table.
+ */
+@Repository
+public class MemberCounterRepository {
+
+    private static final String EARLIEST_DUE =
+        "(SELECT MIN(l.due_date) FROM loans l WHERE l.member_id = members.id AND l.return_date IS NULL)";
+    private static final String OPEN_LOANS =
+        "(SELECT COUNT(*) FROM loans l WHERE l.member_id = members.id AND l.return_date IS NULL)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Check-and-increment: 0 when the member would end up over maxActive open loans
+    public int addOpenLoans(Long memberId, int count, LocalDate dueDate, int maxActive) {
+        Date due = Date.valueOf(dueDate);
+        return jdbcTemplate.update("UPDATE members SET active_loan_count = active_loan_count + ?, " +
+            "earliest_active_due_date = CASE WHEN earliest_active_due_date IS NULL OR earliest_active_due_date > ? " +
+            "THEN ? ELSE earliest_active_due_date END WHERE id = ? AND active_loan_count + ? <= ?",
+            count, due, due, memberId, count, maxActive);
+    }
+
+    public void removeOpenLoan(Long memberId) {
+        jdbcTemplate.update("UPDATE members SET active_loan_count = GREATEST(active_loan_count - 1, 0), " +
+            "earliest_active_due_date = " + EARLIEST_DUE + " WHERE id = ?", memberId);
+    }
+
+    public void refreshEarliestDueDate(Long memberId) {
+        jdbcTemplate.update("UPDATE members SET earliest_active_due_date = " + EARLIEST_DUE + " WHERE id = ?", memberId);
+    }
+
+    // Recomputes every member's counters from loans; returns the number of members that had drifted
+    public int recomputeAll() {
+        return jdbcTemplate.update("UPDATE members SET active_loan_count = " + OPEN_LOANS + ", " +
+            "earliest_active_due_date = " + EARLIEST_DUE + " WHERE active_loan_count <> " + OPEN_LOANS +
+            " OR COALESCE(earliest_active_due_date, DATE '1000-01-01') <> COALESCE(" + EARLIEST_DUE +
+            ", DATE '1000-01-01')");
+    }
+}
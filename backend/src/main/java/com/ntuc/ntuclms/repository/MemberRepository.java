@@ -1,17 +1,56 @@
 // src/main/java/com/ntuc/ntuclms/repository/MemberRepository.java
 package com.ntuc.ntuclms.repository;
 
+import com.ntuc.ntuclms.dto.MemberSummary;
 import com.ntuc.ntuclms.entity.Member;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface MemberRepository extends JpaRepository<Member, Long> {
+    // Active loans come from the member's circulation counter instead of initializing Member.loans
+    String SUMMARY = "select new com.ntuc.ntuclms.dto.MemberSummary(m.id, m.name, m.username, m.email, " +
+        "m.registrationDate, m.role, m.membershipStatus, m.activeLoanCount) from Member m ";
+
+    // Runs on every authenticated request (JWT filter); served from the query cache between member writes
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Member> findByUsername(String username);
+
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
-    List<Member> findByNameContainingIgnoreCase(String name);
+
+    @Query(SUMMARY + "order by m.id")
+    List<MemberSummary> findAllSummaries();
+
+    @Query(SUMMARY + "where m.id = :id")
+    Optional<MemberSummary> findSummaryById(Long id);
+
+    @Query(SUMMARY + "where lower(m.name) like lower(concat('%', :name, '%')) order by m.name, m.id")
+    List<MemberSummary> findSummariesByNameContaining(String name);
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        // Full scans would otherwise flush the hot rows out of the second-level cache
+        @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("select m from Member m order by m.id")
+    Stream<Member> streamAllOrderById();
+
+    @Query(SUMMARY + "where m.id > :afterId order by m.id")
+    List<MemberSummary> findPageOrderById(Long afterId, Pageable pageable);
+
+    @Query(SUMMARY + "where m.name > :name or (m.name = :name and m.id > :afterId) order by m.name, m.id")
+    List<MemberSummary> findPageOrderByName(String name, Long afterId, Pageable pageable);
+
+    @Query(SUMMARY + "where m.username > :username or (m.username = :username and m.id > :afterId) order by m.username, m.id")
+    List<MemberSummary> findPageOrderByUsername(String username, Long afterId, Pageable pageable);
 }
@@ -0,0 +1,9 @@
+package com.ntuc.ntuclms.repository;
+
+import com.ntuc.ntuclms.entity.SweepWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SweepWatermarkRepository extends JpaRepository<SweepWatermark, String> {
+}
@@ -0,0 +1,147 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.repository.BookRepository;
+import com.ntuc.ntuclms.util.CompressedBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed bitmap of the ids of available books. LoanService and
+ * BookService flip bits as availability changes, so counts are O(1) and
+ * availability filters are bitmap intersections. A periodic reconciliation
+ * reloads the bitmap from the database and logs any drift it corrects.
+ */
+@Component
+public class AvailabilityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private CompressedBitmap available = new CompressedBitmap();
+    // Ids flipped while a reconciliation is reading the table; their live bits win over the snapshot
+    private CompressedBitmap touchedDuringReload;
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        reconcile();
+    }
+
+    @Scheduled(initialDelayString = "${availability.reconcile-interval-ms:300000}",
+               fixedDelayString = "${availability.reconcile-interval-ms:300000}")
+    public void scheduledReconcile() {
+        if (ready) {
+            reconcile();
+        }
+    }
+
+    // Returns the number of ids whose availability was corrected
+    public synchronized long reconcile() {
+        lock.writeLock().lock();
+        try {
+            touchedDuringReload = new CompressedBitmap();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        CompressedBitmap reloaded = new CompressedBitmap();
+        try {
+            for (Long id : bookRepository.findAvailableIds()) {
+                reloaded.add(Math.toIntExact(id));
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                touchedDuringReload = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        long drift;
+        lock.writeLock().lock();
+        try {
+            CompressedBitmap live = available;
+            touchedDuringReload.forEach(id -> reloaded.set(id, live.contains(id)));
+            touchedDuringReload = null;
+            drift = ready ? CompressedBitmap.xorCardinality(live, reloaded) : 0;
+            available = reloaded;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (drift > 0) {
+            log.warn("Availability index drifted from the database by {} books; corrected", drift);
+        }
+        return drift;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return available.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isAvailable(Long id) {
+        lock.readLock().lock();
+        try {
+            return available.contains(Math.toIntExact(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void onAvailabilityChanged(Long id, boolean isAvailable) {
+        int bit = Math.toIntExact(id);
+        lock.writeLock().lock();
+        try {
+            available.set(bit, isAvailable);
+            if (touchedDuringReload != null) {
+                touchedDuringReload.add(bit);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onBookRemoved(Long id) {
+        onAvailabilityChanged(id, false);
+    }
+
+    // Members of base that are (or, with isAvailable false, are not) available
+    public CompressedBitmap filter(CompressedBitmap base, boolean isAvailable) {
+        lock.readLock().lock();
+        try {
+            return isAvailable ? CompressedBitmap.and(base, available) : CompressedBitmap.andNot(base, available);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long countAvailable(CompressedBitmap base) {
+        lock.readLock().lock();
+        try {
+            return CompressedBitmap.andCardinality(base, available);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
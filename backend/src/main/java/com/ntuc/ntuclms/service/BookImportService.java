@@ -0,0 +1,214 @@
+package com.ntuc.ntuclms.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ntuc.ntuclms.dto.ImportReport;
+import com.ntuc.ntuclms.entity.Book;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Streams a CSV or JSON-lines upload into BookService.upsertBatch, one chunk at a time
+@Service
+public class BookImportService {
+
+    public enum Format {
+        CSV, JSONL
+    }
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${import.chunk-size:1000}")
+    private int chunkSize;
+
+    public static Format detectFormat(String format, String filename) {
+        String hint = format != null ? format : filename;
+        if (hint != null) {
+            String lower = hint.toLowerCase(Locale.ROOT);
+            if (lower.endsWith("jsonl") || lower.endsWith("ndjson") || lower.endsWith("json")) {
+                return Format.JSONL;
+            }
+        }
+        return Format.CSV;
+    }
+
+    public ImportReport importBooks(InputStream input, Format format) throws IOException {
+        long started = System.currentTimeMillis();
+        ImportReport report = new ImportReport();
+        // Later rows win when an ISBN repeats within a chunk
+        Map<String, Book> chunk = new LinkedHashMap<>();
+        Map<String, Integer> columns = null;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && lineNumber == 1 && line.toLowerCase(Locale.ROOT).contains("isbn")) {
+                    columns = csvHeader(line);
+                    continue;
+                }
+                report.setProcessed(report.getProcessed() + 1);
+                Book book;
+                try {
+                    book = format == Format.CSV ? parseCsv(line, columns) : parseJson(line);
+                } catch (RuntimeException e) {
+                    reportError(report, lineNumber, null, e.getMessage());
+                    continue;
+                }
+                Set<ConstraintViolation<Book>> violations = validator.validate(book);
+                if (!violations.isEmpty()) {
+                    reportError(report, lineNumber, book.getIsbn(), violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                    continue;
+                }
+                chunk.put(book.getIsbn(), book);
+                if (chunk.size() >= chunkSize) {
+                    flush(chunk, report, lineNumber);
+                }
+            }
+            flush(chunk, report, lineNumber);
+        }
+        report.setElapsedMillis(System.currentTimeMillis() - started);
+        return report;
+    }
+
+    private void flush(Map<String, Book> chunk, ImportReport report, long lineNumber) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            ImportReport.Chunk result = bookService.upsertBatch(new ArrayList<>(chunk.values()));
+            report.setInserted(report.getInserted() + result.getInserted());
+            report.setUpdated(report.getUpdated() + result.getUpdated());
+            report.setUnchanged(report.getUnchanged() + result.getUnchanged());
+        } catch (RuntimeException e) {
+            // The whole chunk rolled back; report it against the line that closed it
+            for (Book book : chunk.values()) {
+                reportError(report, lineNumber, book.getIsbn(), "Chunk failed: " + e.getMessage());
+            }
+        }
+        chunk.clear();
+    }
+
+    private void reportError(ImportReport report, long line, String isbn, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new ImportReport.RowError(line, isbn, message));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+
+    private Book parseJson(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new RuntimeException("Malformed JSON");
+        }
+        return newBook(text(node, "isbn"), text(node, "title"), text(node, "author"));
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static Map<String, Integer> csvHeader(String line) {
+        Map<String, Integer> columns = new LinkedHashMap<>();
+        List<String> names = splitCsv(line);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("isbn", "title", "author")) {
+            if (!columns.containsKey(required)) {
+                throw new RuntimeException("CSV header is missing column: " + required);
+            }
+        }
+        return columns;
+    }
+
+    // Without a header the columns are isbn,title,author
+    private static Book parseCsv(String line, Map<String, Integer> columns) {
+        List<String> fields = splitCsv(line);
+        int isbn = columns == null ? 0 : columns.get("isbn");
+        int title = columns == null ? 1 : columns.get("title");
+        int author = columns == null ? 2 : columns.get("author");
+        int needed = Math.max(isbn, Math.max(title, author)) + 1;
+        if (fields.size() < needed) {
+            throw new RuntimeException("Expected at least " + needed + " columns but found " + fields.size());
+        }
+        return newBook(fields.get(isbn), fields.get(title), fields.get(author));
+    }
+
+    private static Book newBook(String isbn, String title, String author) {
+        Book book = new Book();
+        book.setIsbn(isbn == null ? null : isbn.trim());
+        book.setTitle(title == null ? null : title.trim());
+        book.setAuthor(author == null ? null : author.trim());
+        book.setAvailable(true);
+        return book;
+    }
+
+    // RFC 4180 fields on a single line: commas inside quotes, "" as an escaped quote
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new RuntimeException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
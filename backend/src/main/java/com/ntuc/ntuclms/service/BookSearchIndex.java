@@ -0,0 +1,309 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.repository.BookRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.QueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Embedded Lucene index over book titles and authors, stored on disk via
+ * MMapDirectory. Writes from BookService are visible to searches right away
+ * (near-real-time reopen); commits to disk happen in the background.
+ * Ranking is Lucene's default BM25 similarity. The last commit records the
+ * books table's content watermark, so a restart reuses the index only if
+ * no book was written since.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    private static final String ID = "id";
+    private static final String TITLE = "title";
+    private static final String AUTHOR = "author";
+    // Commit user data key for the books watermark the index was last known to match
+    private static final String WATERMARK = "books-watermark";
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Value("${search.lucene.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search.index-dir:./data/book-index}")
+    private String indexDir;
+
+    @Value("${search.max-results:500}")
+    private int maxResults;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private MMapDirectory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private volatile boolean ready = false;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path path = Path.of(indexDir);
+        Files.createDirectories(path);
+        directory = new MMapDirectory(path);
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+            .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        writer = new IndexWriter(directory, config);
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    // The index survives restarts; it is only rebuilt when it is missing or out of step with the table
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuildIfStale() {
+        if (!enabled) {
+            return;
+        }
+        if (!watermark().equals(storedWatermark())) {
+            rebuild();
+        } else {
+            ready = true;
+        }
+    }
+
+    public synchronized int rebuild() {
+        if (!enabled) {
+            throw new RuntimeException("Full-text search is disabled");
+        }
+        try {
+            // Read before the rows: a write that lands meanwhile leaves the recorded watermark behind, not ahead
+            String watermark = watermark();
+            writer.deleteAll();
+            int count = 0;
+            for (Object[] row : bookRepository.findAllFacetFields()) {
+                writer.addDocument(toDocument((Long) row[0], (String) row[1], (String) row[2]));
+                count++;
+            }
+            writer.setLiveCommitData(Map.of(WATERMARK, watermark).entrySet());
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+            ready = true;
+            log.info("Rebuilt book search index with {} documents", count);
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void onBookSaved(Book book) {
+        onBooksSaved(List.of(book));
+    }
+
+    // One near-real-time refresh for the whole batch, so bulk imports do not reopen the searcher per row.
+    // Incremental writes wait for a running rebuild instead of racing its deleteAll and re-adds
+    public synchronized void onBooksSaved(Collection<Book> books) {
+        if (!ready || books.isEmpty()) {
+            return;
+        }
+        try {
+            for (Book book : books) {
+                writer.updateDocument(new Term(ID, book.getId().toString()),
+                    toDocument(book.getId(), book.getTitle(), book.getAuthor()));
+            }
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            log.error("Failed to index {} books", books.size(), e);
+        }
+    }
+
+    public synchronized void onBookDeleted(Long bookId) {
+        if (!ready) {
+            return;
+        }
+        try {
+            writer.deleteDocuments(new Term(ID, bookId.toString()));
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            log.error("Failed to remove book {} from index", bookId, e);
+        }
+    }
+
+    /**
+     * Returns matching book ids, best match first. Quoted input ("clean code")
+     * is a phrase query; otherwise every term must match, allowing typos
+     * proportional to term length.
+     */
+    public List<Long> search(String title, String author) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        boolean hasClause = false;
+        for (String[] field : new String[][]{{TITLE, title}, {AUTHOR, author}}) {
+            Query fieldQuery = fieldQuery(field[0], field[1]);
+            if (fieldQuery != null) {
+                query.add(fieldQuery, BooleanClause.Occur.MUST);
+                hasClause = true;
+            }
+        }
+        if (!hasClause) {
+            return List.of();
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                List<Long> ids = new ArrayList<>();
+                for (ScoreDoc hit : searcher.search(query.build(), maxResults).scoreDocs) {
+                    ids.add(searcher.storedFields().document(hit.doc).getField(ID).numericValue().longValue());
+                }
+                return ids;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Flushes NRT changes to disk; the watermark is only brought forward on close, so a crash still means a rebuild
+    @Scheduled(fixedDelayString = "${search.commit-interval-ms:30000}")
+    public void commit() {
+        if (!ready || !writer.hasUncommittedChanges()) {
+            return;
+        }
+        try {
+            writer.commit();
+        } catch (IOException e) {
+            log.error("Failed to commit book search index", e);
+        }
+    }
+
+    // Closing commits; the watermark is refreshed first so a clean restart can keep the index
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (ready) {
+            try {
+                writer.setLiveCommitData(Map.of(WATERMARK, watermark()).entrySet());
+            } catch (RuntimeException e) {
+                log.warn("Could not record the books watermark; the index will be rebuilt on restart", e);
+                writer.setLiveCommitData(Map.<String, String>of().entrySet());
+            }
+        }
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private Query fieldQuery(String field, String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        String trimmed = text.trim();
+        if (trimmed.length() > 1 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return new QueryBuilder(analyzer).createPhraseQuery(field, trimmed.substring(1, trimmed.length() - 1));
+        }
+        List<String> terms = analyze(field, trimmed);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        BooleanQuery.Builder allTerms = new BooleanQuery.Builder();
+        for (String term : terms) {
+            // Exact matches outrank fuzzy ones
+            BooleanQuery.Builder exactOrFuzzy = new BooleanQuery.Builder()
+                .add(new BoostQuery(new TermQuery(new Term(field, term)), 2f), BooleanClause.Occur.SHOULD);
+            int maxEdits = term.length() <= 2 ? 0 : term.length() <= 5 ? 1 : 2;
+            if (maxEdits > 0) {
+                exactOrFuzzy.add(new FuzzyQuery(new Term(field, term), maxEdits, 1), BooleanClause.Occur.SHOULD);
+            }
+            allTerms.add(exactOrFuzzy.build(), BooleanClause.Occur.MUST);
+        }
+        return allTerms.build();
+    }
+
+    private List<String> analyze(String field, String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(field, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private String watermark() {
+        List<Object[]> rows = bookRepository.findContentWatermark();
+        if (rows.isEmpty()) {
+            return "0-0-0";
+        }
+        Object[] row = rows.get(0);
+        return row[0] + "-" + row[1] + "-" + row[2];
+    }
+
+    private String storedWatermark() {
+        Iterable<Map.Entry<String, String>> data = writer.getLiveCommitData();
+        if (data != null) {
+            for (Map.Entry<String, String> entry : data) {
+                if (WATERMARK.equals(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Document toDocument(Long id, String title, String author) {
+        Document document = new Document();
+        document.add(new StringField(ID, id.toString(), Field.Store.NO));
+        document.add(new StoredField(ID, id));
+        document.add(new TextField(TITLE, title, Field.Store.NO));
+        document.add(new TextField(AUTHOR, author, Field.Store.NO));
+        return document;
+    }
+}
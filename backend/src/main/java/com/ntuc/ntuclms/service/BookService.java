@@ -1,30 +1,125 @@
 // src/main/java/com/ntuc/ntuclms/service/BookService.java
 package com.ntuc.ntuclms.service;
 
+import com.ntuc.ntuclms.dto.BookSummary;
+import com.ntuc.ntuclms.dto.CopyView;
+import com.ntuc.ntuclms.dto.CursorPage;
+import com.ntuc.ntuclms.dto.FacetedSearchResult;
+import com.ntuc.ntuclms.dto.ImportReport;
 import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.exception.ConflictException;
+import com.ntuc.ntuclms.repository.ArchivedLoanRepository;
 import com.ntuc.ntuclms.repository.BookRepository;
+import com.ntuc.ntuclms.util.CompressedBitmap;
+import com.ntuc.ntuclms.util.CursorCodec;
+import com.ntuc.ntuclms.util.TransactionHooks;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
 
 @Service
 public class BookService {
 
+    // Upper bound on the copies one request may add, including those of a new book
+    public static final int MAX_COPIES_PER_REQUEST = 100;
+
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private IsbnIndex isbnIndex;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Autowired
+    private FacetIndex facetIndex;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Autowired
+    private CopyInventory copyInventory;
+
+    @Autowired
+    private HoldService holdService;
+
+    @Transactional
     public Book addBook(Book book) {
         // Check if book with same ISBN already exists
         if (bookRepository.existsByIsbn(book.getIsbn())) {
             throw new RuntimeException("Book with ISBN " + book.getIsbn() + " already exists");
         }
-        return bookRepository.save(book);
+        if (book.getTotalCopies() < 1 || book.getTotalCopies() > MAX_COPIES_PER_REQUEST) {
+            throw new RuntimeException("Copies must be between 1 and " + MAX_COPIES_PER_REQUEST);
+        }
+        // A new book has every copy on the shelf
+        book.setAvailable(true);
+        Book saved = bookRepository.save(book);
+        copyInventory.addInitialCopies(saved);
+        // The INSERT may only run at commit, and a rollback must not leave a phantom book in the indexes
+        TransactionHooks.afterCommit(() -> indexAdded(saved));
+        catalogVersion.bump(CatalogVersion.Scope.BOOKS);
+        return saved;
     }
 
-    public List<Book> getAllBooks() {
-        return bookRepository.findAll();
+    public List<BookSummary> getAllBooks() {
+        return bookRepository.findAllSummaries();
+    }
+
+    // Must be consumed inside a transaction (see EntityStreamer)
+    public Stream<Book> streamAllBooks() {
+        return bookRepository.streamAllOrderById();
+    }
+
+    public CursorPage<BookSummary> getBooksPage(String sort, String after, Integer limit) {
+        String sortKey = sort == null ? "id" : sort;
+        CursorCodec.Cursor cursor = CursorCodec.decode(after, sortKey);
+        int pageSize = CursorCodec.clampLimit(limit);
+        // Fetch one extra row to learn whether another page exists
+        Pageable window = PageRequest.of(0, pageSize + 1);
+        long afterId = cursor == null ? 0L : cursor.getId();
+        String afterValue = cursor == null ? "" : cursor.getValue();
+
+        List<BookSummary> rows = switch (sortKey) {
+            case "id" -> bookRepository.findPageOrderById(afterId, window);
+            case "title" -> bookRepository.findPageOrderByTitle(afterValue, afterId, window);
+            case "author" -> bookRepository.findPageOrderByAuthor(afterValue, afterId, window);
+            default -> throw new RuntimeException("Unsupported sort: " + sortKey);
+        };
+
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null, sortKey);
+        }
+        List<BookSummary> page = rows.subList(0, pageSize);
+        BookSummary last = page.get(pageSize - 1);
+        String value = switch (sortKey) {
+            case "title" -> last.getTitle();
+            case "author" -> last.getAuthor();
+            default -> null;
+        };
+        return new CursorPage<>(page, CursorCodec.encode(sortKey, value, last.getId()), sortKey);
     }
 
     public Optional<Book> findById(Long id) {
@@ -45,47 +140,250 @@ public class BookService {
             throw new RuntimeException("Book with ISBN " + updatedBook.getIsbn() + " already exists");
         }
         
+        String previousIsbn = book.getIsbn();
+        String previousTitle = book.getTitle();
+        String previousAuthor = book.getAuthor();
         book.setIsbn(updatedBook.getIsbn());
         book.setTitle(updatedBook.getTitle());
         book.setAuthor(updatedBook.getAuthor());
-        book.setAvailable(updatedBook.isAvailable());
+        // Availability is left alone: loans, holds and the copy endpoints own it
         
-        return bookRepository.save(book);
+        Book saved;
+        try {
+            saved = bookRepository.save(book);
+        } catch (OptimisticLockingFailureException e) {
+            // A borrow or return touched the row since it was read; retrying with fresh data is safe
+            throw new ConflictException("Book was changed concurrently, reload and retry", e);
+        }
+        indexReplaced(previousIsbn, previousTitle, previousAuthor, saved);
+        catalogVersion.bump(CatalogVersion.Scope.BOOKS);
+        return saved;
     }
 
+    // The row lock keeps a concurrent borrow or hold from slipping in between the check and the delete
+    @Transactional
     public void deleteBook(Long id) {
+        bookRepository.lockAvailability(id)
+            .orElseThrow(() -> new RuntimeException("Book not found"));
         Book book = bookRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Book not found"));
         
-        // Check if book has active loans
-        if (!book.isAvailable()) {
+        // Check if any copy is out on loan or kept aside for a hold
+        if (!book.isAvailable() || book.getAvailableCopies() < book.getTotalCopies()) {
             throw new RuntimeException("Cannot delete book with active loans");
         }
         
+        holdService.removeBookHolds(id);
+        archivedLoanRepository.deleteByBookId(id);
+        copyInventory.onBookDeleted(id);
         bookRepository.deleteById(id);
+        TransactionHooks.afterCommit(() -> {
+            isbnIndex.onBookDeleted(book);
+            suggestionIndex.onBookRemoved(book.getTitle(), book.getAuthor());
+            facetIndex.onBookRemoved(id, book.getTitle(), book.getAuthor());
+            availabilityIndex.onBookRemoved(id);
+            bookSearchIndex.onBookDeleted(id);
+        });
+        catalogVersion.bump(CatalogVersion.Scope.BOOKS);
+    }
+
+    /**
+     * Inserts or updates a chunk of books keyed by ISBN in one transaction.
+     * New rows are persisted together so Hibernate sends them as JDBC batches;
+     * availability of existing books is left alone since loans own it.
+     */
+    @Transactional
+    public ImportReport.Chunk upsertBatch(List<Book> rows) {
+        List<String> isbns = rows.stream().map(Book::getIsbn).toList();
+        Map<String, Book> existing = new HashMap<>();
+        for (Book book : bookRepository.findByIsbnIn(isbns)) {
+            existing.put(book.getIsbn(), book);
+        }
+
+        List<Book> inserted = new ArrayList<>();
+        List<String[]> previous = new ArrayList<>();
+        List<Book> updated = new ArrayList<>();
+        for (Book row : rows) {
+            Book book = existing.get(row.getIsbn());
+            if (book == null) {
+                row.setId(null);
+                inserted.add(row);
+            } else if (!book.getTitle().equals(row.getTitle()) || !book.getAuthor().equals(row.getAuthor())) {
+                previous.add(new String[]{book.getIsbn(), book.getTitle(), book.getAuthor()});
+                book.setTitle(row.getTitle());
+                book.setAuthor(row.getAuthor());
+                updated.add(book);
+            }
+        }
+        bookRepository.saveAll(inserted);
+        bookRepository.flush();
+        copyInventory.addInitialCopies(inserted);
+
+        // Indexes follow once the chunk commits, with one search-index refresh for the whole chunk
+        List<Book> changed = new ArrayList<>(inserted);
+        changed.addAll(updated);
+        TransactionHooks.afterCommit(() -> {
+            inserted.forEach(this::indexAddedInMemory);
+            for (int i = 0; i < updated.size(); i++) {
+                String[] before = previous.get(i);
+                indexReplacedInMemory(before[0], before[1], before[2], updated.get(i));
+            }
+            bookSearchIndex.onBooksSaved(changed);
+        });
+        if (!inserted.isEmpty() || !updated.isEmpty()) {
+            catalogVersion.bump(CatalogVersion.Scope.BOOKS);
+        }
+        return new ImportReport.Chunk(inserted.size(), updated.size(), rows.size() - inserted.size() - updated.size());
     }
 
-    public List<Book> searchBooks(String title, String author, String isbn) {
+    public List<CopyView> getCopies(Long bookId) {
+        return copyInventory.getCopies(bookId);
+    }
+
+    // New copies go to waiting holders first, then on the shelf
+    @Transactional
+    public List<CopyView> addCopies(Long bookId, int count) {
+        if (count < 1 || count > MAX_COPIES_PER_REQUEST) {
+            throw new RuntimeException("Copies must be between 1 and " + MAX_COPIES_PER_REQUEST);
+        }
+        bookRepository.lockAvailability(bookId)
+            .orElseThrow(() -> new RuntimeException("Book not found"));
+        copyInventory.addCopies(bookId, count);
+        for (int i = 0; i < count; i++) {
+            holdService.passOn(bookId);
+        }
+        catalogVersion.bump(CatalogVersion.Scope.BOOKS);
+        return copyInventory.getCopies(bookId);
+    }
+
+    @Transactional
+    public void withdrawCopy(Long copyId) {
+        copyInventory.withdraw(copyId);
+        catalogVersion.bump(CatalogVersion.Scope.BOOKS);
+    }
+
+    private void indexAdded(Book book) {
+        indexAddedInMemory(book);
+        bookSearchIndex.onBookSaved(book);
+    }
+
+    private void indexReplaced(String previousIsbn, String previousTitle, String previousAuthor, Book book) {
+        indexReplacedInMemory(previousIsbn, previousTitle, previousAuthor, book);
+        bookSearchIndex.onBookSaved(book);
+    }
+
+    private void indexAddedInMemory(Book book) {
+        isbnIndex.onBookSaved(null, book);
+        suggestionIndex.onBookAdded(book.getTitle(), book.getAuthor());
+        facetIndex.onBookAdded(book.getId(), book.getTitle(), book.getAuthor());
+        availabilityIndex.onAvailabilityChanged(book.getId(), book.isAvailable());
+    }
+
+    private void indexReplacedInMemory(String previousIsbn, String previousTitle, String previousAuthor, Book book) {
+        isbnIndex.onBookSaved(previousIsbn, book);
+        suggestionIndex.onBookRemoved(previousTitle, previousAuthor);
+        suggestionIndex.onBookAdded(book.getTitle(), book.getAuthor());
+        facetIndex.onBookRemoved(book.getId(), previousTitle, previousAuthor);
+        facetIndex.onBookAdded(book.getId(), book.getTitle(), book.getAuthor());
+        availabilityIndex.onAvailabilityChanged(book.getId(), book.isAvailable());
+    }
+
+    public List<BookSummary> searchBooks(String title, String author, String isbn) {
         if (isbn != null && !isbn.trim().isEmpty()) {
-            return bookRepository.findByIsbnContainingIgnoreCase(isbn.trim());
+            // Complete ISBNs (typed or scanned) are resolved in memory; partial input falls back to LIKE
+            if (isbnIndex.isReady() && isbnIndex.isLookupKey(isbn.trim())) {
+                OptionalLong bookId = isbnIndex.lookup(isbn.trim());
+                if (bookId.isEmpty()) {
+                    return List.of();
+                }
+                return bookRepository.findById(bookId.getAsLong()).map(BookSummary::of).map(List::of).orElse(List.of());
+            }
+            return summarize(bookRepository.findByIsbnContainingIgnoreCase(isbn.trim()));
+        } else if (bookSearchIndex.isReady() && (hasText(title) || hasText(author))) {
+            // Ranked, typo-tolerant search; the LIKE queries below remain the fallback
+            return findRanked(bookSearchIndex.search(title, author));
         } else if (title != null && !title.trim().isEmpty() && 
                    author != null && !author.trim().isEmpty()) {
-            return bookRepository.findByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCase(
-                title.trim(), author.trim());
+            return summarize(bookRepository.findByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCase(
+                title.trim(), author.trim()));
         } else if (title != null && !title.trim().isEmpty()) {
-            return bookRepository.findByTitleContainingIgnoreCase(title.trim());
+            return summarize(bookRepository.findByTitleContainingIgnoreCase(title.trim()));
         } else if (author != null && !author.trim().isEmpty()) {
-            return bookRepository.findByAuthorContainingIgnoreCase(author.trim());
+            return summarize(bookRepository.findByAuthorContainingIgnoreCase(author.trim()));
         } else {
             return getAllBooks();
         }
     }
 
-    public List<Book> getAvailableBooks() {
-        return bookRepository.findByAvailableTrue();
+    public Map<String, List<String>> suggest(String query, Integer limit) {
+        int k = limit == null ? 8 : Math.max(1, Math.min(limit, 20));
+        return Map.of(
+            "titles", suggestionIndex.suggestTitles(query, k),
+            "authors", suggestionIndex.suggestAuthors(query, k)
+        );
+    }
+
+    public int rebuildSearchIndex() {
+        return bookSearchIndex.rebuild();
+    }
+
+    private List<BookSummary> findRanked(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, BookSummary> byId = new HashMap<>();
+        for (BookSummary book : bookRepository.findSummariesByIdIn(ids)) {
+            byId.put(book.getId(), book);
+        }
+        List<BookSummary> ranked = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            BookSummary book = byId.get(id);
+            if (book != null) {
+                ranked.add(book);
+            }
+        }
+        return ranked;
+    }
+
+    private static List<BookSummary> summarize(List<Book> books) {
+        return books.stream().map(BookSummary::of).toList();
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
+    public FacetedSearchResult facetedSearch(String author, Boolean available, String initial,
+                                             String after, Integer limit) {
+        FacetIndex.Selection selection = facetIndex.select(author, available, initial);
+        CursorCodec.Cursor cursor = CursorCodec.decode(after, "id");
+        int pageSize = CursorCodec.clampLimit(limit);
+
+        // Walk the result bitmap from the cursor; only the page itself is loaded from the DB
+        CompressedBitmap matches = selection.matches();
+        List<Long> ids = new ArrayList<>();
+        int from = cursor == null ? 0 : Math.toIntExact(cursor.getId()) + 1;
+        for (int bit = matches.nextSetBit(from); bit >= 0 && ids.size() <= pageSize; bit = matches.nextSetBit(bit + 1)) {
+            ids.add((long) bit);
+        }
+        String nextCursor = null;
+        if (ids.size() > pageSize) {
+            ids = ids.subList(0, pageSize);
+            nextCursor = CursorCodec.encode("id", null, ids.get(pageSize - 1));
+        }
+        List<BookSummary> items = ids.isEmpty() ? new ArrayList<>() : new ArrayList<>(bookRepository.findSummariesByIdIn(ids));
+        items.sort(Comparator.comparing(BookSummary::getId));
+        return new FacetedSearchResult(items, nextCursor, (int) matches.cardinality(), selection.counts());
+    }
+
+    public List<BookSummary> getAvailableBooks() {
+        return bookRepository.findAvailableSummaries();
     }
 
     public long countAvailableBooks() {
+        if (availabilityIndex.isReady()) {
+            return availabilityIndex.count();
+        }
         return bookRepository.countByAvailableTrue();
     }
 
@@ -0,0 +1,81 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.util.TransactionHooks;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Monotonic per-scope version counters that service mutations bump. GET
+ * endpoints derive a strong ETag from the scopes they read, so an unchanged
+ * catalog is answered with 304 before any query runs.
+ *
+ * The counters live in this process only; every write must go through the
+ * services (or call bump directly) for the tags to stay truthful.
+ */
+@Component
+public class CatalogVersion {
+
+    public enum Scope {
+        BOOKS, LOANS, MEMBERS
+    }
+
+    public static final Set<Scope> BOOKS = EnumSet.of(Scope.BOOKS);
+    // Loans embed their book and member, so loan views change with either
+    public static final Set<Scope> LOANS = EnumSet.allOf(Scope.class);
+    public static final Set<Scope> MEMBERS = EnumSet.of(Scope.MEMBERS);
+    // Member summaries carry the member's active-loan count, which circulation changes without touching MEMBERS
+    public static final Set<Scope> MEMBER_LOANS = EnumSet.of(Scope.MEMBERS, Scope.LOANS);
+
+    // Clients must revalidate every time; the 304 is what saves the bandwidth
+    private static final String REVALIDATE = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    // Distinguishes tags issued before a restart from the fresh counters
+    private final String boot = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLongArray counters = new AtomicLongArray(Scope.values().length);
+
+    // Bumped after commit when called inside a transaction, so a tag never advertises uncommitted data
+    public void bump(Scope... scopes) {
+        TransactionHooks.afterCommit(() -> increment(scopes));
+    }
+
+    public long current(Scope scope) {
+        return counters.get(scope.ordinal());
+    }
+
+    /**
+     * Tag for a response that reads the given scopes. Qualifiers cover
+     * whatever else the body depends on, such as the caller or today's date.
+     */
+    public String etag(Set<Scope> scopes, Object... qualifiers) {
+        StringBuilder tag = new StringBuilder("\"").append(boot);
+        for (Scope scope : scopes) {
+            tag.append('-').append(scope.name().charAt(0)).append(current(scope));
+        }
+        if (qualifiers.length > 0) {
+            tag.append('-').append(Integer.toHexString(Arrays.hashCode(qualifiers)));
+        }
+        return tag.append('"').toString();
+    }
+
+    // Sets ETag and Cache-Control; true means a 304 has been prepared and the handler should return null
+    public boolean checkNotModified(WebRequest request, Set<Scope> scopes, Object... qualifiers) {
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE);
+        }
+        return request.checkNotModified(etag(scopes, qualifiers));
+    }
+
+    private void increment(Scope... scopes) {
+        for (Scope scope : scopes) {
+            counters.incrementAndGet(scope.ordinal());
+        }
+    }
+}
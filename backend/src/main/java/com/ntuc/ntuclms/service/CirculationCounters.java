@@ -0,0 +1,70 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.repository.MemberCounterRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Open-loan count and earliest open due date per member, stored on the
+ * members row so MemberService.canBorrow never touches the member's loans.
+ * LoanService moves the counters in the same transaction as the loan rows;
+ * a nightly repair recomputes them from the loans table and logs any drift
+ * it corrects.
+ */
+@Component
+public class CirculationCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(CirculationCounters.class);
+
+    @Autowired
+    private MemberCounterRepository memberCounterRepository;
+
+    @Autowired
+    private SecondLevelCache secondLevelCache;
+
+    // False when the loans would take the member over the limit; the caller must roll back
+    public boolean loansOpened(Long memberId, int count, LocalDate dueDate) {
+        int updated = memberCounterRepository.addOpenLoans(memberId, count, dueDate, MemberService.MAX_ACTIVE_LOANS);
+        secondLevelCache.evictMember(memberId);
+        return updated > 0;
+    }
+
+    // The closed or deleted loan must already be flushed
+    public void loanClosed(Long memberId) {
+        memberCounterRepository.removeOpenLoan(memberId);
+        secondLevelCache.evictMember(memberId);
+    }
+
+    // After renewals or extensions; the new due dates must already be flushed
+    public void dueDatesChanged(Long memberId) {
+        memberCounterRepository.refreshEarliestDueDate(memberId);
+        secondLevelCache.evictMember(memberId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void repairOnStartup() {
+        repair();
+    }
+
+    @Scheduled(cron = "${circulation.repair-cron:0 30 3 * * *}")
+    public void scheduledRepair() {
+        repair();
+    }
+
+    // Returns the number of members whose counters were corrected
+    public int repair() {
+        int repaired = memberCounterRepository.recomputeAll();
+        if (repaired > 0) {
+            secondLevelCache.evictMembers();
+            log.warn("Circulation counters drifted from the loans table for {} members; corrected", repaired);
+        }
+        return repaired;
+    }
+}
@@ -0,0 +1,248 @@
+package com.ntuc.ntuclms.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ntuc.ntuclms.dto.DeskScan;
+import com.ntuc.ntuclms.dto.LoanView;
+import com.ntuc.ntuclms.dto.ScanResult;
+import com.ntuc.ntuclms.entity.Member;
+import com.ntuc.ntuclms.repository.MemberRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Desk scanning sessions: one upload of JSON lines (or bare codes) is read
+ * as it arrives and answered with one ScanResult line per scan, in input
+ * order. Scans are applied in micro-batches of whatever has arrived so
+ * far, up to batchSize, one transaction per batch, so a scanner that keeps
+ * sending while earlier scans commit pays for one commit per batch rather
+ * than per item. A scan that fails splits its batch: the scans before it
+ * are committed again without it, it runs on its own to get its error,
+ * and the rest carry on, so one bad scan never loses the others.
+ */
+@Service
+public class CirculationDesk {
+
+    private static final Logger log = LoggerFactory.getLogger(CirculationDesk.class);
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${desk.batch-size:50}")
+    private int batchSize;
+
+    private static final class Item {
+        private final ScanResult result;
+        private final DeskScan scan;
+
+        private Item(ScanResult result, DeskScan scan) {
+            this.result = result;
+            this.scan = scan;
+        }
+    }
+
+    // Rolls a batch back at the first scan that failed
+    private static final class ScanFailed extends RuntimeException {
+        private final int index;
+
+        private ScanFailed(int index, RuntimeException cause) {
+            super(cause.getMessage(), cause);
+            this.index = index;
+        }
+    }
+
+    private final class Session {
+        private final BufferedReader reader;
+        private final OutputStream output;
+        private Long memberId;
+        private long seq;
+        private boolean drained;
+        private long batches;
+        private long failed;
+
+        private Session(InputStream input, OutputStream output) {
+            this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            this.output = output;
+        }
+
+        /**
+         * Lines already received, up to batchSize; blocks only for the
+         * first. Returns an empty list once the input has ended.
+         */
+        private List<String> nextLines() throws IOException {
+            List<String> lines = new ArrayList<>();
+            while (!drained && lines.size() < batchSize) {
+                if (!lines.isEmpty() && !reader.ready()) {
+                    break;
+                }
+                String line = reader.readLine();
+                if (line == null) {
+                    drained = true;
+                } else if (!line.isBlank()) {
+                    lines.add(line.trim());
+                }
+            }
+            return lines;
+        }
+
+        private Item parse(String line) {
+            ScanResult result = new ScanResult();
+            result.setSeq(++seq);
+            DeskScan scan;
+            try {
+                scan = line.startsWith("{") ? objectMapper.readValue(line, DeskScan.class) : bareCode(line);
+            } catch (IOException e) {
+                return failed(result, "Unreadable scan: " + line);
+            }
+            result.setAction(scan.getAction());
+            result.setCode(scan.getCode());
+            if (scan.getAction() == null) {
+                return failed(result, "Scan has no action");
+            }
+            if (scan.getAction() == DeskScan.Action.MEMBER) {
+                if (scan.getMemberId() == null) {
+                    return failed(result, "Member scan has no memberId");
+                }
+                memberId = scan.getMemberId();
+            } else if (scan.getCode() == null || scan.getCode().isBlank()) {
+                return failed(result, "Scan has no code");
+            } else if (scan.getAction() == DeskScan.Action.CHECKOUT && scan.getMemberId() == null) {
+                if (memberId == null) {
+                    return failed(result, "No member scanned for checkout");
+                }
+                scan.setMemberId(memberId);
+            }
+            result.setMemberId(scan.getMemberId());
+            return new Item(result, scan);
+        }
+
+        // A bare code is checked out to the session's member once one is scanned, and returned before that
+        private DeskScan bareCode(String code) {
+            return new DeskScan(memberId == null ? DeskScan.Action.RETURN : DeskScan.Action.CHECKOUT, code, memberId);
+        }
+
+        private Item failed(ScanResult result, String error) {
+            result.setError(error);
+            failed++;
+            return new Item(result, null);
+        }
+
+        private void write(List<Item> items) throws IOException {
+            for (Item item : items) {
+                output.write(objectMapper.writeValueAsBytes(item.result));
+                output.write('\n');
+            }
+            output.flush();
+        }
+    }
+
+    public void run(InputStream input, OutputStream output) throws IOException {
+        long started = System.currentTimeMillis();
+        Session session = new Session(input, output);
+        List<String> lines;
+        while (!(lines = session.nextLines()).isEmpty()) {
+            List<Item> items = new ArrayList<>(lines.size());
+            List<Item> pending = new ArrayList<>(lines.size());
+            for (String line : lines) {
+                Item item = session.parse(line);
+                items.add(item);
+                if (item.scan != null) {
+                    pending.add(item);
+                }
+            }
+            apply(pending, session);
+            session.write(items);
+        }
+        log.info("Desk session: {} scans in {} batches, {} failed, {} ms", session.seq, session.batches,
+            session.failed, System.currentTimeMillis() - started);
+    }
+
+    private void apply(List<Item> items, Session session) {
+        if (items.isEmpty()) {
+            return;
+        }
+        session.batches++;
+        List<LoanView> loans = new ArrayList<>(items.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Members scanned in this batch, loaded once
+                Map<Long, Member> members = new HashMap<>();
+                for (int i = 0; i < items.size(); i++) {
+                    try {
+                        loans.add(applyOne(items.get(i).scan, members));
+                    } catch (RuntimeException e) {
+                        throw new ScanFailed(i, e);
+                    }
+                }
+            });
+        } catch (ScanFailed e) {
+            if (items.size() == 1) {
+                fail(items.get(0), e.getMessage(), session);
+                return;
+            }
+            apply(items.subList(0, e.index), session);
+            apply(items.subList(e.index, e.index + 1), session);
+            apply(items.subList(e.index + 1, items.size()), session);
+            return;
+        } catch (RuntimeException e) {
+            // The commit itself failed, so any scan may be the cause: retry each on its own
+            if (items.size() == 1) {
+                fail(items.get(0), e.getMessage(), session);
+                return;
+            }
+            for (Item item : items) {
+                apply(List.of(item), session);
+            }
+            return;
+        }
+        for (int i = 0; i < items.size(); i++) {
+            items.get(i).result.setSuccess(true);
+            items.get(i).result.setLoan(loans.get(i));
+        }
+    }
+
+    private LoanView applyOne(DeskScan scan, Map<Long, Member> members) {
+        switch (scan.getAction()) {
+            case MEMBER:
+                member(scan.getMemberId(), members);
+                return null;
+            case RETURN:
+                return LoanView.of(loanService.checkInScanned(scan.getCode()));
+            default:
+                return LoanView.of(loanService.checkOutScanned(member(scan.getMemberId(), members), scan.getCode()));
+        }
+    }
+
+    private Member member(Long memberId, Map<Long, Member> members) {
+        return members.computeIfAbsent(memberId, id -> memberRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Member not found")));
+    }
+
+    private static void fail(Item item, String error, Session session) {
+        item.result.setError(error);
+        session.failed++;
+    }
+}
@@ -0,0 +1,57 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.dto.CirculationEvent;
+import com.ntuc.ntuclms.entity.OutboxEvent;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Running counts of circulation events by type, fed by the outbox relay
+ * instead of by the request path. Counts cover today (by publish date) and
+ * the time since startup; they are not rebuilt after a restart.
+ */
+@Component
+public class CirculationStats implements OutboxSubscriber {
+
+    private final Map<OutboxEvent.Type, Long> sinceStartup = new EnumMap<>(OutboxEvent.Type.class);
+    private final Map<OutboxEvent.Type, Long> today = new EnumMap<>(OutboxEvent.Type.class);
+    private LocalDate day = LocalDate.now();
+    private long lastSequence;
+
+    @Override
+    public synchronized void onEvents(List<CirculationEvent> events) {
+        for (CirculationEvent event : events) {
+            LocalDate published = event.getPublishedAt().toLocalDate();
+            if (!published.equals(day)) {
+                today.clear();
+                day = published;
+            }
+            sinceStartup.merge(event.getType(), 1L, Long::sum);
+            today.merge(event.getType(), 1L, Long::sum);
+            lastSequence = event.getSequence();
+        }
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        rollDay();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("day", day);
+        snapshot.put("today", new EnumMap<>(today));
+        snapshot.put("sinceStartup", new EnumMap<>(sinceStartup));
+        snapshot.put("lastSequence", lastSequence);
+        return snapshot;
+    }
+
+    private void rollDay() {
+        LocalDate now = LocalDate.now();
+        if (!now.equals(day)) {
+            today.clear();
+            day = now;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.repository.BookRepository;
+import com.ntuc.ntuclms.util.LongLongHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory copy of each title's total and available copy counts, split
+ * over STRIPES shards by book id, each a LongLongHashMap behind its own
+ * lock, so borrows of different titles rarely contend. A borrow takes a
+ * copy here before it touches the books row, which turns away requests
+ * for titles with nothing on the shelf without a database round trip.
+ * The counts are advisory: the conditional update in
+ * BookCounterRepository.reserve stays the authority, takes that lose there or
+ * roll back are handed back, and a periodic reload from the database
+ * corrects any drift.
+ */
+@Component
+public class CopyCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(CopyCounters.class);
+
+    // tryTake results other than the number of copies left on the shelf
+    public static final int NONE_LEFT = -1;
+    public static final int UNTRACKED = -2;
+
+    private static final int STRIPES = 64;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private static final class Stripe {
+        // Total copies in the high 32 bits, available copies in the low 32
+        private LongLongHashMap counts = new LongLongHashMap();
+        // Ids changed while a reload is reading the table; their live counts win over the snapshot
+        private Set<Long> touchedDuringReload;
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private volatile boolean ready = false;
+
+    public CopyCounters() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        reconcile();
+    }
+
+    @Scheduled(initialDelayString = "${availability.reconcile-interval-ms:300000}",
+               fixedDelayString = "${availability.reconcile-interval-ms:300000}")
+    public void scheduledReconcile() {
+        if (ready) {
+            reconcile();
+        }
+    }
+
+    // Returns the number of titles whose counts were corrected
+    public synchronized long reconcile() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.touchedDuringReload = new HashSet<>();
+            }
+        }
+
+        LongLongHashMap[] reloaded = new LongLongHashMap[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            reloaded[i] = new LongLongHashMap();
+        }
+        try {
+            List<Object[]> rows = bookRepository.findAllCopyCounts();
+            for (Object[] row : rows) {
+                long id = (Long) row[0];
+                reloaded[index(id)].put(id, pack((Integer) row[1], (Integer) row[2]));
+            }
+        } catch (RuntimeException e) {
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    stripe.touchedDuringReload = null;
+                }
+            }
+            throw e;
+        }
+
+        long drift = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            Stripe stripe = stripes[i];
+            synchronized (stripe) {
+                LongLongHashMap live = stripe.counts;
+                LongLongHashMap fresh = reloaded[i];
+                for (Long id : stripe.touchedDuringReload) {
+                    long value = live.get(id);
+                    if (value == LongLongHashMap.NO_VALUE) {
+                        fresh.remove(id);
+                    } else {
+                        fresh.put(id, value);
+                    }
+                }
+                if (ready) {
+                    drift += differing(live, fresh, stripe.touchedDuringReload);
+                }
+                stripe.touchedDuringReload = null;
+                stripe.counts = fresh;
+            }
+        }
+        ready = true;
+        if (drift > 0) {
+            log.warn("Copy counters drifted from the database for {} titles; corrected", drift);
+        }
+        return drift;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Takes one copy of the title off the shelf. Returns the copies still
+     * available afterwards, NONE_LEFT when there was none to take, or
+     * UNTRACKED when the title is not loaded (yet) and the database has to
+     * decide alone.
+     */
+    public int tryTake(long bookId) {
+        Stripe stripe = stripes[index(bookId)];
+        synchronized (stripe) {
+            long value = stripe.counts.get(bookId);
+            if (value == LongLongHashMap.NO_VALUE) {
+                return UNTRACKED;
+            }
+            int available = available(value);
+            if (available <= 0) {
+                return NONE_LEFT;
+            }
+            update(stripe, bookId, pack(total(value), available - 1));
+            return available - 1;
+        }
+    }
+
+    // Puts one copy back, never above the title's total
+    public void giveBack(long bookId) {
+        adjust(bookId, 0, 1);
+    }
+
+    public void adjust(long bookId, int totalDelta, int availableDelta) {
+        Stripe stripe = stripes[index(bookId)];
+        synchronized (stripe) {
+            long value = stripe.counts.get(bookId);
+            if (value == LongLongHashMap.NO_VALUE) {
+                return;
+            }
+            int total = Math.max(0, total(value) + totalDelta);
+            int available = Math.max(0, Math.min(total, available(value) + availableDelta));
+            update(stripe, bookId, pack(total, available));
+        }
+    }
+
+    public void put(long bookId, int total, int available) {
+        Stripe stripe = stripes[index(bookId)];
+        synchronized (stripe) {
+            update(stripe, bookId, pack(total, available));
+        }
+    }
+
+    public void remove(long bookId) {
+        Stripe stripe = stripes[index(bookId)];
+        synchronized (stripe) {
+            stripe.counts.remove(bookId);
+            if (stripe.touchedDuringReload != null) {
+                stripe.touchedDuringReload.add(bookId);
+            }
+        }
+    }
+
+    public Map<String, Object> describe() {
+        long titles = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                titles += stripe.counts.size();
+            }
+        }
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("ready", ready);
+        description.put("stripes", STRIPES);
+        description.put("titles", titles);
+        return description;
+    }
+
+    // Caller holds the stripe's lock
+    private static void update(Stripe stripe, long bookId, long value) {
+        stripe.counts.put(bookId, value);
+        if (stripe.touchedDuringReload != null) {
+            stripe.touchedDuringReload.add(bookId);
+        }
+    }
+
+    // Titles in the fresh snapshot whose counts differ from the live ones, ignoring those changed meanwhile
+    private static long differing(LongLongHashMap live, LongLongHashMap fresh, Set<Long> touched) {
+        long differing = 0;
+        for (long id : fresh.keys()) {
+            if (!touched.contains(id) && live.get(id) != fresh.get(id)) {
+                differing++;
+            }
+        }
+        return differing;
+    }
+
+    private static int index(long bookId) {
+        return Long.hashCode(bookId) & (STRIPES - 1);
+    }
+
+    private static long pack(int total, int available) {
+        return ((long) total << 32) | (available & 0xffffffffL);
+    }
+
+    private static int total(long value) {
+        return (int) (value >>> 32);
+    }
+
+    private static int available(long value) {
+        return (int) value;
+    }
+}
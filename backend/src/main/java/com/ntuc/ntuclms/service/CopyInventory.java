@@ -0,0 +1,280 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.dto.CopyView;
+import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.entity.BookCopy;
+import com.ntuc.ntuclms.exception.ConflictException;
+import com.ntuc.ntuclms.repository.BookCopyRepository;
+import com.ntuc.ntuclms.repository.BookCounterRepository;
+import com.ntuc.ntuclms.repository.BookRepository;
+import com.ntuc.ntuclms.repository.LoanBatchRepository;
+import com.ntuc.ntuclms.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Physical copies of each title and the per-title counters in front of
+ * them. Lending is two steps, both in the caller's transaction: reserve
+ * takes a unit off the title's available-copies counter (CopyCounters in
+ * memory, then the conditional update on the books row), and takeCopy
+ * picks a concrete copy for the loan. A copy kept aside for a READY hold
+ * stays on the shelf with its unit already counted out, so a title always
+ * has at least as many AVAILABLE copies as units reserved but not yet
+ * lent. Returns run the other way round: returnCopy, then HoldService
+ * either passes the unit to the next holder or calls release. The
+ * in-memory AvailabilityIndex follows only committed changes.
+ */
+@Service
+public class CopyInventory {
+
+    // Copies fetched per attempt in takeCopy, and attempts before giving up
+    private static final int CANDIDATES = 8;
+    private static final int ATTEMPTS = 3;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCounterRepository bookCounterRepository;
+
+    @Autowired
+    private BookCopyRepository bookCopyRepository;
+
+    @Autowired
+    private LoanBatchRepository loanBatchRepository;
+
+    @Autowired
+    private CopyCounters copyCounters;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private SecondLevelCache secondLevelCache;
+
+    // True when a copy of the title was taken off the shelf; false when none is left (or the book is missing)
+    public boolean reserve(Long bookId) {
+        int left = copyCounters.tryTake(bookId);
+        if (left == CopyCounters.NONE_LEFT) {
+            return false;
+        }
+        int updated;
+        try {
+            updated = bookCounterRepository.reserve(bookId);
+        } catch (RuntimeException e) {
+            // A lock wait timeout or deadlock must not keep the unit counted out until the next reconcile
+            if (left != CopyCounters.UNTRACKED) {
+                copyCounters.giveBack(bookId);
+            }
+            throw e;
+        }
+        if (updated == 0) {
+            if (left != CopyCounters.UNTRACKED) {
+                copyCounters.giveBack(bookId);
+            }
+            return false;
+        }
+        secondLevelCache.evictBooks(List.of(bookId));
+        if (left != CopyCounters.UNTRACKED) {
+            TransactionHooks.onRollback(() -> copyCounters.giveBack(bookId));
+        }
+        boolean lastCopy = left == CopyCounters.UNTRACKED
+            ? bookRepository.findAvailableIdsIn(List.of(bookId)).isEmpty()
+            : left == 0;
+        if (lastCopy) {
+            TransactionHooks.afterCommit(() -> availabilityIndex.onAvailabilityChanged(bookId, false));
+        }
+        return true;
+    }
+
+    // reserve for several titles, with one JDBC batch of conditional updates; returns the ids reserved
+    public List<Long> reserveAll(List<Long> bookIds) {
+        List<Long> tried = new ArrayList<>();
+        List<Integer> lefts = new ArrayList<>();
+        for (Long bookId : bookIds) {
+            int left = copyCounters.tryTake(bookId);
+            if (left != CopyCounters.NONE_LEFT) {
+                tried.add(bookId);
+                lefts.add(left);
+            }
+        }
+        if (tried.isEmpty()) {
+            return List.of();
+        }
+
+        int[] counts;
+        try {
+            counts = loanBatchRepository.reserveBooks(tried);
+        } catch (RuntimeException e) {
+            for (int i = 0; i < tried.size(); i++) {
+                if (lefts.get(i) != CopyCounters.UNTRACKED) {
+                    copyCounters.giveBack(tried.get(i));
+                }
+            }
+            throw e;
+        }
+        List<Long> reserved = new ArrayList<>();
+        List<Long> untracked = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            Long bookId = tried.get(i);
+            int left = lefts.get(i);
+            if (counts[i] == 0) {
+                if (left != CopyCounters.UNTRACKED) {
+                    copyCounters.giveBack(bookId);
+                }
+                continue;
+            }
+            reserved.add(bookId);
+            if (left == CopyCounters.UNTRACKED) {
+                untracked.add(bookId);
+            } else {
+                TransactionHooks.onRollback(() -> copyCounters.giveBack(bookId));
+                if (left == 0) {
+                    TransactionHooks.afterCommit(() -> availabilityIndex.onAvailabilityChanged(bookId, false));
+                }
+            }
+        }
+        if (!untracked.isEmpty()) {
+            Set<Long> stillAvailable = new HashSet<>(bookRepository.findAvailableIdsIn(untracked));
+            List<Long> gone = untracked.stream().filter(id -> !stillAvailable.contains(id)).toList();
+            TransactionHooks.afterCommit(() -> gone.forEach(id -> availabilityIndex.onAvailabilityChanged(id, false)));
+        }
+        return reserved;
+    }
+
+    /**
+     * Marks one AVAILABLE copy of a reserved title ON_LOAN and returns its
+     * id, or null when the title has no copy rows at all. Candidates are
+     * tried from a random starting point, so concurrent borrowers of one
+     * title rarely wait on the same copy row.
+     */
+    public Long takeCopy(Long bookId) {
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            List<Long> candidates = bookCopyRepository.findIdsByBookIdAndStatus(bookId, BookCopy.CopyStatus.AVAILABLE,
+                PageRequest.of(0, CANDIDATES));
+            if (candidates.isEmpty()) {
+                break;
+            }
+            int start = ThreadLocalRandom.current().nextInt(candidates.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                Long copyId = candidates.get((start + i) % candidates.size());
+                if (bookCopyRepository.transition(copyId, BookCopy.CopyStatus.AVAILABLE,
+                        BookCopy.CopyStatus.ON_LOAN) > 0) {
+                    return copyId;
+                }
+            }
+        }
+        if (bookCopyRepository.countByBookId(bookId) == 0) {
+            return null;
+        }
+        throw new ConflictException("No copy of this book is on the shelf");
+    }
+
+    // takeCopy for the copy in hand at the desk, which must be on the shelf
+    public Long takeCopy(Long bookId, Long copyId) {
+        if (bookCopyRepository.transition(copyId, BookCopy.CopyStatus.AVAILABLE, BookCopy.CopyStatus.ON_LOAN) == 0) {
+            throw new ConflictException("Copy is not on the shelf");
+        }
+        return copyId;
+    }
+
+    public void returnCopy(Long copyId) {
+        if (copyId != null) {
+            bookCopyRepository.transition(copyId, BookCopy.CopyStatus.ON_LOAN, BookCopy.CopyStatus.AVAILABLE);
+        }
+    }
+
+    // Puts a returned (or newly added) copy back on the shelf; false when every copy already is
+    public boolean release(Long bookId) {
+        if (bookCounterRepository.release(bookId) == 0) {
+            return false;
+        }
+        secondLevelCache.evictBooks(List.of(bookId));
+        TransactionHooks.afterCommit(() -> {
+            copyCounters.giveBack(bookId);
+            availabilityIndex.onAvailabilityChanged(bookId, true);
+        });
+        return true;
+    }
+
+    // Copy rows for a book just saved with totalCopies already counting them
+    public void addInitialCopies(Book book) {
+        insertCopies(book.getId(), 1, book.getTotalCopies());
+        copyCounters.put(book.getId(), book.getTotalCopies(), book.getAvailableCopies());
+    }
+
+    // One copy each for books just saved with the default counts, in one statement
+    public void addInitialCopies(Collection<Book> books) {
+        if (books.isEmpty()) {
+            return;
+        }
+        bookCopyRepository.insertFirstCopies(books.stream().map(Book::getId).toList(), LocalDateTime.now());
+        books.forEach(book -> copyCounters.put(book.getId(), book.getTotalCopies(), book.getAvailableCopies()));
+    }
+
+    /**
+     * Adds copies to a title whose row the caller has locked. They count
+     * towards the total but not yet as available: the caller hands each one
+     * to HoldService.passOn, which gives it to the next holder or releases it.
+     */
+    public void addCopies(Long bookId, int count) {
+        insertCopies(bookId, bookCopyRepository.countByBookId(bookId) + 1, count);
+        bookCounterRepository.addCopies(bookId, count);
+        secondLevelCache.evictBooks(List.of(bookId));
+        TransactionHooks.afterCommit(() -> copyCounters.adjust(bookId, count, 0));
+    }
+
+    // Takes a copy that is on the shelf (and not kept aside for a hold) out of circulation
+    public void withdraw(Long copyId) {
+        BookCopy copy = bookCopyRepository.findById(copyId)
+            .orElseThrow(() -> new RuntimeException("Copy not found"));
+        Long bookId = copy.getBook().getId();
+        if (bookCopyRepository.transition(copyId, BookCopy.CopyStatus.AVAILABLE, BookCopy.CopyStatus.WITHDRAWN) == 0) {
+            throw new ConflictException("Copy is on loan or already withdrawn");
+        }
+        if (bookCounterRepository.withdrawCopy(bookId) == 0) {
+            throw new ConflictException("Every copy on the shelf is kept aside for a hold");
+        }
+        secondLevelCache.evictBooks(List.of(bookId));
+        TransactionHooks.afterCommit(() -> copyCounters.adjust(bookId, -1, -1));
+        if (bookRepository.findAvailableIdsIn(List.of(bookId)).isEmpty()) {
+            TransactionHooks.afterCommit(() -> availabilityIndex.onAvailabilityChanged(bookId, false));
+        }
+    }
+
+    public List<CopyView> getCopies(Long bookId) {
+        if (!bookRepository.existsById(bookId)) {
+            throw new RuntimeException("Book not found");
+        }
+        return bookCopyRepository.findViewsByBookId(bookId);
+    }
+
+    public void onBookDeleted(Long bookId) {
+        bookCopyRepository.deleteByBookId(bookId);
+        TransactionHooks.afterCommit(() -> copyCounters.remove(bookId));
+    }
+
+    private void insertCopies(Long bookId, long firstNumber, int count) {
+        Book book = bookRepository.getReferenceById(bookId);
+        LocalDateTime now = LocalDateTime.now();
+        List<BookCopy> copies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BookCopy copy = new BookCopy();
+            copy.setBook(book);
+            copy.setBarcode(BookCopy.barcode(bookId, firstNumber + i));
+            copy.setStatus(BookCopy.CopyStatus.AVAILABLE);
+            copy.setAddedAt(now);
+            copies.add(copy);
+        }
+        bookCopyRepository.saveAll(copies);
+    }
+}
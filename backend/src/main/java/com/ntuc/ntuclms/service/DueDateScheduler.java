@@ -0,0 +1,136 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.repository.LoanRepository;
+import com.ntuc.ntuclms.util.TimingWheel;
+import com.ntuc.ntuclms.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Due-date timers for open loans on a hierarchical timing wheel. LoanService
+ * registers a timer when a loan is opened or its due date moves and cancels
+ * it on return; when a loan's due date has passed, the next tick marks it
+ * OVERDUE without scanning the loans table. The wheel is rebuilt from the
+ * active loans at startup. Fines keep growing daily through OverdueSweep,
+ * and both accrue to the member's FineLedger balance.
+ */
+@Component
+public class DueDateScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(DueDateScheduler.class);
+
+    // Four levels of 64 one-minute slots reach about 31 years ahead
+    private static final int WHEEL_LEVELS = 4;
+    private static final int MAX_IDS_PER_UPDATE = 1000;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private FineLedger fineLedger;
+
+    private final TimingWheel<Long> wheel;
+    // Loans registered or cancelled while a rebuild is reading the table; their live timers win over the snapshot
+    private Set<Long> touchedDuringRebuild;
+    private volatile boolean ready = false;
+
+    public DueDateScheduler(@Value("${due-dates.tick-ms:60000}") long tickMillis) {
+        this.wheel = new TimingWheel<>(tickMillis, WHEEL_LEVELS, System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            touchedDuringRebuild = new HashSet<>();
+        }
+        List<Object[]> rows;
+        try {
+            rows = loanRepository.findActiveDueDates();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                touchedDuringRebuild = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            for (Object[] row : rows) {
+                Long loanId = (Long) row[0];
+                if (!touchedDuringRebuild.contains(loanId)) {
+                    wheel.schedule(loanId, deadline((LocalDate) row[1]));
+                }
+            }
+            touchedDuringRebuild = null;
+            ready = true;
+        }
+        log.info("Due-date wheel rebuilt with {} active loans", rows.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public synchronized int pending() {
+        return wheel.size();
+    }
+
+    // Takes effect when the caller's transaction commits, so a rollback leaves the old timer in place
+    public void register(Long loanId, LocalDate dueDate) {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                wheel.schedule(loanId, deadline(dueDate));
+                touch(loanId);
+            }
+        });
+    }
+
+    public void cancel(Long loanId) {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                wheel.cancel(loanId);
+                touch(loanId);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${due-dates.tick-ms:60000}")
+    public void tick() {
+        List<Long> expired;
+        synchronized (this) {
+            expired = wheel.advance(System.currentTimeMillis());
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        int updated = 0;
+        for (int from = 0; from < expired.size(); from += MAX_IDS_PER_UPDATE) {
+            List<Long> ids = expired.subList(from, Math.min(from + MAX_IDS_PER_UPDATE, expired.size()));
+            updated += fineLedger.chargeOverdue(ids, today);
+        }
+        log.info("Due-date timers fired for {} loans; {} marked overdue", expired.size(), updated);
+    }
+
+    // A loan becomes overdue once its due date has passed, i.e. at the start of the following day
+    private static long deadline(LocalDate dueDate) {
+        return dueDate.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private void touch(Long loanId) {
+        if (touchedDuringRebuild != null) {
+            touchedDuringRebuild.add(loanId);
+        }
+    }
+}
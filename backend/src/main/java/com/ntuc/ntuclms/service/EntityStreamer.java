@@ -0,0 +1,82 @@
+package com.ntuc.ntuclms.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.entity.Member;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes a repository Stream as a JSON array without materializing it.
+ * Rows are read inside a read-only transaction and the persistence context
+ * is cleared periodically, so memory stays flat regardless of row count.
+ */
+@Component
+public class EntityStreamer {
+
+    private static final int CLEAR_EVERY = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter writer;
+
+    // Lazy collections are never serialized (they would load per row) and passwords never leave the server
+    @JsonIgnoreProperties({"loans"})
+    private abstract static class BookMixin {
+    }
+
+    @JsonIgnoreProperties({"loans", "password"})
+    private abstract static class MemberMixin {
+    }
+
+    @Autowired
+    public EntityStreamer(PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writer = objectMapper.copy()
+            .addMixIn(Book.class, BookMixin.class)
+            .addMixIn(Member.class, MemberMixin.class)
+            .writer()
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public <T> StreamingResponseBody jsonArray(Supplier<Stream<T>> source) {
+        return output -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<T> rows = source.get();
+                 JsonGenerator json = writer.getFactory().createGenerator(output)
+                     .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                json.writeStartArray();
+                int written = 0;
+                Iterator<T> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    writer.writeValue(json, iterator.next());
+                    if (++written % CLEAR_EVERY == 0) {
+                        // Drop the rows already written so the persistence context does not grow
+                        entityManager.clear();
+                        json.flush();
+                    }
+                }
+                json.writeEndArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,193 @@
+package com.ntuc.ntuclms.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ntuc.ntuclms.dto.CirculationEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of published circulation events, one JSON object per
+ * line in daily segment files (events-yyyy-MM-dd.ndjson). Each event gets
+ * the next sequence number as it is appended, so the log order is the
+ * publish order and a reader can resume from the last sequence it saw.
+ * Every append is forced to disk before it returns.
+ */
+@Component
+public class EventLog {
+
+    private static final String PREFIX = "events-";
+    private static final String SUFFIX = ".ndjson";
+    private static final int RECENT_IDS = 10_000;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${outbox.log-dir:./data/events}")
+    private String logDir;
+
+    private Path directory;
+    private FileChannel channel;
+    private LocalDate segmentDate;
+    private long lastSequence;
+
+    // Event ids of the newest segment's tail, for the relay to reconcile after a crash
+    private final Deque<Long> recentEventIds = new ArrayDeque<>();
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        directory = Path.of(logDir);
+        Files.createDirectories(directory);
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            return;
+        }
+        // Lines are written whole with their newline, so anything after the last newline is a torn write
+        Path newest = segments.get(segments.size() - 1);
+        byte[] content = Files.readAllBytes(newest);
+        int end = content.length;
+        while (end > 0 && content[end - 1] != '\n') {
+            end--;
+        }
+        if (end < content.length) {
+            try (FileChannel torn = FileChannel.open(newest, StandardOpenOption.WRITE)) {
+                torn.truncate(end);
+            }
+        }
+        for (String line : new String(content, 0, end, StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isBlank()) {
+                CirculationEvent event = objectMapper.readValue(line, CirculationEvent.class);
+                lastSequence = event.getSequence();
+                remember(event.getEventId());
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public synchronized List<Long> getRecentEventIds() {
+        return new ArrayList<>(recentEventIds);
+    }
+
+    // Numbers the events, appends them to today's segment and syncs it
+    public synchronized void append(List<CirculationEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            LocalDate today = LocalDate.now();
+            if (channel == null || !today.equals(segmentDate)) {
+                close();
+                channel = FileChannel.open(directory.resolve(PREFIX + today + SUFFIX),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                segmentDate = today;
+            }
+            StringBuilder lines = new StringBuilder();
+            long sequence = lastSequence;
+            for (CirculationEvent event : events) {
+                event.setSequence(++sequence);
+                lines.append(objectMapper.writeValueAsString(event)).append('\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            lastSequence = sequence;
+            events.forEach(event -> remember(event.getEventId()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Up to limit events after the given sequence, in log order. Does not block appends: reading
+    // stops at the last sequence synced when it started, before any line still being written
+    public List<CirculationEvent> read(long afterSequence, int limit) {
+        long upTo = getLastSequence();
+        List<CirculationEvent> events = new ArrayList<>();
+        if (afterSequence >= upTo) {
+            return events;
+        }
+        try {
+            List<Path> segments = segments();
+            for (int i = 0; i < segments.size() && events.size() < limit; i++) {
+                // A segment is skipped whole when the next one starts at or before the requested sequence
+                if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= afterSequence + 1) {
+                    continue;
+                }
+                try (BufferedReader reader = Files.newBufferedReader(segments.get(i))) {
+                    String line;
+                    while (events.size() < limit && (line = reader.readLine()) != null) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        CirculationEvent event = objectMapper.readValue(line, CirculationEvent.class);
+                        if (event.getSequence() > afterSequence) {
+                            events.add(event);
+                        }
+                        if (event.getSequence() >= upTo) {
+                            return events;
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return events;
+    }
+
+    private void remember(Long eventId) {
+        recentEventIds.addLast(eventId);
+        if (recentEventIds.size() > RECENT_IDS) {
+            recentEventIds.removeFirst();
+        }
+    }
+
+    private long firstSequence(Path segment) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(segment)) {
+            String line = reader.readLine();
+            return line == null || line.isBlank() ? Long.MAX_VALUE
+                : objectMapper.readValue(line, CirculationEvent.class).getSequence();
+        }
+    }
+
+    // Segment names sort by date
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(file -> file.getFileName().toString().startsWith(PREFIX)
+                    && file.getFileName().toString().endsWith(SUFFIX))
+                .sorted()
+                .toList();
+        }
+    }
+}
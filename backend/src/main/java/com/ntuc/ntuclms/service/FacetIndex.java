@@ -0,0 +1,192 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.repository.BookRepository;
+import com.ntuc.ntuclms.util.CompressedBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-facet posting lists for the catalog, one compressed bitmap per facet
+ * value with book ids as members. Facet counts are bitmap intersections, so
+ * no GROUP BY query runs per request. Availability comes from
+ * AvailabilityIndex; the other facets are kept in sync by BookService.
+ */
+@Component
+public class FacetIndex {
+
+    public static final String AUTHOR = "author";
+    public static final String AVAILABLE = "available";
+    public static final String INITIAL = "initial";
+
+    private static final int MAX_AUTHOR_VALUES = 20;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private CompressedBitmap allBooks = new CompressedBitmap();
+    private Map<String, CompressedBitmap> byAuthor = new HashMap<>();
+    private Map<String, CompressedBitmap> byInitial = new TreeMap<>();
+
+    // Result of a facet query: matching ids plus counts per facet value
+    public record Selection(CompressedBitmap matches, Map<String, Map<String, Integer>> counts) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        CompressedBitmap all = new CompressedBitmap();
+        Map<String, CompressedBitmap> authors = new HashMap<>();
+        Map<String, CompressedBitmap> initials = new TreeMap<>();
+        for (Object[] row : bookRepository.findAllFacetFields()) {
+            int id = Math.toIntExact((Long) row[0]);
+            all.add(id);
+            authors.computeIfAbsent(authorKey((String) row[2]), k -> new CompressedBitmap()).add(id);
+            initials.computeIfAbsent(initialOf((String) row[1]), k -> new CompressedBitmap()).add(id);
+        }
+        lock.writeLock().lock();
+        try {
+            allBooks = all;
+            byAuthor = authors;
+            byInitial = initials;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onBookAdded(Long id, String title, String author) {
+        int bit = Math.toIntExact(id);
+        lock.writeLock().lock();
+        try {
+            allBooks.add(bit);
+            byAuthor.computeIfAbsent(authorKey(author), k -> new CompressedBitmap()).add(bit);
+            byInitial.computeIfAbsent(initialOf(title), k -> new CompressedBitmap()).add(bit);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onBookRemoved(Long id, String title, String author) {
+        int bit = Math.toIntExact(id);
+        lock.writeLock().lock();
+        try {
+            allBooks.remove(bit);
+            clearPosting(byAuthor, authorKey(author), bit);
+            clearPosting(byInitial, initialOf(title), bit);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Intersects the requested filters (null means unfiltered). Each facet is
+     * counted against the other facets' filters only, so every option of the
+     * facet being narrowed stays visible with its count.
+     */
+    public Selection select(String author, Boolean available, String initial) {
+        lock.readLock().lock();
+        try {
+            CompressedBitmap authorFilter = author == null ? null : postingOrEmpty(byAuthor, authorKey(author));
+            CompressedBitmap initialFilter = initial == null ? null : postingOrEmpty(byInitial, initialOf(initial));
+
+            CompressedBitmap matches = withAvailability(intersect(authorFilter, initialFilter), available);
+
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            counts.put(AUTHOR, topAuthors(withAvailability(intersect(null, initialFilter), available), author));
+            CompressedBitmap forAvailability = intersect(authorFilter, initialFilter);
+            Map<String, Integer> availability = new LinkedHashMap<>();
+            long availableCount = availabilityIndex.countAvailable(forAvailability);
+            availability.put("true", (int) availableCount);
+            availability.put("false", (int) (forAvailability.cardinality() - availableCount));
+            counts.put(AVAILABLE, availability);
+            counts.put(INITIAL, countValues(byInitial, withAvailability(intersect(authorFilter, null), available)));
+            return new Selection(matches, counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private CompressedBitmap withAvailability(CompressedBitmap base, Boolean available) {
+        return available == null ? base : availabilityIndex.filter(base, available);
+    }
+
+    private CompressedBitmap intersect(CompressedBitmap... filters) {
+        CompressedBitmap result = allBooks;
+        for (CompressedBitmap filter : filters) {
+            if (filter != null) {
+                result = CompressedBitmap.and(result, filter);
+            }
+        }
+        // Never hand out the live posting itself
+        return result == allBooks ? allBooks.copy() : result;
+    }
+
+    private Map<String, Integer> topAuthors(CompressedBitmap base, String selected) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+        for (Map.Entry<String, CompressedBitmap> posting : byAuthor.entrySet()) {
+            int count = (int) CompressedBitmap.andCardinality(base, posting.getValue());
+            if (count > 0 || posting.getKey().equals(selected == null ? null : authorKey(selected))) {
+                entries.add(Map.entry(posting.getKey(), count));
+            }
+        }
+        entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Integer> top = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : entries.subList(0, Math.min(MAX_AUTHOR_VALUES, entries.size()))) {
+            top.put(entry.getKey(), entry.getValue());
+        }
+        return top;
+    }
+
+    private static Map<String, Integer> countValues(Map<String, CompressedBitmap> postings, CompressedBitmap base) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Map.Entry<String, CompressedBitmap> posting : postings.entrySet()) {
+            int count = (int) CompressedBitmap.andCardinality(base, posting.getValue());
+            if (count > 0) {
+                counts.put(posting.getKey(), count);
+            }
+        }
+        return counts;
+    }
+
+    private static CompressedBitmap postingOrEmpty(Map<String, CompressedBitmap> postings, String key) {
+        CompressedBitmap posting = postings.get(key);
+        return posting == null ? new CompressedBitmap() : posting;
+    }
+
+    private static void clearPosting(Map<String, CompressedBitmap> postings, String key, int bit) {
+        CompressedBitmap posting = postings.get(key);
+        if (posting != null) {
+            posting.remove(bit);
+            if (posting.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    private static String authorKey(String author) {
+        return author == null ? "" : author.trim();
+    }
+
+    // Upper-cased first letter or digit of the title; everything else is grouped under "#"
+    static String initialOf(String title) {
+        if (title != null) {
+            String trimmed = title.trim();
+            if (!trimmed.isEmpty() && Character.isLetterOrDigit(trimmed.charAt(0))) {
+                return String.valueOf(Character.toUpperCase(trimmed.charAt(0)));
+            }
+        }
+        return "#";
+    }
+}
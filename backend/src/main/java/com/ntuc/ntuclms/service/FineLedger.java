@@ -0,0 +1,150 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.entity.FineEntry;
+import com.ntuc.ntuclms.entity.Loan;
+import com.ntuc.ntuclms.entity.MemberBalance;
+import com.ntuc.ntuclms.repository.FineEntryRepository;
+import com.ntuc.ntuclms.repository.FineLedgerRepository;
+import com.ntuc.ntuclms.repository.LoanBatchRepository;
+import com.ntuc.ntuclms.repository.MemberBalanceRepository;
+import com.ntuc.ntuclms.repository.MemberRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Member fines as an append-only ledger in integer cents with a running
+ * balance row per member. Every entry moves the balance in the same
+ * transaction, so a member's fines are one primary-key read however long
+ * their loan history is. Loan.fine stays as the per-loan display amount.
+ */
+@Service
+public class FineLedger {
+
+    @Autowired
+    private FineLedgerRepository fineLedgerRepository;
+
+    @Autowired
+    private FineEntryRepository fineEntryRepository;
+
+    @Autowired
+    private MemberBalanceRepository memberBalanceRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private LoanBatchRepository loanBatchRepository;
+
+    @Autowired
+    private SecondLevelCache secondLevelCache;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    public MemberBalance getBalance(Long memberId) {
+        return memberBalanceRepository.findById(memberId).orElseGet(() -> MemberBalance.empty(memberId));
+    }
+
+    public List<FineEntry> getEntries(Long memberId, int limit) {
+        return fineEntryRepository.findByMemberIdOrderByIdDesc(memberId, PageRequest.of(0, limit));
+    }
+
+    // Records a change in one loan's fine on the caller's transaction
+    public void accrue(Long memberId, Long loanId, long cents) {
+        if (cents != 0) {
+            record(List.of(new FineEntry(null, memberId, loanId, FineEntry.Type.ACCRUAL, cents, LocalDateTime.now(), null)));
+        }
+    }
+
+    @Transactional
+    public int chargeOverdue(Collection<Long> loanIds, LocalDate today) {
+        return chargeOverdue(loanBatchRepository.lockOverdue(loanIds, today), today);
+    }
+
+    /**
+     * Marks the given locked loans OVERDUE and brings their fines up to
+     * today, accruing the difference to each member. Loans that are already
+     * up to date are not written.
+     */
+    public int chargeOverdue(List<LoanBatchRepository.OverdueLoan> loans, LocalDate today) {
+        long perDay = toCents(Loan.FINE_PER_DAY);
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> changed = new ArrayList<>();
+        List<FineEntry> accruals = new ArrayList<>();
+        for (LoanBatchRepository.OverdueLoan loan : loans) {
+            long delta = ChronoUnit.DAYS.between(loan.getDueDate(), today) * perDay - toCents(loan.getFine());
+            if (delta != 0 || !Loan.LoanStatus.OVERDUE.name().equals(loan.getStatus())) {
+                changed.add(loan.getId());
+            }
+            if (delta != 0) {
+                accruals.add(new FineEntry(null, loan.getMemberId(), loan.getId(), FineEntry.Type.ACCRUAL, delta, now, null));
+            }
+        }
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        int updated = loanBatchRepository.markOverdue(changed, today, Loan.FINE_PER_DAY);
+        record(accruals);
+        secondLevelCache.evictLoans(changed);
+        catalogVersion.bump(CatalogVersion.Scope.LOANS);
+        return updated;
+    }
+
+    // A payment or waiver; rejected if it exceeds the outstanding balance
+    @Transactional
+    public MemberBalance settle(Long memberId, FineEntry.Type type, long cents, String note) {
+        if (type == FineEntry.Type.ACCRUAL) {
+            throw new RuntimeException("Accruals are recorded by loans, not settled");
+        }
+        if (cents <= 0) {
+            throw new RuntimeException("Amount must be positive");
+        }
+        if (!memberRepository.existsById(memberId)) {
+            throw new RuntimeException("Member not found");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (fineLedgerRepository.settle(memberId, type, cents, now) == 0) {
+            throw new RuntimeException("Amount exceeds the outstanding balance");
+        }
+        fineLedgerRepository.insertEntries(List.of(new FineEntry(null, memberId, null, type, -cents, now, note)));
+        catalogVersion.bump(CatalogVersion.Scope.LOANS);
+
+        // The row was changed with plain JDBC; refresh it in case this session already holds it
+        MemberBalance balance = memberBalanceRepository.findById(memberId).orElseThrow();
+        entityManager.refresh(balance);
+        return balance;
+    }
+
+    private void record(List<FineEntry> accruals) {
+        if (accruals.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> centsByMember = new LinkedHashMap<>();
+        for (FineEntry entry : accruals) {
+            centsByMember.merge(entry.getMemberId(), entry.getAmountCents(), Long::sum);
+        }
+        LocalDateTime now = accruals.get(0).getCreatedAt();
+        fineLedgerRepository.ensureBalances(centsByMember.keySet(), now);
+        fineLedgerRepository.insertEntries(accruals);
+        fineLedgerRepository.addAccruals(centsByMember, now);
+    }
+}
@@ -0,0 +1,124 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.util.TimingWheel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * In-memory mirror of the holds table: the WAITING hold ids of each book in
+ * queue order, and a timing wheel of pickup deadlines for READY holds.
+ * HoldService keeps it in step with its writes; the table stays the source
+ * of truth for who is next. The mirror may list a hold that is already gone
+ * but never misses a live one, so returns of books nobody is waiting for
+ * skip the holds query entirely.
+ */
+@Component
+public class HoldQueue {
+
+    private static final int WHEEL_LEVELS = 4;
+
+    private final ConcurrentHashMap<Long, Queue<Long>> waiting = new ConcurrentHashMap<>();
+    private final TimingWheel<Long> pickups;
+    private volatile boolean ready = false;
+
+    public HoldQueue(@Value("${holds.tick-ms:60000}") long tickMillis) {
+        this.pickups = new TimingWheel<>(tickMillis, WHEEL_LEVELS, System.currentTimeMillis());
+    }
+
+    // Merges the table's live holds into whatever was enqueued while it was being read
+    public void load(List<Object[]> waitingRows, List<Object[]> readyRows) {
+        for (Object[] row : waitingRows) {
+            waiting.compute((Long) row[0], (id, queue) -> append(queue, (Long) row[1]));
+        }
+        synchronized (pickups) {
+            for (Object[] row : readyRows) {
+                if (!pickups.contains((Long) row[0])) {
+                    pickups.schedule((Long) row[0], toMillis((LocalDateTime) row[1]));
+                }
+            }
+        }
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Until the first load every book may have holds
+    public boolean mayHaveWaiting(Long bookId) {
+        if (!ready) {
+            return true;
+        }
+        Queue<Long> queue = waiting.get(bookId);
+        return queue != null && !queue.isEmpty();
+    }
+
+    public int waitingCount(Long bookId) {
+        Queue<Long> queue = waiting.get(bookId);
+        return queue == null ? 0 : queue.size();
+    }
+
+    public int waitingTotal() {
+        return waiting.values().stream().mapToInt(Queue::size).sum();
+    }
+
+    public void enqueue(Long bookId, Long holdId) {
+        waiting.compute(bookId, (id, queue) -> append(queue, holdId));
+    }
+
+    public void dequeue(Long bookId, Long holdId) {
+        waiting.computeIfPresent(bookId, (id, queue) -> {
+            queue.remove(holdId);
+            return queue.isEmpty() ? null : queue;
+        });
+    }
+
+    // Only safe while holding the book's row lock, which every enqueue happens under
+    public void clear(Long bookId) {
+        waiting.remove(bookId);
+    }
+
+    public void schedulePickup(Long holdId, LocalDateTime expiresAt) {
+        synchronized (pickups) {
+            pickups.schedule(holdId, toMillis(expiresAt));
+        }
+    }
+
+    public void cancelPickup(Long holdId) {
+        synchronized (pickups) {
+            pickups.cancel(holdId);
+        }
+    }
+
+    public int pendingPickups() {
+        synchronized (pickups) {
+            return pickups.size();
+        }
+    }
+
+    public List<Long> expiredPickups(long nowMillis) {
+        synchronized (pickups) {
+            return pickups.advance(nowMillis);
+        }
+    }
+
+    // Queues are only changed inside the map's compute calls, so dequeue cannot drop a queue mid-append
+    private static Queue<Long> append(Queue<Long> queue, Long holdId) {
+        Queue<Long> target = queue == null ? new ConcurrentLinkedQueue<>() : queue;
+        if (!target.contains(holdId)) {
+            target.add(holdId);
+        }
+        return target;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
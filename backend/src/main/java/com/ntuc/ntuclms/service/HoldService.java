@@ -0,0 +1,280 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.dto.HoldView;
+import com.ntuc.ntuclms.entity.Hold;
+import com.ntuc.ntuclms.entity.Member;
+import com.ntuc.ntuclms.exception.ConflictException;
+import com.ntuc.ntuclms.repository.BookRepository;
+import com.ntuc.ntuclms.repository.HoldRepository;
+import com.ntuc.ntuclms.repository.LoanRepository;
+import com.ntuc.ntuclms.repository.MemberRepository;
+import com.ntuc.ntuclms.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Holds on unavailable books. Each book has a FIFO queue of WAITING holds;
+ * when a loan of one of its copies closes, passOn hands that copy to the
+ * head of the queue, which turns READY for the pickup window while the copy
+ * stays counted off the shelf. Only that member can borrow it until the window ends, when the
+ * hold expires and the book moves on to the next holder or back to the
+ * shelf. Placing a hold and passing a book on both lock the book row, so a
+ * hold can never be queued behind a book that has just been released.
+ */
+@Service
+public class HoldService {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldService.class);
+
+    public static final int MAX_ACTIVE_HOLDS = 5;
+
+    @Autowired
+    private HoldRepository holdRepository;
+
+    @Autowired
+    private HoldQueue holdQueue;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private CopyInventory copyInventory;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${holds.pickup-days:3}")
+    private int pickupDays;
+
+    private Member getCurrentMember() {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        return memberRepository.findByUsername(username)
+            .orElseThrow(() -> new RuntimeException("Member not found"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        holdQueue.load(holdRepository.findAllWaiting(), holdRepository.findAllReady());
+        log.info("Hold queues rebuilt: {} waiting, {} awaiting pickup", holdQueue.waitingTotal(), holdQueue.pendingPickups());
+    }
+
+    @Transactional
+    public HoldView placeHold(Long bookId) {
+        Member member = getCurrentMember();
+        if (member.getMembershipStatus() != Member.MembershipStatus.ACTIVE) {
+            throw new RuntimeException("Cannot place hold: membership is not active");
+        }
+
+        boolean available = bookRepository.lockAvailability(bookId)
+            .orElseThrow(() -> new RuntimeException("Book not found"));
+        if (available) {
+            throw new RuntimeException("Book is available; borrow it instead");
+        }
+        if (loanRepository.existsByActiveBookIdAndMemberId(bookId, member.getId())) {
+            throw new RuntimeException("You already have this book on loan");
+        }
+        if (holdRepository.countByActiveMemberId(member.getId()) >= MAX_ACTIVE_HOLDS) {
+            throw new RuntimeException("Hold limit reached");
+        }
+
+        Hold hold = new Hold();
+        hold.setMember(member);
+        hold.setBook(bookRepository.getReferenceById(bookId));
+        hold.setActiveMemberId(member.getId());
+        hold.setStatus(Hold.HoldStatus.WAITING);
+        hold.setPlacedAt(LocalDateTime.now());
+        try {
+            holdRepository.saveAndFlush(hold);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("You already have a hold on this book", e);
+        }
+
+        // Enqueued before commit, while the book row is still locked, so no return can miss it
+        Long holdId = hold.getId();
+        holdQueue.enqueue(bookId, holdId);
+        TransactionHooks.onRollback(() -> holdQueue.dequeue(bookId, holdId));
+        return view(member.getId(), holdId);
+    }
+
+    public List<HoldView> getMyHolds() {
+        return holdRepository.findActiveViewsByMember(getCurrentMember().getId());
+    }
+
+    @Transactional
+    public void cancelHold(Long holdId) {
+        Hold hold = holdRepository.findById(holdId)
+            .orElseThrow(() -> new RuntimeException("Hold not found"));
+        if (!hold.getMember().getId().equals(getCurrentMember().getId())) {
+            throw new RuntimeException("Not authorized to cancel this hold");
+        }
+        if (!cancel(hold)) {
+            throw new ConflictException("Hold is no longer active");
+        }
+    }
+
+    // Deletes the holds on a book about to be deleted; the caller has checked that none is READY
+    public void removeBookHolds(Long bookId) {
+        holdRepository.deleteByBookId(bookId);
+        TransactionHooks.afterCommit(() -> holdQueue.clear(bookId));
+    }
+
+    // Cancels and deletes all of a member's holds, passing on any book kept aside for them
+    @Transactional
+    public void removeMemberHolds(Long memberId) {
+        for (Hold hold : holdRepository.findByActiveMemberId(memberId)) {
+            cancel(hold);
+        }
+        holdRepository.deleteByMemberId(memberId);
+    }
+
+    private boolean cancel(Hold hold) {
+        Long bookId = hold.getBook().getId();
+        if (hold.getStatus() == Hold.HoldStatus.READY) {
+            bookRepository.lockAvailability(bookId);
+            if (holdRepository.cancel(hold.getId(), Hold.HoldStatus.READY) == 0) {
+                return false;
+            }
+            TransactionHooks.afterCommit(() -> holdQueue.cancelPickup(hold.getId()));
+            passOn(bookId);
+            return true;
+        }
+        if (hold.getStatus() == Hold.HoldStatus.WAITING
+                && holdRepository.cancel(hold.getId(), Hold.HoldStatus.WAITING) > 0) {
+            TransactionHooks.afterCommit(() -> holdQueue.dequeue(bookId, hold.getId()));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Called in the caller's transaction once a loan or READY hold of one of
+     * a book's copies has ended (or a copy was added), with that copy still
+     * counted off the shelf. The copy goes to the oldest WAITING hold if
+     * there is one and returns true; otherwise it is released to the shelf
+     * and this returns false.
+     */
+    public boolean passOn(Long bookId) {
+        bookRepository.lockAvailability(bookId);
+        if (holdQueue.mayHaveWaiting(bookId)) {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime expiresAt = now.plusDays(pickupDays);
+            List<Long> next;
+            long afterId = 0;
+            // A hold cancelled since the query fails the conditional update; the next one in line is tried.
+            // The lookup may read an older snapshot than the update, so a failed id is never tried again
+            while (!(next = holdRepository.findWaitingIds(bookId, afterId, PageRequest.of(0, 1))).isEmpty()) {
+                Long holdId = next.get(0);
+                afterId = holdId;
+                if (holdRepository.promote(holdId, now, expiresAt) > 0) {
+                    TransactionHooks.afterCommit(() -> {
+                        holdQueue.dequeue(bookId, holdId);
+                        holdQueue.schedulePickup(holdId, expiresAt);
+                    });
+                    return true;
+                }
+            }
+            holdQueue.clear(bookId);
+        }
+        copyInventory.release(bookId);
+        catalogVersion.bump(CatalogVersion.Scope.BOOKS);
+        return false;
+    }
+
+    // True when the member's READY hold on the book was claimed; the caller then opens the loan
+    public boolean claim(Long memberId, Long bookId) {
+        Hold hold = holdRepository.findReady(bookId, memberId).orElse(null);
+        if (hold == null || holdRepository.fulfill(hold.getId(), LocalDateTime.now()) == 0) {
+            return false;
+        }
+        TransactionHooks.afterCommit(() -> holdQueue.cancelPickup(hold.getId()));
+        return true;
+    }
+
+    // claim for several books with one read of the member's READY holds; returns the ids of the books claimed
+    public List<Long> claimAll(Long memberId, Collection<Long> bookIds) {
+        List<Long> claimed = new ArrayList<>();
+        if (bookIds.isEmpty()) {
+            return claimed;
+        }
+        for (Object[] row : holdRepository.findReadyIn(memberId, bookIds)) {
+            Long holdId = (Long) row[0];
+            if (holdRepository.fulfill(holdId, LocalDateTime.now()) > 0) {
+                TransactionHooks.afterCommit(() -> holdQueue.cancelPickup(holdId));
+                claimed.add((Long) row[1]);
+            }
+        }
+        return claimed;
+    }
+
+    public int waitingCount(Long bookId) {
+        return holdQueue.waitingCount(bookId);
+    }
+
+    @Scheduled(fixedDelayString = "${holds.tick-ms:60000}")
+    public void expirePickups() {
+        if (!holdQueue.isReady()) {
+            return;
+        }
+        List<Long> expired = holdQueue.expiredPickups(System.currentTimeMillis());
+        int passedOn = 0;
+        for (Long holdId : expired) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> expire(holdId)))) {
+                    passedOn++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not expire hold {}: {}", holdId, e.getMessage());
+            }
+        }
+        if (!expired.isEmpty()) {
+            log.info("Pickup windows ended for {} holds; {} books passed to the next holder", expired.size(), passedOn);
+        }
+    }
+
+    // Runs inside the template's transaction; a hold claimed or cancelled in the meantime is left alone.
+    // True when the book went on to the next holder
+    boolean expire(Long holdId) {
+        Hold hold = holdRepository.findById(holdId).orElse(null);
+        if (hold == null || hold.getStatus() != Hold.HoldStatus.READY) {
+            return false;
+        }
+        Long bookId = hold.getBook().getId();
+        bookRepository.lockAvailability(bookId);
+        if (holdRepository.expire(holdId, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        return passOn(bookId);
+    }
+
+    private HoldView view(Long memberId, Long holdId) {
+        return holdRepository.findActiveViewsByMember(memberId).stream()
+            .filter(view -> view.getId().equals(holdId))
+            .findFirst()
+            .orElseThrow(() -> new RuntimeException("Hold not found"));
+    }
+}
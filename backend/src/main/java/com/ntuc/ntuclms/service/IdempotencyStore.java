@@ -0,0 +1,186 @@
+package com.ntuc.ntuclms.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ntuc.ntuclms.entity.IdempotencyRecord;
+import com.ntuc.ntuclms.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Responses to requests made with an Idempotency-Key, kept for a fixed
+ * window so a retried request gets the first response back instead of
+ * running again. Completed responses live in a size-bounded, expiring
+ * in-memory cache in front of the idempotency_keys table; the table answers
+ * for keys evicted from memory or stored before a restart. Requests still
+ * running are tracked in a separate map that is never evicted, so a
+ * duplicate arriving mid-flight is always turned away.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    public enum Outcome {
+        // The caller owns the key and must complete or abandon it
+        STARTED,
+        // A response is stored for this key and request
+        REPLAY,
+        // The first request with this key has not finished yet
+        IN_PROGRESS,
+        // The key was used for a different request
+        MISMATCH
+    }
+
+    public record StoredResponse(int status, String contentType, byte[] body) {
+    }
+
+    public record Claim(Outcome outcome, StoredResponse response) {
+    }
+
+    private record Entry(String fingerprint, StoredResponse response, LocalDateTime expiresAt) {
+    }
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Value("${idempotency.window-hours:24}")
+    private int windowHours;
+
+    @Value("${idempotency.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${idempotency.max-body-bytes:262144}")
+    private int maxBodyBytes;
+
+    private Cache<String, Entry> completed;
+    private final ConcurrentMap<String, String> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        completed = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(Duration.ofHours(windowHours))
+            .build();
+    }
+
+    public Claim begin(String username, String key, String fingerprint) {
+        String keyHash = keyHash(username, key);
+        Claim stored = storedClaim(keyHash, fingerprint);
+        if (stored != null) {
+            return stored;
+        }
+        String running = inFlight.putIfAbsent(keyHash, fingerprint);
+        if (running != null) {
+            return new Claim(running.equals(fingerprint) ? Outcome.IN_PROGRESS : Outcome.MISMATCH, null);
+        }
+        // The first request may have completed after the check above; or, after eviction or a restart, only the table has it
+        stored = storedClaim(keyHash, fingerprint);
+        if (stored == null) {
+            IdempotencyRecord record = idempotencyRecordRepository
+                .findByKeyHashAndExpiresAtAfter(keyHash, LocalDateTime.now()).orElse(null);
+            if (record != null) {
+                Entry entry = new Entry(record.getFingerprint(),
+                    new StoredResponse(record.getStatus(), record.getContentType(), record.getBody()), record.getExpiresAt());
+                completed.put(keyHash, entry);
+                stored = claim(entry, fingerprint);
+            }
+        }
+        if (stored != null) {
+            inFlight.remove(keyHash);
+            return stored;
+        }
+        return new Claim(Outcome.STARTED, null);
+    }
+
+    // Stores the response for replay and releases the key; false (and released) when the body is too large to keep
+    public boolean complete(String username, String key, String fingerprint, StoredResponse response) {
+        String keyHash = keyHash(username, key);
+        try {
+            if (response.body().length > maxBodyBytes) {
+                log.warn("Response for an idempotent request is {} bytes; not stored for replay", response.body().length);
+                return false;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime expiresAt = now.plusHours(windowHours);
+            idempotencyRecordRepository.save(new IdempotencyRecord(keyHash, fingerprint, response.status(),
+                response.contentType(), response.body(), now, expiresAt));
+            completed.put(keyHash, new Entry(fingerprint, response, expiresAt));
+            return true;
+        } finally {
+            inFlight.remove(keyHash);
+        }
+    }
+
+    // Releases a key whose request failed, so the client can retry it
+    public void abandon(String username, String key) {
+        inFlight.remove(keyHash(username, key));
+    }
+
+    @Scheduled(cron = "${idempotency.purge-cron:0 20 * * * *}")
+    public void purgeExpired() {
+        int deleted = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        completed.cleanUp();
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    // Drops the in-memory copies; stored responses are then served from the table
+    public void evictAll() {
+        completed.invalidateAll();
+    }
+
+    private Claim storedClaim(String keyHash, String fingerprint) {
+        Entry entry = completed.getIfPresent(keyHash);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt().isBefore(LocalDateTime.now())) {
+            completed.invalidate(keyHash);
+            return null;
+        }
+        return claim(entry, fingerprint);
+    }
+
+    private static Claim claim(Entry entry, String fingerprint) {
+        return entry.fingerprint().equals(fingerprint)
+            ? new Claim(Outcome.REPLAY, entry.response())
+            : new Claim(Outcome.MISMATCH, null);
+    }
+
+    private static String keyHash(String username, String key) {
+        return sha256((username + "\n" + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Identifies the request a key was first used for
+    public static String fingerprint(String method, String path, byte[] body) {
+        byte[] head = (method + " " + path + "\n").getBytes(StandardCharsets.UTF_8);
+        byte[] content = new byte[head.length + body.length];
+        System.arraycopy(head, 0, content, 0, head.length);
+        System.arraycopy(body, 0, content, head.length, body.length);
+        return sha256(content);
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.repository.BookRepository;
+import com.ntuc.ntuclms.util.IsbnUtil;
+import com.ntuc.ntuclms.util.LongLongHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory map from normalized ISBN-13 key to book id, kept in sync by BookService
+@Component
+public class IsbnIndex {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private LongLongHashMap isbnToBookId = new LongLongHashMap();
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Object[]> rows = bookRepository.findAllIdAndIsbn();
+        LongLongHashMap rebuilt = new LongLongHashMap(rows.size());
+        for (Object[] row : rows) {
+            long key = IsbnUtil.toKey((String) row[1]);
+            if (key != IsbnUtil.INVALID) {
+                rebuilt.put(key, (Long) row[0]);
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            isbnToBookId = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Returns the book id for an ISBN-10/13 query, or empty if no book carries it
+    public OptionalLong lookup(String isbn) {
+        long key = scannedKey(isbn);
+        if (key == IsbnUtil.INVALID) {
+            return OptionalLong.empty();
+        }
+        lock.readLock().lock();
+        try {
+            long id = isbnToBookId.get(key);
+            return id == LongLongHashMap.NO_VALUE ? OptionalLong.empty() : OptionalLong.of(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // True when the query is a complete ISBN (optionally followed by a scanner add-on code)
+    public boolean isLookupKey(String isbn) {
+        return scannedKey(isbn) != IsbnUtil.INVALID;
+    }
+
+    public void onBookSaved(String previousIsbn, Book book) {
+        long previousKey = IsbnUtil.toKey(previousIsbn);
+        long key = IsbnUtil.toKey(book.getIsbn());
+        lock.writeLock().lock();
+        try {
+            if (previousKey != IsbnUtil.INVALID && previousKey != key) {
+                isbnToBookId.remove(previousKey);
+            }
+            if (key != IsbnUtil.INVALID) {
+                isbnToBookId.put(key, book.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onBookDeleted(Book book) {
+        long key = IsbnUtil.toKey(book.getIsbn());
+        if (key == IsbnUtil.INVALID) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            isbnToBookId.remove(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static long scannedKey(String isbn) {
+        long key = IsbnUtil.toKey(isbn);
+        if (key != IsbnUtil.INVALID || isbn == null) {
+            return key;
+        }
+        // Barcode scanners append a 2 or 5 digit EAN add-on (e.g. price code) after the ISBN-13
+        String digits = isbn.replace("-", "").replace(" ", "");
+        if ((digits.length() == 15 || digits.length() == 18) && digits.chars().allMatch(Character::isDigit)) {
+            return IsbnUtil.toKey(digits.substring(0, 13));
+        }
+        return IsbnUtil.INVALID;
+    }
+}
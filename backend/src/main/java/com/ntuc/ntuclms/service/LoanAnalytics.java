@@ -0,0 +1,326 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.exception.ConflictException;
+import com.ntuc.ntuclms.repository.LoanSnapshotRepository;
+import com.ntuc.ntuclms.util.LoanColumns;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Admin loan reports answered from an in-memory LoanColumns snapshot of both
+ * loan tiers instead of the database. The snapshot is rebuilt at startup
+ * and then periodically, and swapped in whole, so reports lag the live
+ * tables by up to one rebuild interval and never see a half-built state.
+ * Every report is one parallel scan over the rows borrowed in the
+ * requested date range. Both tiers are read in one read-only
+ * repeatable-read transaction, so a loan archived during a rebuild is
+ * counted exactly once.
+ */
+@Component
+public class LoanAnalytics {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanAnalytics.class);
+
+    private static final int PAGE_SIZE = 10_000;
+
+    @Autowired
+    private LoanSnapshotRepository loanSnapshotRepository;
+
+    private final TransactionTemplate snapshotTransaction;
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private record Snapshot(LoanColumns columns, LocalDateTime builtAt, long buildMillis) {
+    }
+
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public LoanAnalytics(PlatformTransactionManager transactionManager) {
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${analytics.rebuild-interval-ms:900000}",
+               fixedDelayString = "${analytics.rebuild-interval-ms:900000}")
+    public void scheduledRebuild() {
+        if (!rebuilding.get()) {
+            rebuild();
+        }
+    }
+
+    public Map<String, Object> rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new ConflictException("The analytics snapshot is already being rebuilt");
+        }
+        try {
+            long started = System.currentTimeMillis();
+            LoanColumns.Builder builder = new LoanColumns.Builder();
+            snapshotTransaction.executeWithoutResult(status -> {
+                for (String table : List.of("loans", "loans_archive")) {
+                    long lastId = 0;
+                    do {
+                        lastId = loanSnapshotRepository.readPage(table, lastId, PAGE_SIZE, builder);
+                    } while (lastId >= 0);
+                }
+            });
+            snapshot = new Snapshot(builder.build(), LocalDateTime.now(), System.currentTimeMillis() - started);
+            log.info("Loan analytics snapshot rebuilt with {} loans in {} ms", snapshot.columns().size(), snapshot.buildMillis());
+        } finally {
+            rebuilding.set(false);
+        }
+        return describe();
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    public Map<String, Object> describe() {
+        Snapshot current = snapshot;
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("ready", current != null);
+        description.put("rebuilding", rebuilding.get());
+        if (current != null) {
+            description.put("loans", current.columns().size());
+            description.put("authors", current.columns().authorCount());
+            description.put("builtAt", current.builtAt());
+            description.put("buildMillis", current.buildMillis());
+        }
+        return description;
+    }
+
+    // Loan counts, open and overdue loans, fines and loan length over loans borrowed in the range
+    public Map<String, Object> summary(LocalDate from, LocalDate to) {
+        Snapshot current = current();
+        int today = (int) LocalDate.now().toEpochDay();
+        long scanStarted = System.nanoTime();
+        // [loans, open, overdue, returned, returnedDays, longestDays, renewed, fineCents]
+        long[] totals = current.columns().scan(pool, fromDay(from), toDay(to), new LoanColumns.Aggregator<long[]>() {
+            @Override
+            public long[] create() {
+                return new long[8];
+            }
+
+            @Override
+            public void accumulate(long[] acc, LoanColumns columns, int fromRow, int toRow) {
+                int[] borrowDays = columns.borrowDays();
+                int[] dueDays = columns.dueDays();
+                int[] returnDays = columns.returnDays();
+                int[] fineCents = columns.fineCents();
+                byte[] renewals = columns.renewals();
+                for (int row = fromRow; row < toRow; row++) {
+                    acc[0]++;
+                    if (returnDays[row] == LoanColumns.OPEN) {
+                        acc[1]++;
+                        if (dueDays[row] < today) {
+                            acc[2]++;
+                        }
+                    } else {
+                        int days = returnDays[row] - borrowDays[row];
+                        acc[3]++;
+                        acc[4] += days;
+                        acc[5] = Math.max(acc[5], days);
+                    }
+                    if (renewals[row] > 0) {
+                        acc[6]++;
+                    }
+                    acc[7] += fineCents[row];
+                }
+            }
+
+            @Override
+            public long[] merge(long[] left, long[] right) {
+                for (int i = 0; i < left.length; i++) {
+                    left[i] = i == 5 ? Math.max(left[i], right[i]) : left[i] + right[i];
+                }
+                return left;
+            }
+        });
+
+        Map<String, Object> report = header(current, from, to, scanStarted);
+        report.put("loans", totals[0]);
+        report.put("openLoans", totals[1]);
+        report.put("overdueLoans", totals[2]);
+        report.put("returnedLoans", totals[3]);
+        report.put("averageLoanDays", totals[3] == 0 ? 0.0 : (double) totals[4] / totals[3]);
+        report.put("longestLoanDays", totals[5]);
+        report.put("renewalRate", totals[0] == 0 ? 0.0 : (double) totals[6] / totals[0]);
+        report.put("totalFines", totals[7] / 100.0);
+        return report;
+    }
+
+    public Map<String, Object> loansPerAuthor(LocalDate from, LocalDate to, int limit) {
+        Snapshot current = current();
+        int authors = current.columns().authorCount();
+        long scanStarted = System.nanoTime();
+        long[] counts = current.columns().scan(pool, fromDay(from), toDay(to), new LoanColumns.Aggregator<long[]>() {
+            @Override
+            public long[] create() {
+                return new long[authors];
+            }
+
+            @Override
+            public void accumulate(long[] acc, LoanColumns columns, int fromRow, int toRow) {
+                int[] authorCodes = columns.authorCodes();
+                for (int row = fromRow; row < toRow; row++) {
+                    acc[authorCodes[row]]++;
+                }
+            }
+
+            @Override
+            public long[] merge(long[] left, long[] right) {
+                Arrays.setAll(left, i -> left[i] + right[i]);
+                return left;
+            }
+        });
+
+        List<Map<String, Object>> rows = IntStream.range(0, authors)
+            .filter(code -> counts[code] > 0)
+            .boxed()
+            .sorted(Comparator.<Integer>comparingLong(code -> counts[code]).reversed()
+                .thenComparing(code -> current.columns().author(code)))
+            .limit(limit)
+            .map(code -> {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("author", current.columns().author(code));
+                row.put("loans", counts[code]);
+                return row;
+            })
+            .toList();
+        Map<String, Object> report = header(current, from, to, scanStarted);
+        report.put("authors", rows);
+        return report;
+    }
+
+    // Per borrow month: loans, renewed loans and the share renewed, plus the average length of returned loans
+    public Map<String, Object> monthlyRenewals(LocalDate from, LocalDate to) {
+        Snapshot current = current();
+        LoanColumns columns = current.columns();
+        int firstDay = columns.size() == 0 ? 0 : Math.max(fromDay(from), columns.borrowDays()[0]);
+        int lastDay = columns.size() == 0 ? -1 : Math.min(toDay(to), columns.borrowDays()[columns.size() - 1]);
+        if (firstDay > lastDay) {
+            Map<String, Object> report = header(current, from, to, System.nanoTime());
+            report.put("months", List.of());
+            return report;
+        }
+        // Month boundaries between the first and last borrow day in range
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(LocalDate.ofEpochDay(firstDay));
+             !month.atDay(1).isAfter(LocalDate.ofEpochDay(lastDay)); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        int[] monthStarts = months.stream().mapToInt(month -> (int) month.atDay(1).toEpochDay()).toArray();
+
+        long scanStarted = System.nanoTime();
+        // Four counters per month (loans, renewed, returned, returned days); rows arrive sorted by borrow day
+        long[] counts = columns.scan(pool, firstDay, lastDay, new LoanColumns.Aggregator<long[]>() {
+            @Override
+            public long[] create() {
+                return new long[monthStarts.length * 4];
+            }
+
+            @Override
+            public void accumulate(long[] acc, LoanColumns scanned, int fromRow, int toRow) {
+                int[] borrowDays = scanned.borrowDays();
+                int[] returnDays = scanned.returnDays();
+                byte[] renewals = scanned.renewals();
+                int month = monthOf(monthStarts, borrowDays[fromRow]);
+                for (int row = fromRow; row < toRow; row++) {
+                    while (month + 1 < monthStarts.length && borrowDays[row] >= monthStarts[month + 1]) {
+                        month++;
+                    }
+                    int base = month * 4;
+                    acc[base]++;
+                    if (renewals[row] > 0) {
+                        acc[base + 1]++;
+                    }
+                    if (returnDays[row] != LoanColumns.OPEN) {
+                        acc[base + 2]++;
+                        acc[base + 3] += returnDays[row] - borrowDays[row];
+                    }
+                }
+            }
+
+            @Override
+            public long[] merge(long[] left, long[] right) {
+                Arrays.setAll(left, i -> left[i] + right[i]);
+                return left;
+            }
+        });
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int month = 0; month < months.size(); month++) {
+            long loans = counts[month * 4];
+            long returned = counts[month * 4 + 2];
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("month", months.get(month).toString());
+            row.put("loans", loans);
+            row.put("renewed", counts[month * 4 + 1]);
+            row.put("renewalRate", loans == 0 ? 0.0 : (double) counts[month * 4 + 1] / loans);
+            row.put("averageLoanDays", returned == 0 ? 0.0 : (double) counts[month * 4 + 3] / returned);
+            rows.add(row);
+        }
+        Map<String, Object> report = header(current, from, to, scanStarted);
+        report.put("months", rows);
+        return report;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new RuntimeException("Analytics snapshot is not built yet");
+        }
+        return current;
+    }
+
+    private static Map<String, Object> header(Snapshot current, LocalDate from, LocalDate to, long scanStarted) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("from", from);
+        report.put("to", to);
+        report.put("snapshotBuiltAt", current.builtAt());
+        report.put("scanMillis", (System.nanoTime() - scanStarted) / 1_000_000.0);
+        return report;
+    }
+
+    // Last month starting on or before the day
+    private static int monthOf(int[] monthStarts, int day) {
+        int index = Arrays.binarySearch(monthStarts, day);
+        return Math.max(0, index >= 0 ? index : -index - 2);
+    }
+
+    private static int fromDay(LocalDate from) {
+        return from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+    }
+
+    private static int toDay(LocalDate to) {
+        return to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+    }
+}
@@ -0,0 +1,98 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.dto.ArchiveReport;
+import com.ntuc.ntuclms.exception.ConflictException;
+import com.ntuc.ntuclms.repository.LoanArchiveRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the loans table hot: loans returned more than min-age-days ago are
+ * moved to loans_archive nightly, one small chunk per transaction, so no
+ * run holds locks on more than a chunk of rows at a time. Chunks always
+ * take the oldest remaining rows, so an interrupted run needs no watermark.
+ * Member history reads both tiers (see LoanService.getLoanHistory).
+ */
+@Component
+public class LoanArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanArchiver.class);
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanArchiveRepository loanArchiveRepository;
+
+    @Value("${loan-archive.min-age-days:365}")
+    private int minAgeDays;
+
+    @Value("${loan-archive.chunk-size:500}")
+    private int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ArchiveReport lastReport;
+
+    @Scheduled(cron = "${loan-archive.cron:0 45 2 * * *}")
+    public void scheduledArchive() {
+        if (!running.get()) {
+            archive();
+        }
+    }
+
+    public ArchiveReport archive() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConflictException("Loan archival is already running");
+        }
+        try {
+            return run();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public ArchiveReport getLastReport() {
+        return lastReport;
+    }
+
+    public long countArchived() {
+        return loanArchiveRepository.countArchived();
+    }
+
+    private ArchiveReport run() {
+        ArchiveReport report = new ArchiveReport();
+        report.setCutoff(LocalDate.now().minusDays(minAgeDays));
+        report.setStartedAt(LocalDateTime.now());
+
+        long started = System.currentTimeMillis();
+        try {
+            // Partitions first, so archived rows never land in the catch-all
+            report.setPartitionsAdded(loanArchiveRepository.ensureYearPartitions(report.getCutoff().getYear()));
+            int moved;
+            do {
+                long chunkStarted = System.currentTimeMillis();
+                moved = loanService.archiveReturnedChunk(report.getCutoff(), chunkSize);
+                report.setArchived(report.getArchived() + moved);
+                report.setChunks(report.getChunks() + 1);
+                report.setSlowestChunkMillis(Math.max(report.getSlowestChunkMillis(),
+                    System.currentTimeMillis() - chunkStarted));
+            } while (moved == chunkSize);
+            report.setCompleted(true);
+        } finally {
+            report.setElapsedMillis(System.currentTimeMillis() - started);
+            lastReport = report;
+            log.info("Loan archival before {}: {} loans moved in {} chunks, {} ms (slowest chunk {} ms){}",
+                report.getCutoff(), report.getArchived(), report.getChunks(), report.getElapsedMillis(),
+                report.getSlowestChunkMillis(), report.isCompleted() ? "" : ", interrupted");
+        }
+        return report;
+    }
+}
@@ -1,20 +1,45 @@
 // src/main/java/com/ntuc/ntuclms/service/LoanService.java
 package com.ntuc.ntuclms.service;
 
+import com.ntuc.ntuclms.dto.BatchItemResult;
+import com.ntuc.ntuclms.dto.CursorPage;
+import com.ntuc.ntuclms.dto.LoanView;
 import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.entity.BookCopy;
 import com.ntuc.ntuclms.entity.Loan;
 import com.ntuc.ntuclms.entity.Member;
+import com.ntuc.ntuclms.entity.SweepWatermark;
+import com.ntuc.ntuclms.exception.ConflictException;
+import com.ntuc.ntuclms.repository.ArchivedLoanRepository;
+import com.ntuc.ntuclms.repository.BookCopyRepository;
 import com.ntuc.ntuclms.repository.BookRepository;
+import com.ntuc.ntuclms.repository.LoanArchiveRepository;
+import com.ntuc.ntuclms.repository.LoanBatchRepository;
 import com.ntuc.ntuclms.repository.LoanRepository;
 import com.ntuc.ntuclms.repository.MemberRepository;
+import com.ntuc.ntuclms.repository.SweepWatermarkRepository;
+import com.ntuc.ntuclms.util.CursorCodec;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 public class LoanService {
@@ -31,6 +56,53 @@ public class LoanService {
     @Autowired
     private MemberService memberService;
 
+    @Autowired
+    private CopyInventory copyInventory;
+
+    @Autowired
+    private BookCopyRepository bookCopyRepository;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private SecondLevelCache secondLevelCache;
+
+    @Autowired
+    private LoanBatchRepository loanBatchRepository;
+
+    @Autowired
+    private SweepWatermarkRepository sweepWatermarkRepository;
+
+    @Autowired
+    private DueDateScheduler dueDateScheduler;
+
+    @Autowired
+    private FineLedger fineLedger;
+
+    @Autowired
+    private CirculationCounters circulationCounters;
+
+    @Autowired
+    private HoldService holdService;
+
+    @Autowired
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Autowired
+    private LoanArchiveRepository loanArchiveRepository;
+
+    @Autowired
+    private Outbox outbox;
+
+    // History order: newest borrow first, ties broken by id
+    private static final Comparator<LoanView> NEWEST_FIRST =
+        Comparator.comparing(LoanView::getBorrowDate).thenComparing(LoanView::getId).reversed();
+
+    // Seek bounds for the first page of a date-ordered listing (within MySQL's DATE range)
+    private static final LocalDate LATEST_DATE = LocalDate.of(9999, 12, 31);
+    private static final LocalDate EARLIEST_DATE = LocalDate.of(1000, 1, 1);
+
     private Member getCurrentMember() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String username = auth.getName();
@@ -38,6 +110,7 @@ public class LoanService {
             .orElseThrow(() -> new RuntimeException("Member not found"));
     }
 
+    @Transactional
     public Loan borrowBook(Long bookId) {
         Member member = getCurrentMember();
         
@@ -45,27 +118,188 @@ public class LoanService {
             throw new RuntimeException("Cannot borrow: Check membership status, active loans, or overdue books");
         }
         
-        Book book = bookRepository.findById(bookId)
-            .orElseThrow(() -> new RuntimeException("Book not found"));
-        
-        if (!book.isAvailable() || loanRepository.existsByBookAndReturnDateIsNull(book)) {
-            throw new RuntimeException("Book is not available");
+        // Copies are lent one per member; the unique (active_book_id, member_id) key backs this up
+        if (loanRepository.existsByActiveBookIdAndMemberId(bookId, member.getId())) {
+            throw new ConflictException("You already have this book on loan");
         }
-        
+        // A READY hold is claimed first so the copy kept aside for it is the one lent; the book is only looked
+        // up to explain a failed reserve
+        if (!holdService.claim(member.getId(), bookId) && !copyInventory.reserve(bookId)) {
+            if (!bookRepository.existsById(bookId)) {
+                throw new RuntimeException("Book not found");
+            }
+            throw new ConflictException(unavailableMessage(bookId));
+        }
+        return openLoan(member, bookRepository.getReferenceById(bookId));
+    }
+
+    // Points borrowers at the hold queue instead of leaving them to retry until the book frees up
+    private String unavailableMessage(Long bookId) {
+        int waiting = holdService.waitingCount(bookId);
+        return "Book is not available; place a hold to join the queue"
+            + (waiting > 0 ? " (" + waiting + " waiting)" : "");
+    }
+
+    // A copy of the book is already reserved (or kept aside by a claimed hold); the unique active keys reject a
+    // second open loan of the copy, or of the book by the same member
+    private Loan openLoan(Member member, Book book) {
+        return openLoan(member, book, copyInventory.takeCopy(book.getId()));
+    }
+
+    private Loan openLoan(Member member, Book book, Long copyId) {
         Loan loan = new Loan();
         loan.setMember(member);
         loan.setBook(book);
+        loan.setActiveBookId(book.getId());
+        loan.setCopyId(copyId);
+        loan.setActiveCopyId(copyId);
         loan.setBorrowDate(LocalDate.now());
         loan.setDueDate(LocalDate.now().plusDays(14)); // 14 days loan period
         loan.setStatus(Loan.LoanStatus.ACTIVE);
-        
-        // Update book availability
-        book.setAvailable(false);
-        bookRepository.save(book);
-        
-        return loanRepository.save(loan);
+
+        // canBorrow read the counters without a lock; this check-and-increment settles concurrent borrows
+        if (!circulationCounters.loansOpened(member.getId(), 1, loan.getDueDate())) {
+            throw new ConflictException("Loan limit reached");
+        }
+        Loan saved;
+        try {
+            saved = loanRepository.saveAndFlush(loan);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Book is not available", e);
+        }
+        outbox.loanOpened(saved);
+        dueDateScheduler.register(saved.getId(), saved.getDueDate());
+        catalogVersion.bump(CatalogVersion.Scope.LOANS, CatalogVersion.Scope.BOOKS);
+        secondLevelCache.evictMemberLoans(member.getId());
+        return saved;
     }
 
+    /**
+     * Borrows several books at once. Eligibility is checked once, a copy of
+     * each book is reserved with one batch of conditional updates and the
+     * loans are inserted with one JDBC batch; each requested id gets its own
+     * result.
+     */
+    @Transactional
+    public List<BatchItemResult> checkout(List<Long> bookIds) {
+        Member member = getCurrentMember();
+
+        if (!memberService.canBorrow(member)) {
+            throw new RuntimeException("Cannot borrow: Check membership status, active loans, or overdue books");
+        }
+        long quota = MemberService.MAX_ACTIVE_LOANS - member.getActiveLoanCount();
+
+        Map<Long, String> errors = new HashMap<>();
+        List<Long> candidates = new ArrayList<>();
+        Set<Long> onLoan = new HashSet<>(loanRepository.findActiveBookIdsByMemberId(member.getId()));
+        for (Long bookId : distinct(bookIds)) {
+            if (onLoan.contains(bookId)) {
+                errors.put(bookId, "You already have this book on loan");
+            } else if (candidates.size() < quota) {
+                candidates.add(bookId);
+            } else {
+                errors.put(bookId, "Loan limit reached");
+            }
+        }
+
+        // Books kept aside for the member's READY holds first, then free copies for the rest
+        List<Long> reserved = new ArrayList<>(holdService.claimAll(member.getId(), candidates));
+        Set<Long> claimedSet = new HashSet<>(reserved);
+        List<Long> unclaimed = candidates.stream().filter(bookId -> !claimedSet.contains(bookId)).toList();
+        List<Long> fromShelf = copyInventory.reserveAll(unclaimed);
+        reserved.addAll(fromShelf);
+        Set<Long> reservedSet = new HashSet<>(fromShelf);
+        List<Long> missed = unclaimed.stream().filter(bookId -> !reservedSet.contains(bookId)).toList();
+        if (!missed.isEmpty()) {
+            Set<Long> existing = new HashSet<>(bookRepository.findExistingIds(missed));
+            for (Long bookId : missed) {
+                errors.put(bookId, existing.contains(bookId) ? unavailableMessage(bookId) : "Book not found");
+            }
+        }
+
+        Map<Long, LoanView> opened = new HashMap<>();
+        if (!reserved.isEmpty()) {
+            LocalDate today = LocalDate.now();
+            if (!circulationCounters.loansOpened(member.getId(), reserved.size(), today.plusDays(14))) {
+                throw new ConflictException("Loan limit reached");
+            }
+            List<Long> copyIds = reserved.stream().map(copyInventory::takeCopy).toList();
+            try {
+                loanBatchRepository.insertOpenLoans(member.getId(), reserved, copyIds, today, today.plusDays(14));
+            } catch (DuplicateKeyException e) {
+                // An open loan already holds one of the copies; the whole checkout rolls back
+                throw new ConflictException("Book is not available", e);
+            }
+            for (LoanView view : loanRepository.findViewsByMemberAndActiveBookIdIn(member.getId(), reserved)) {
+                opened.put(view.getBookId(), view);
+                outbox.loanOpened(member.getId(), view.getId(), view.getBookId(), view.getDueDate());
+                dueDateScheduler.register(view.getId(), view.getDueDate());
+            }
+            secondLevelCache.evictBooks(reserved);
+            secondLevelCache.evictMemberLoans(member.getId());
+            catalogVersion.bump(CatalogVersion.Scope.LOANS, CatalogVersion.Scope.BOOKS);
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(bookIds.size());
+        Set<Long> seen = new HashSet<>();
+        for (Long bookId : bookIds) {
+            if (!seen.add(bookId)) {
+                results.add(BatchItemResult.failed(bookId, "Duplicate item"));
+            } else if (opened.containsKey(bookId)) {
+                results.add(BatchItemResult.ok(bookId, opened.get(bookId)));
+            } else {
+                results.add(BatchItemResult.failed(bookId, errors.get(bookId)));
+            }
+        }
+        return results;
+    }
+
+    // Renews several of the current member's loans; the updates go out as one Hibernate JDBC batch at commit
+    @Transactional
+    public List<BatchItemResult> renewLoans(List<Long> loanIds) {
+        Member member = getCurrentMember();
+        Map<Long, Loan> loans = new HashMap<>();
+        for (Loan loan : loanRepository.findAllWithMemberAndBookByIdIn(distinct(loanIds))) {
+            loans.put(loan.getId(), loan);
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(loanIds.size());
+        Set<Long> seen = new HashSet<>();
+        boolean renewed = false;
+        for (Long loanId : loanIds) {
+            Loan loan = loans.get(loanId);
+            if (!seen.add(loanId)) {
+                results.add(BatchItemResult.failed(loanId, "Duplicate item"));
+            } else if (loan == null) {
+                results.add(BatchItemResult.failed(loanId, "Loan not found"));
+            } else if (!loan.getMember().getId().equals(member.getId())) {
+                results.add(BatchItemResult.failed(loanId, "Not authorized to renew this loan"));
+            } else if (loan.getReturnDate() != null) {
+                results.add(BatchItemResult.failed(loanId, "Loan already returned"));
+            } else if (!loan.canRenew()) {
+                results.add(BatchItemResult.failed(loanId,
+                    "Loan cannot be renewed (overdue, max renewals reached, or not renewable)"));
+            } else {
+                loan.renewLoan();
+                outbox.loanRenewed(loan);
+                dueDateScheduler.register(loan.getId(), loan.getDueDate());
+                renewed = true;
+                results.add(BatchItemResult.ok(loanId, LoanView.of(loan)));
+            }
+        }
+        if (renewed) {
+            loanRepository.flush();
+            circulationCounters.dueDatesChanged(member.getId());
+            catalogVersion.bump(CatalogVersion.Scope.LOANS);
+        }
+        return results;
+    }
+
+    private static List<Long> distinct(List<Long> ids) {
+        return ids.stream().distinct().toList();
+    }
+
+    @Transactional
     public Loan renewLoan(Long loanId) {
         Loan loan = loanRepository.findById(loanId)
             .orElseThrow(() -> new RuntimeException("Loan not found"));
@@ -83,9 +317,15 @@ public class LoanService {
         }
         
         loan.renewLoan();
-        return loanRepository.save(loan);
+        Loan saved = loanRepository.saveAndFlush(loan);
+        outbox.loanRenewed(saved);
+        circulationCounters.dueDatesChanged(loan.getMember().getId());
+        dueDateScheduler.register(saved.getId(), saved.getDueDate());
+        catalogVersion.bump(CatalogVersion.Scope.LOANS);
+        return saved;
     }
 
+    @Transactional
     public Loan returnBook(Long loanId) {
         Loan loan = loanRepository.findById(loanId)
             .orElseThrow(() -> new RuntimeException("Loan not found"));
@@ -97,40 +337,133 @@ public class LoanService {
         if (loan.getReturnDate() != null) {
             throw new RuntimeException("Loan already returned");
         }
-        
+        return closeLoan(loan);
+    }
+
+    private Loan closeLoan(Loan loan) {
+        // Calculate fine if overdue, while the loan still counts as open
+        long finedBefore = FineLedger.toCents(loan.getFine());
+        loan.calculateFine();
+        fineLedger.accrue(loan.getMember().getId(), loan.getId(), FineLedger.toCents(loan.getFine()) - finedBefore);
+
         LocalDate now = LocalDate.now();
         loan.setReturnDate(now);
         loan.setStatus(Loan.LoanStatus.RETURNED);
+        loan.setActiveBookId(null);
+        loan.setActiveCopyId(null);
         
-        // Calculate fine if overdue
-        loan.calculateFine();
-        
-        // Update book availability
-        Book book = loan.getBook();
-        book.setAvailable(true);
-        bookRepository.save(book);
+        // The copy goes to the next holder if anyone is queued, otherwise back on the shelf
+        Long bookId = loan.getBook().getId();
+        Loan saved = loanRepository.saveAndFlush(loan);
+        outbox.loanReturned(saved);
+        circulationCounters.loanClosed(loan.getMember().getId());
+        copyInventory.returnCopy(loan.getCopyId());
+        holdService.passOn(bookId);
+        dueDateScheduler.cancel(saved.getId());
         
-        return loanRepository.save(loan);
+        catalogVersion.bump(CatalogVersion.Scope.LOANS, CatalogVersion.Scope.BOOKS);
+        return saved;
+    }
+
+    /**
+     * Desk return of a scanned copy barcode or ISBN, in the caller's
+     * transaction (see CirculationDesk). An ISBN only identifies the loan
+     * while a single copy of the book is out.
+     */
+    public Loan checkInScanned(String code) {
+        Loan loan;
+        if (BookCopy.isBarcode(code)) {
+            BookCopy copy = bookCopyRepository.findByBarcode(code)
+                .orElseThrow(() -> new RuntimeException("Copy not found"));
+            loan = loanRepository.findByActiveCopyId(copy.getId())
+                .orElseThrow(() -> new ConflictException("Copy is not on loan"));
+        } else {
+            Book book = bookRepository.findByIsbn(code)
+                .orElseThrow(() -> new RuntimeException("Book not found"));
+            List<Loan> open = loanRepository.findByActiveBookId(book.getId());
+            if (open.isEmpty()) {
+                throw new ConflictException("Book is not on loan");
+            }
+            if (open.size() > 1) {
+                throw new ConflictException("Several copies of this book are on loan; scan the copy barcode");
+            }
+            loan = open.get(0);
+        }
+        return closeLoan(loan);
+    }
+
+    // Desk checkout of a scanned copy barcode (that very copy) or ISBN (any copy), in the caller's transaction
+    public Loan checkOutScanned(Member member, String code) {
+        if (!memberService.canBorrow(member)) {
+            throw new RuntimeException("Member cannot borrow: Check membership status, active loans, or overdue books");
+        }
+        BookCopy copy = null;
+        Book book;
+        if (BookCopy.isBarcode(code)) {
+            copy = bookCopyRepository.findByBarcode(code)
+                .orElseThrow(() -> new RuntimeException("Copy not found"));
+            book = copy.getBook();
+        } else {
+            book = bookRepository.findByIsbn(code)
+                .orElseThrow(() -> new RuntimeException("Book not found"));
+        }
+        if (loanRepository.existsByActiveBookIdAndMemberId(book.getId(), member.getId())) {
+            throw new ConflictException("Member already has this book on loan");
+        }
+        if (!holdService.claim(member.getId(), book.getId()) && !copyInventory.reserve(book.getId())) {
+            throw new ConflictException(unavailableMessage(book.getId()));
+        }
+        return openLoan(member, book, copy == null ? copyInventory.takeCopy(book.getId())
+            : copyInventory.takeCopy(book.getId(), copy.getId()));
+    }
+
+    public List<LoanView> getCurrentLoans() {
+        Member member = getCurrentMember();
+        return loanRepository.findActiveViewsByMember(member.getId());
     }
 
-    public List<Loan> getCurrentLoans() {
+    // History spans the hot loans table and loans_archive; one read-only transaction reads both
+    // tiers from the same snapshot, so a loan being archived meanwhile shows up exactly once
+    @Transactional(readOnly = true)
+    public List<LoanView> getLoanHistory() {
         Member member = getCurrentMember();
-        return loanRepository.findByMemberAndReturnDateIsNull(member);
+        return mergeTiers(loanRepository.findViewsByMember(member.getId()),
+            archivedLoanRepository.findViewsByMember(member.getId()), Integer.MAX_VALUE);
     }
 
-    public List<Loan> getLoanHistory() {
+    @Transactional(readOnly = true)
+    public CursorPage<LoanView> getLoanHistoryPage(String after, Integer limit) {
         Member member = getCurrentMember();
-        return loanRepository.findByMemberOrderByBorrowDateDesc(member);
+        CursorCodec.Cursor cursor = CursorCodec.decode(after, "borrowDate");
+        int pageSize = CursorCodec.clampLimit(limit);
+        LocalDate borrowDate = cursor == null ? LATEST_DATE : LocalDate.parse(cursor.getValue());
+        Long beforeId = cursor == null ? Long.MAX_VALUE : cursor.getId();
+        Pageable window = PageRequest.of(0, pageSize + 1);
+        List<LoanView> rows = mergeTiers(
+            loanRepository.findPageByMemberOrderByBorrowDateDesc(member.getId(), borrowDate, beforeId, window),
+            archivedLoanRepository.findPageByMemberOrderByBorrowDateDesc(member.getId(), borrowDate, beforeId, window),
+            pageSize + 1);
+        return toLoanPage(rows, pageSize, "borrowDate");
+    }
+
+    // Both inputs are already in history order; ids are unique across the tiers
+    private static List<LoanView> mergeTiers(List<LoanView> hot, List<LoanView> archived, int limit) {
+        if (archived.isEmpty()) {
+            return hot.size() > limit ? hot.subList(0, limit) : hot;
+        }
+        return Stream.concat(hot.stream(), archived.stream())
+            .sorted(NEWEST_FIRST)
+            .limit(limit)
+            .toList();
     }
 
     public double calculateTotalFines() {
         Member member = getCurrentMember();
-        return member.getLoans().stream()
-            .mapToDouble(Loan::getFine)
-            .sum();
+        return fineLedger.getBalance(member.getId()).getBalanceCents() / 100.0;
     }
 
     // Admin methods
+    @Transactional
     public Loan createLoan(Long memberId, String isbn) {
         Member member = memberRepository.findById(memberId)
             .orElseThrow(() -> new RuntimeException("Member not found"));
@@ -142,24 +475,16 @@ public class LoanService {
         Book book = bookRepository.findByIsbn(isbn)
             .orElseThrow(() -> new RuntimeException("Book not found"));
         
-        if (!book.isAvailable() || loanRepository.existsByBookAndReturnDateIsNull(book)) {
-            throw new RuntimeException("Book is not available");
+        if (loanRepository.existsByActiveBookIdAndMemberId(book.getId(), member.getId())) {
+            throw new ConflictException("Member already has this book on loan");
         }
-        
-        Loan loan = new Loan();
-        loan.setMember(member);
-        loan.setBook(book);
-        loan.setBorrowDate(LocalDate.now());
-        loan.setDueDate(LocalDate.now().plusDays(14));
-        loan.setStatus(Loan.LoanStatus.ACTIVE);
-        
-        // Update book availability
-        book.setAvailable(false);
-        bookRepository.save(book);
-        
-        return loanRepository.save(loan);
+        if (!holdService.claim(member.getId(), book.getId()) && !copyInventory.reserve(book.getId())) {
+            throw new ConflictException(unavailableMessage(book.getId()));
+        }
+        return openLoan(member, book);
     }
 
+    @Transactional
     public Loan extendLoan(Long loanId) {
         Loan loan = loanRepository.findById(loanId)
             .orElseThrow(() -> new RuntimeException("Loan not found"));
@@ -173,40 +498,119 @@ public class LoanService {
         }
         
         loan.setDueDate(loan.getDueDate().plusDays(14));
-        return loanRepository.save(loan);
+        Loan saved = loanRepository.saveAndFlush(loan);
+        outbox.loanRenewed(saved);
+        circulationCounters.dueDatesChanged(loan.getMember().getId());
+        dueDateScheduler.register(saved.getId(), saved.getDueDate());
+        catalogVersion.bump(CatalogVersion.Scope.LOANS);
+        return saved;
     }
 
+    @Transactional
     public void deleteLoan(Long loanId) {
         Loan loan = loanRepository.findById(loanId)
             .orElseThrow(() -> new RuntimeException("Loan not found"));
         
-        // If loan is active, make book available again
+        loanRepository.deleteById(loanId);
+        outbox.loanDeleted(loan);
+
+        // If loan is active, pass its copy on to the next holder or the shelf
         if (loan.getReturnDate() == null) {
-            Book book = loan.getBook();
-            book.setAvailable(true);
-            bookRepository.save(book);
+            loanRepository.flush();
+            circulationCounters.loanClosed(loan.getMember().getId());
+            copyInventory.returnCopy(loan.getCopyId());
+            holdService.passOn(loan.getBook().getId());
+            dueDateScheduler.cancel(loanId);
         }
-        
-        loanRepository.deleteById(loanId);
+        secondLevelCache.evictMemberLoans(loan.getMember().getId());
+        catalogVersion.bump(CatalogVersion.Scope.LOANS, CatalogVersion.Scope.BOOKS);
+    }
+
+    public List<LoanView> getAllLoans() {
+        return loanRepository.findAllViews();
+    }
+
+    // Must be consumed inside a transaction (see EntityStreamer)
+    public Stream<Loan> streamAllLoans() {
+        return loanRepository.streamAllOrderByBorrowDateDesc();
+    }
+
+    public CursorPage<LoanView> getLoansPage(String sort, String after, Integer limit) {
+        String sortKey = sort == null ? "borrowDate" : sort;
+        CursorCodec.Cursor cursor = CursorCodec.decode(after, sortKey);
+        int pageSize = CursorCodec.clampLimit(limit);
+        Pageable window = PageRequest.of(0, pageSize + 1);
+
+        List<LoanView> rows = switch (sortKey) {
+            case "borrowDate" -> loanRepository.findPageOrderByBorrowDateDesc(
+                cursor == null ? LATEST_DATE : LocalDate.parse(cursor.getValue()),
+                cursor == null ? Long.MAX_VALUE : cursor.getId(), window);
+            case "dueDate" -> loanRepository.findPageOrderByDueDate(
+                cursor == null ? EARLIEST_DATE : LocalDate.parse(cursor.getValue()),
+                cursor == null ? 0L : cursor.getId(), window);
+            default -> throw new RuntimeException("Unsupported sort: " + sortKey);
+        };
+        return toLoanPage(rows, pageSize, sortKey);
     }
 
-    public List<Loan> getAllLoans() {
-        return loanRepository.findAllByOrderByBorrowDateDesc();
+    private CursorPage<LoanView> toLoanPage(List<LoanView> rows, int pageSize, String sortKey) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null, sortKey);
+        }
+        List<LoanView> page = rows.subList(0, pageSize);
+        LoanView last = page.get(pageSize - 1);
+        LocalDate value = "dueDate".equals(sortKey) ? last.getDueDate() : last.getBorrowDate();
+        return new CursorPage<>(page, CursorCodec.encode(sortKey, value.toString(), last.getId()), sortKey);
     }
 
-    public List<Loan> searchLoansByMemberName(String name) {
-        return loanRepository.findByMemberNameContainingIgnoreCaseOrderByBorrowDateDesc(name);
+    public List<LoanView> searchLoansByMemberName(String name) {
+        return loanRepository.findViewsByMemberName(name);
     }
 
-    public List<Loan> getOverdueLoans() {
-        return loanRepository.findByReturnDateIsNullAndDueDateBefore(LocalDate.now());
+    public List<LoanView> getOverdueLoans() {
+        return loanRepository.findOverdueViews(LocalDate.now());
     }
 
-    public void updateOverdueLoansStatus() {
-        List<Loan> overdueLoans = getOverdueLoans();
-        for (Loan loan : overdueLoans) {
-            loan.calculateFine();
-            loanRepository.save(loan);
+    /**
+     * Moves one chunk of loans returned before the cutoff, oldest first, into
+     * loans_archive: the rows are locked, copied with INSERT ... SELECT and
+     * deleted in the same transaction. Returns the number of loans moved.
+     */
+    @Transactional
+    public int archiveReturnedChunk(LocalDate cutoff, int chunkSize) {
+        List<LoanArchiveRepository.ReturnedLoan> chunk = loanArchiveRepository.lockReturnedBefore(cutoff, chunkSize);
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        List<Long> loanIds = chunk.stream().map(LoanArchiveRepository.ReturnedLoan::getId).toList();
+        loanArchiveRepository.copyToArchive(loanIds, LocalDateTime.now());
+        loanArchiveRepository.deleteLoans(loanIds);
+
+        secondLevelCache.evictLoans(loanIds);
+        chunk.stream().map(LoanArchiveRepository.ReturnedLoan::getMemberId).distinct()
+            .forEach(secondLevelCache::evictMemberLoans);
+        catalogVersion.bump(CatalogVersion.Scope.LOANS);
+        return loanIds.size();
+    }
+
+    // One bounded chunk of the overdue sweep; the watermark advances in the same transaction as the rows it covers
+    @Transactional
+    public int sweepOverdueChunk(SweepWatermark watermark, int chunkSize) {
+        LocalDate today = watermark.getSweepDate();
+        LoanBatchRepository.DueKey after = watermark.getLastId() == null ? null
+            : new LoanBatchRepository.DueKey(watermark.getLastDueDate(), watermark.getLastId());
+        List<LoanBatchRepository.OverdueLoan> chunk = loanBatchRepository.lockOverdueChunk(today, after, chunkSize);
+
+        int updated = fineLedger.chargeOverdue(chunk, today);
+        if (chunk.size() == chunkSize) {
+            LoanBatchRepository.OverdueLoan last = chunk.get(chunk.size() - 1);
+            watermark.setLastDueDate(last.getDueDate());
+            watermark.setLastId(last.getId());
+        } else {
+            watermark.setCompleted(true);
         }
+        watermark.setUpdatedAt(LocalDateTime.now());
+        sweepWatermarkRepository.save(watermark);
+        return updated;
     }
 }
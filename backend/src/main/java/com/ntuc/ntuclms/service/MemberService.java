@@ -1,28 +1,51 @@
 // src/main/java/com/ntuc/ntuclms/service/MemberService.java
 package com.ntuc.ntuclms.service;
 
+import com.ntuc.ntuclms.dto.CursorPage;
+import com.ntuc.ntuclms.dto.MemberSummary;
 import com.ntuc.ntuclms.dto.RegisterRequest;
 import com.ntuc.ntuclms.entity.Member;
+import com.ntuc.ntuclms.entity.OutboxEvent;
+import com.ntuc.ntuclms.repository.ArchivedLoanRepository;
 import com.ntuc.ntuclms.repository.MemberRepository;
+import com.ntuc.ntuclms.util.CursorCodec;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class MemberService {
 
+    public static final int MAX_ACTIVE_LOANS = 3;
+
     @Autowired
     private MemberRepository memberRepository;
     
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private HoldService holdService;
+
+    @Autowired
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Autowired
+    private Outbox outbox;
+
     public Member getCurrentMember() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String username = auth.getName();
@@ -43,6 +66,7 @@ public class MemberService {
         return memberRepository.existsByEmail(email);
     }
 
+    @Transactional
     public Member createMember(RegisterRequest registerRequest) {
         Member member = new Member();
         member.setName(registerRequest.getName());
@@ -52,13 +76,17 @@ public class MemberService {
         member.setRole("ADMIN".equals(registerRequest.getRole()) ? Member.Role.ADMIN : Member.Role.USER);
         member.setMembershipStatus(Member.MembershipStatus.ACTIVE);
         member.setRegistrationDate(LocalDate.now());
-        return memberRepository.save(member);
+        Member saved = memberRepository.save(member);
+        outbox.member(OutboxEvent.Type.MEMBER_REGISTERED, saved);
+        catalogVersion.bump(CatalogVersion.Scope.MEMBERS);
+        return saved;
     }
 
     public Member getProfile() {
         return getCurrentMember();
     }
 
+    @Transactional
     public Member updateProfile(Member updatedMember) {
         Member current = getCurrentMember();
         
@@ -82,9 +110,13 @@ public class MemberService {
             current.setPassword(passwordEncoder.encode(updatedMember.getPassword()));
         }
         
-        return memberRepository.save(current);
+        Member saved = memberRepository.save(current);
+        outbox.member(OutboxEvent.Type.MEMBER_UPDATED, saved);
+        catalogVersion.bump(CatalogVersion.Scope.MEMBERS);
+        return saved;
     }
 
+    // Reads only the member row: the circulation counters stand in for walking the member's loans
     public boolean canBorrow(Member member) {
         // Check if member has active membership
         if (member.getMembershipStatus() != Member.MembershipStatus.ACTIVE) {
@@ -92,27 +124,58 @@ public class MemberService {
         }
         
         // Check if member has overdue books
-        long overdueLoans = member.getLoans().stream()
-            .filter(loan -> loan.getReturnDate() == null && loan.isOverdue())
-            .count();
-        
-        if (overdueLoans > 0) {
+        LocalDate earliestDue = member.getEarliestActiveDueDate();
+        if (earliestDue != null && LocalDate.now().isAfter(earliestDue)) {
             return false;
         }
         
         // Check if member has 3 or more active loans
-        long activeLoans = member.getLoans().stream()
-            .filter(loan -> loan.getReturnDate() == null)
-            .count();
-        
-        return activeLoans < 3;
+        return member.getActiveLoanCount() < MAX_ACTIVE_LOANS;
     }
 
     // Admin methods
-    public List<Member> getAllMembers() {
-        return memberRepository.findAll();
+    public List<MemberSummary> getAllMembers() {
+        return memberRepository.findAllSummaries();
     }
 
+    public long countMembers() {
+        return memberRepository.count();
+    }
+
+    // Must be consumed inside a transaction (see EntityStreamer)
+    public Stream<Member> streamAllMembers() {
+        return memberRepository.streamAllOrderById();
+    }
+
+    public CursorPage<MemberSummary> getMembersPage(String sort, String after, Integer limit) {
+        String sortKey = sort == null ? "id" : sort;
+        CursorCodec.Cursor cursor = CursorCodec.decode(after, sortKey);
+        int pageSize = CursorCodec.clampLimit(limit);
+        Pageable window = PageRequest.of(0, pageSize + 1);
+        long afterId = cursor == null ? 0L : cursor.getId();
+        String afterValue = cursor == null ? "" : cursor.getValue();
+
+        List<MemberSummary> rows = switch (sortKey) {
+            case "id" -> memberRepository.findPageOrderById(afterId, window);
+            case "name" -> memberRepository.findPageOrderByName(afterValue, afterId, window);
+            case "username" -> memberRepository.findPageOrderByUsername(afterValue, afterId, window);
+            default -> throw new RuntimeException("Unsupported sort: " + sortKey);
+        };
+
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null, sortKey);
+        }
+        List<MemberSummary> page = rows.subList(0, pageSize);
+        MemberSummary last = page.get(pageSize - 1);
+        String value = switch (sortKey) {
+            case "name" -> last.getName();
+            case "username" -> last.getUsername();
+            default -> null;
+        };
+        return new CursorPage<>(page, CursorCodec.encode(sortKey, value, last.getId()), sortKey);
+    }
+
+    @Transactional
     public Member addMember(Member member) {
         member.setPassword(passwordEncoder.encode(member.getPassword()));
         member.setRegistrationDate(LocalDate.now());
@@ -122,13 +185,23 @@ public class MemberService {
         if (member.getMembershipStatus() == null) {
             member.setMembershipStatus(Member.MembershipStatus.ACTIVE);
         }
-        return memberRepository.save(member);
+        Member saved = memberRepository.save(member);
+        outbox.member(OutboxEvent.Type.MEMBER_REGISTERED, saved);
+        catalogVersion.bump(CatalogVersion.Scope.MEMBERS);
+        return saved;
     }
 
+    // Books kept aside for the member's holds go on to the next holder
+    @Transactional
     public void deleteMember(Long id) {
+        holdService.removeMemberHolds(id);
+        archivedLoanRepository.deleteByMemberId(id);
         memberRepository.deleteById(id);
+        outbox.memberDeleted(id);
+        catalogVersion.bump(CatalogVersion.Scope.MEMBERS, CatalogVersion.Scope.LOANS);
     }
 
+    @Transactional
     public Member updateMember(Long id, Member updatedMember) {
         Member member = memberRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Member not found"));
@@ -143,22 +216,38 @@ public class MemberService {
             member.setPassword(passwordEncoder.encode(updatedMember.getPassword()));
         }
         
-        return memberRepository.save(member);
+        Member saved = memberRepository.save(member);
+        outbox.member(OutboxEvent.Type.MEMBER_UPDATED, saved);
+        catalogVersion.bump(CatalogVersion.Scope.MEMBERS);
+        return saved;
     }
 
+    @Transactional
     public Member renewMembership(Long id) {
         Member member = memberRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Member not found"));
         member.setRegistrationDate(LocalDate.now());
         member.setMembershipStatus(Member.MembershipStatus.ACTIVE);
-        return memberRepository.save(member);
+        Member saved = memberRepository.save(member);
+        outbox.member(OutboxEvent.Type.MEMBERSHIP_RENEWED, saved);
+        catalogVersion.bump(CatalogVersion.Scope.MEMBERS);
+        return saved;
     }
 
     public Optional<Member> findById(Long id) {
         return memberRepository.findById(id);
     }
 
-    public List<Member> searchByName(String name) {
-        return memberRepository.findByNameContainingIgnoreCase(name);
+    public Optional<MemberSummary> findSummaryById(Long id) {
+        return memberRepository.findSummaryById(id);
+    }
+
+    public MemberSummary getSummary(Member member) {
+        return findSummaryById(member.getId())
+            .orElseThrow(() -> new RuntimeException("Member not found"));
+    }
+
+    public List<MemberSummary> searchByName(String name) {
+        return memberRepository.findSummariesByNameContaining(name);
     }
 }
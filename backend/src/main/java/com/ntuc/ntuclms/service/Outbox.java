@@ -0,0 +1,96 @@
+package com.ntuc.ntuclms.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ntuc.ntuclms.entity.Loan;
+import com.ntuc.ntuclms.entity.Member;
+import com.ntuc.ntuclms.entity.OutboxEvent;
+import com.ntuc.ntuclms.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records circulation and membership changes as outbox rows. An append
+ * must join the transaction making the change, so the event commits or
+ * rolls back with it; OutboxRelay publishes committed events afterwards.
+ */
+@Component
+public class Outbox {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void loanOpened(Loan loan) {
+        append(OutboxEvent.Type.LOAN_OPENED, loan.getMember().getId(), loan.getId(), loan.getBook().getId(),
+            detail("dueDate", loan.getDueDate()));
+    }
+
+    // For loans inserted without an entity (batch checkout)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void loanOpened(Long memberId, Long loanId, Long bookId, LocalDate dueDate) {
+        append(OutboxEvent.Type.LOAN_OPENED, memberId, loanId, bookId, detail("dueDate", dueDate));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void loanRenewed(Loan loan) {
+        append(OutboxEvent.Type.LOAN_RENEWED, loan.getMember().getId(), loan.getId(), loan.getBook().getId(),
+            detail("dueDate", loan.getDueDate(), "renewalCount", loan.getRenewalCount()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void loanReturned(Loan loan) {
+        append(OutboxEvent.Type.LOAN_RETURNED, loan.getMember().getId(), loan.getId(), loan.getBook().getId(),
+            detail("returnDate", loan.getReturnDate(), "fine", loan.getFine()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void loanDeleted(Loan loan) {
+        append(OutboxEvent.Type.LOAN_DELETED, loan.getMember().getId(), loan.getId(), loan.getBook().getId(),
+            detail("wasOpen", loan.getReturnDate() == null));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void member(OutboxEvent.Type type, Member member) {
+        append(type, member.getId(), null, null,
+            detail("username", member.getUsername(), "membershipStatus", member.getMembershipStatus()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void memberDeleted(Long memberId) {
+        append(OutboxEvent.Type.MEMBER_DELETED, memberId, null, null, null);
+    }
+
+    private void append(OutboxEvent.Type type, Long memberId, Long loanId, Long bookId, Map<String, Object> detail) {
+        OutboxEvent event = new OutboxEvent();
+        event.setType(type);
+        event.setMemberId(memberId);
+        event.setLoanId(loanId);
+        event.setBookId(bookId);
+        event.setOccurredAt(LocalDateTime.now());
+        try {
+            event.setDetail(detail == null ? null : objectMapper.writeValueAsString(detail));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize " + type + " event", e);
+        }
+        outboxEventRepository.save(event);
+    }
+
+    private static Map<String, Object> detail(Object... keysAndValues) {
+        Map<String, Object> detail = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            detail.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return detail;
+    }
+}
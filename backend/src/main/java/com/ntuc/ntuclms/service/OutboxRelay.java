@@ -0,0 +1,196 @@
+package com.ntuc.ntuclms.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ntuc.ntuclms.dto.CirculationEvent;
+import com.ntuc.ntuclms.entity.OutboxEvent;
+import com.ntuc.ntuclms.exception.ConflictException;
+import com.ntuc.ntuclms.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes committed outbox events in id order, one batch at a time: the
+ * batch is appended to the EventLog, marked published, then handed to the
+ * OutboxSubscribers. Events touching the same loan or member are written
+ * under that row's lock, so their ids follow commit order and they are
+ * published in the order they happened.
+ *
+ * A crash between the log append and the mark leaves a batch that is in
+ * the log but still pending; before publishing anything the relay marks
+ * the log's most recent events published, so the log never repeats one.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final TypeReference<Map<String, Object>> DETAIL = new TypeReference<>() {
+    };
+    private static final int RECONCILE_CHUNK = 1000;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private EventLog eventLog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired(required = false)
+    private List<OutboxSubscriber> subscribers = new ArrayList<>();
+
+    @Value("${outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${outbox.retention-days:7}")
+    private int retentionDays;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong published = new AtomicLong();
+    private final Map<String, AtomicLong> subscriberFailures = new ConcurrentHashMap<>();
+    private volatile boolean reconciled;
+    private volatile LocalDateTime lastPublishedAt;
+
+    @Scheduled(initialDelayString = "${outbox.poll-ms:1000}", fixedDelayString = "${outbox.poll-ms:1000}")
+    public void scheduledRelay() {
+        if (!running.get()) {
+            try {
+                relay();
+            } catch (RuntimeException e) {
+                log.warn("Outbox relay stopped: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Publishes pending events until none are left; returns how many were published
+    public int relay() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConflictException("The outbox relay is already running");
+        }
+        try {
+            if (!reconciled) {
+                reconcile();
+            }
+            int total = 0;
+            int count;
+            do {
+                count = publishBatch();
+                total += count;
+            } while (count == batchSize);
+            return total;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void reconcile() {
+        List<Long> logged = eventLog.getRecentEventIds();
+        LocalDateTime now = LocalDateTime.now();
+        int marked = 0;
+        for (int from = 0; from < logged.size(); from += RECONCILE_CHUNK) {
+            List<Long> chunk = logged.subList(from, Math.min(from + RECONCILE_CHUNK, logged.size()));
+            Integer count = transactionTemplate.execute(status -> outboxEventRepository.markPublished(chunk, now));
+            marked += count == null ? 0 : count;
+        }
+        if (marked > 0) {
+            log.warn("Marked {} outbox events published that were already in the event log", marked);
+        }
+        reconciled = true;
+    }
+
+    private int publishBatch() {
+        List<OutboxEvent> pending = transactionTemplate.execute(status ->
+            outboxEventRepository.findPending(PageRequest.of(0, batchSize)));
+        if (pending == null || pending.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<CirculationEvent> events = pending.stream().map(event -> toEvent(event, now)).toList();
+        List<Long> ids = pending.stream().map(OutboxEvent::getId).toList();
+
+        eventLog.append(events);
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.markPublished(ids, now));
+        } catch (RuntimeException e) {
+            // The batch is logged but still pending; reconcile before the next attempt
+            reconciled = false;
+            throw e;
+        }
+        published.addAndGet(events.size());
+        lastPublishedAt = now;
+        deliver(events);
+        return events.size();
+    }
+
+    private void deliver(List<CirculationEvent> events) {
+        for (OutboxSubscriber subscriber : subscribers) {
+            try {
+                subscriber.onEvents(events);
+            } catch (RuntimeException e) {
+                subscriberFailures.computeIfAbsent(name(subscriber), name -> new AtomicLong()).incrementAndGet();
+                log.warn("Subscriber {} failed on events {}-{}: {}", name(subscriber),
+                    events.get(0).getSequence(), events.get(events.size() - 1).getSequence(), e.getMessage());
+            }
+        }
+    }
+
+    private CirculationEvent toEvent(OutboxEvent event, LocalDateTime publishedAt) {
+        try {
+            return new CirculationEvent(0, event.getId(), event.getType(), event.getMemberId(), event.getLoanId(),
+                event.getBookId(), event.getDetail() == null ? null : objectMapper.readValue(event.getDetail(), DETAIL),
+                event.getOccurredAt(), publishedAt);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Unreadable detail on outbox event " + event.getId(), e);
+        }
+    }
+
+    // Published rows only bridge the gap until the log is synced; the log keeps the history
+    @Scheduled(cron = "${outbox.purge-cron:0 0 4 * * *}")
+    public void purgePublished() {
+        Integer deleted = transactionTemplate.execute(status ->
+            outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minusDays(retentionDays)));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} published outbox events older than {} days", deleted, retentionDays);
+        }
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("pending", outboxEventRepository.countByPublishedAtIsNull());
+        status.put("publishedSinceStartup", published.get());
+        status.put("lastSequence", eventLog.getLastSequence());
+        status.put("lastPublishedAt", lastPublishedAt);
+        Map<String, Object> failures = new LinkedHashMap<>();
+        for (OutboxSubscriber subscriber : subscribers) {
+            AtomicLong count = subscriberFailures.get(name(subscriber));
+            failures.put(name(subscriber), count == null ? 0 : count.get());
+        }
+        status.put("subscriberFailures", failures);
+        return status;
+    }
+
+    private static String name(OutboxSubscriber subscriber) {
+        return subscriber.getClass().getSimpleName();
+    }
+}
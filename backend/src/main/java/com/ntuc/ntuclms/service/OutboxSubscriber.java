@@ -0,0 +1,18 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.dto.CirculationEvent;
+
+import java.util.List;
+
+/**
+ * In-process consumer of published circulation events. Any bean
+ * implementing this receives every relayed batch, in log order, on the
+ * relay thread and outside any transaction. Delivery is at most once: a
+ * batch a subscriber throws on is not retried, and nothing is delivered
+ * across a restart, so subscribers that must not miss events catch up from
+ * the event log by sequence.
+ */
+public interface OutboxSubscriber {
+
+    void onEvents(List<CirculationEvent> events);
+}
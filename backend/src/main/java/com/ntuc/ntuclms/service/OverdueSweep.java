@@ -0,0 +1,104 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.dto.SweepReport;
+import com.ntuc.ntuclms.entity.SweepWatermark;
+import com.ntuc.ntuclms.exception.ConflictException;
+import com.ntuc.ntuclms.repository.SweepWatermarkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Marks open loans past their due date as OVERDUE and recomputes their
+ * fines with set-based UPDATEs, one bounded chunk per transaction in
+ * (due_date, id) order. Each chunk commits the watermark with its rows, so
+ * a run interrupted by a restart picks up at the next chunk. Fines grow
+ * daily, so each day's run starts over from the earliest due date.
+ */
+@Component
+public class OverdueSweep {
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueSweep.class);
+
+    static final String WATERMARK = "overdue-loans";
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private SweepWatermarkRepository sweepWatermarkRepository;
+
+    @Value("${overdue-sweep.chunk-size:1000}")
+    private int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile SweepReport lastReport;
+
+    // Runs hourly but only does work once per day, so a day missed while the app was down is caught up
+    @Scheduled(cron = "${overdue-sweep.cron:0 15 * * * *}")
+    public void scheduledSweep() {
+        if (!running.get()) {
+            sweep(false);
+        }
+    }
+
+    // With force, a day's sweep that already completed is run again from the start
+    public SweepReport sweep(boolean force) {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConflictException("An overdue sweep is already running");
+        }
+        try {
+            return run(force);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public SweepReport getLastReport() {
+        return lastReport;
+    }
+
+    private SweepReport run(boolean force) {
+        LocalDate today = LocalDate.now();
+        SweepWatermark watermark = sweepWatermarkRepository.findById(WATERMARK)
+            .orElseGet(() -> new SweepWatermark(WATERMARK));
+
+        SweepReport report = new SweepReport();
+        report.setSweepDate(today);
+        report.setStartedAt(LocalDateTime.now());
+        if (!today.equals(watermark.getSweepDate()) || (watermark.isCompleted() && force)) {
+            watermark.restart(today);
+        } else if (watermark.isCompleted()) {
+            report.setCompleted(true);
+            return report;
+        } else {
+            report.setResumed(watermark.getLastId() != null);
+        }
+
+        long started = System.currentTimeMillis();
+        try {
+            while (!watermark.isCompleted()) {
+                long chunkStarted = System.currentTimeMillis();
+                report.setUpdated(report.getUpdated() + loanService.sweepOverdueChunk(watermark, chunkSize));
+                report.setChunks(report.getChunks() + 1);
+                report.setSlowestChunkMillis(Math.max(report.getSlowestChunkMillis(),
+                    System.currentTimeMillis() - chunkStarted));
+            }
+            report.setCompleted(true);
+        } finally {
+            report.setElapsedMillis(System.currentTimeMillis() - started);
+            lastReport = report;
+            log.info("Overdue sweep for {}: {} loans updated in {} chunks, {} ms (slowest chunk {} ms){}",
+                today, report.getUpdated(), report.getChunks(), report.getElapsedMillis(),
+                report.getSlowestChunkMillis(), report.isCompleted() ? "" : ", interrupted");
+        }
+        return report;
+    }
+}
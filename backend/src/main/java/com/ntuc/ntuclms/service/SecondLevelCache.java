@@ -0,0 +1,94 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.entity.Loan;
+import com.ntuc.ntuclms.entity.Member;
+import com.ntuc.ntuclms.util.TransactionHooks;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Hooks into the Hibernate second-level cache: evictions Hibernate cannot
+ * infer on its own, and hit/miss statistics per region for the admin API.
+ * Inside a transaction evictions wait for commit so readers cannot
+ * re-cache the old state.
+ */
+@Component
+public class SecondLevelCache {
+
+    private static final String MEMBER_LOANS = Member.class.getName() + ".loans";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Member.loans is the inverse side, so saving or deleting a Loan does not invalidate it
+    public void evictMemberLoans(Long memberId) {
+        TransactionHooks.afterCommit(() -> cache().evictCollectionData(MEMBER_LOANS, memberId));
+    }
+
+    // Rows written with plain JDBC bypass Hibernate, which would otherwise keep serving the old state
+    public void evictBooks(Collection<Long> bookIds) {
+        TransactionHooks.afterCommit(() -> bookIds.forEach(id -> cache().evictEntityData(Book.class, id)));
+    }
+
+    public void evictMember(Long memberId) {
+        TransactionHooks.afterCommit(() -> cache().evictEntityData(Member.class, memberId));
+    }
+
+    public void evictMembers() {
+        TransactionHooks.afterCommit(() -> cache().evictEntityData(Member.class));
+    }
+
+    public void evictLoans(Collection<Long> loanIds) {
+        TransactionHooks.afterCommit(() -> loanIds.forEach(id -> cache().evictEntityData(Loan.class, id)));
+    }
+
+    private Cache cache() {
+        return entityManagerFactory.getCache().unwrap(Cache.class);
+    }
+
+    public Map<String, Object> statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String name : new TreeSet<>(Arrays.asList(statistics.getSecondLevelCacheRegionNames()))) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+            if (region != null) {
+                regions.put(name, counters(region.getHitCount(), region.getMissCount(), region.getPutCount(),
+                    region.getElementCountInMemory()));
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        result.put("regions", regions);
+        result.put("queryCache", counters(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+            statistics.getQueryCachePutCount(), -1));
+        result.put("secondLevelCache", counters(statistics.getSecondLevelCacheHitCount(),
+            statistics.getSecondLevelCacheMissCount(), statistics.getSecondLevelCachePutCount(), -1));
+        result.put("databaseQueries", statistics.getPrepareStatementCount());
+        return result;
+    }
+
+    private static Map<String, Object> counters(long hits, long misses, long puts, long size) {
+        Map<String, Object> counters = new LinkedHashMap<>();
+        counters.put("hits", hits);
+        counters.put("misses", misses);
+        counters.put("puts", puts);
+        counters.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        if (size >= 0) {
+            counters.put("size", size);
+        }
+        return counters;
+    }
+}
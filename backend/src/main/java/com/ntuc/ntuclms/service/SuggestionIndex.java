@@ -0,0 +1,117 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.repository.BookRepository;
+import com.ntuc.ntuclms.util.RadixTrie;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Typeahead completions for titles and authors, kept in sync by BookService
+@Component
+public class SuggestionIndex {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private RadixTrie titles = new RadixTrie();
+    private RadixTrie authors = new RadixTrie();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        RadixTrie rebuiltTitles = new RadixTrie();
+        RadixTrie rebuiltAuthors = new RadixTrie();
+        for (Object[] row : bookRepository.findAllTitleAndAuthor()) {
+            addAll(rebuiltTitles, (String) row[0]);
+            addAll(rebuiltAuthors, (String) row[1]);
+        }
+        lock.writeLock().lock();
+        try {
+            titles = rebuiltTitles;
+            authors = rebuiltAuthors;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<String> suggestTitles(String prefix, int limit) {
+        return suggest(titles, prefix, limit);
+    }
+
+    public List<String> suggestAuthors(String prefix, int limit) {
+        return suggest(authors, prefix, limit);
+    }
+
+    public void onBookAdded(String title, String author) {
+        lock.writeLock().lock();
+        try {
+            addAll(titles, title);
+            addAll(authors, author);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onBookRemoved(String title, String author) {
+        lock.writeLock().lock();
+        try {
+            removeAll(titles, title);
+            removeAll(authors, author);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<String> suggest(RadixTrie trie, String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return trie.topK(key, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // "Effective Java" is reachable from "eff..." and from "jav..."
+    private static void addAll(RadixTrie trie, String value) {
+        if (value == null) {
+            return;
+        }
+        for (String key : wordStartKeys(value)) {
+            trie.add(key, value.trim());
+        }
+    }
+
+    private static void removeAll(RadixTrie trie, String value) {
+        if (value == null) {
+            return;
+        }
+        for (String key : wordStartKeys(value)) {
+            trie.remove(key, value.trim());
+        }
+    }
+
+    private static List<String> wordStartKeys(String value) {
+        String normalized = normalize(value);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < normalized.length(); i++) {
+            if (i == 0 || normalized.charAt(i - 1) == ' ') {
+                keys.add(normalized.substring(i));
+            }
+        }
+        return keys;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,58 @@
+package com.ntuc.ntuclms.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes keyset pagination positions as opaque URL-safe cursors. A cursor
+ * records the sort it was issued for, the sort key of the last row returned
+ * and that row's id (the tie-breaker), so the next page is a pure index seek.
+ */
+public final class CursorCodec {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private CursorCodec() {
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Cursor {
+        private String sort;
+        private String value;
+        private long id;
+    }
+
+    public static String encode(String sort, String value, long id) {
+        String raw = sort + "\n" + id + "\n" + (value == null ? "" : value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns null for a missing cursor (first page)
+    public static Cursor decode(String cursor, String expectedSort) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\n", 3);
+            if (parts.length != 3 || !parts[0].equals(expectedSort)) {
+                throw new RuntimeException("Cursor does not match sort " + expectedSort);
+            }
+            return new Cursor(parts[0], parts[2], Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    public static int clampLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
@@ -0,0 +1,105 @@
+package com.ntuc.ntuclms.util;
+
+public final class IsbnUtil {
+
+    // Returned when the input is not a well-formed ISBN-10/13 with a valid checksum
+    public static final long INVALID = -1L;
+
+    private IsbnUtil() {
+    }
+
+    /**
+     * Normalizes an ISBN-10 or ISBN-13 (hyphens and spaces allowed) to the
+     * 13 digits of its ISBN-13 form packed into a long, e.g. "0-13-468599-7"
+     * and "978-0134685991" both map to 9780134685991L.
+     */
+    public static long toKey(String isbn) {
+        if (isbn == null) {
+            return INVALID;
+        }
+        int[] digits = new int[13];
+        int count = 0;
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            if (count == 13) {
+                return INVALID;
+            }
+            if (c >= '0' && c <= '9') {
+                digits[count++] = c - '0';
+            } else if ((c == 'X' || c == 'x') && count == 9) {
+                // 'X' is only legal as the ISBN-10 check digit
+                digits[count++] = 10;
+            } else {
+                return INVALID;
+            }
+        }
+        if (count == 10) {
+            return isbn10ToKey(digits);
+        }
+        if (count == 13) {
+            return isbn13ToKey(digits);
+        }
+        return INVALID;
+    }
+
+    public static boolean isValid(String isbn) {
+        return toKey(isbn) != INVALID;
+    }
+
+    // Canonical 13-digit string for a key produced by toKey
+    public static String format(long key) {
+        return String.format("%013d", key);
+    }
+
+    private static long isbn10ToKey(int[] digits) {
+        int sum = 0;
+        for (int i = 0; i < 10; i++) {
+            if (digits[i] == 10 && i != 9) {
+                return INVALID;
+            }
+            sum += digits[i] * (10 - i);
+        }
+        if (sum % 11 != 0) {
+            return INVALID;
+        }
+        // Re-prefix with 978 and recompute the ISBN-13 check digit
+        int[] converted = new int[13];
+        converted[0] = 9;
+        converted[1] = 7;
+        converted[2] = 8;
+        System.arraycopy(digits, 0, converted, 3, 9);
+        converted[12] = isbn13CheckDigit(converted);
+        return pack(converted);
+    }
+
+    private static long isbn13ToKey(int[] digits) {
+        for (int digit : digits) {
+            if (digit == 10) {
+                return INVALID;
+            }
+        }
+        if (isbn13CheckDigit(digits) != digits[12]) {
+            return INVALID;
+        }
+        return pack(digits);
+    }
+
+    private static int isbn13CheckDigit(int[] digits) {
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += digits[i] * ((i % 2 == 0) ? 1 : 3);
+        }
+        return (10 - (sum % 10)) % 10;
+    }
+
+    private static long pack(int[] digits) {
+        long key = 0;
+        for (int i = 0; i < 13; i++) {
+            key = key * 10 + digits[i];
+        }
+        return key;
+    }
+}
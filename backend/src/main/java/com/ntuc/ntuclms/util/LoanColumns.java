@@ -0,0 +1,250 @@
+package com.ntuc.ntuclms.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Immutable column store of loans: one primitive array per attribute, with
+ * dates as epoch days, fines in cents and authors dictionary-encoded. Rows
+ * are sorted by borrow day, so a borrow-date filter is a binary search for
+ * a row range rather than a predicate on every row. Aggregations run as
+ * fork-join scans: the row range is split until pieces are small enough,
+ * each piece fills its own accumulator and the accumulators are merged
+ * pairwise on the way back up.
+ */
+public class LoanColumns {
+
+    // returnDay of a loan that is still open
+    public static final int OPEN = Integer.MAX_VALUE;
+
+    // Pieces are at least this many rows, and there are at most a few per worker
+    private static final int MIN_SPLIT = 1 << 16;
+    private static final int PIECES_PER_WORKER = 4;
+
+    private final int size;
+    private final int[] bookIds;
+    private final int[] memberIds;
+    private final int[] authorCodes;
+    private final int[] borrowDays;
+    private final int[] dueDays;
+    private final int[] returnDays;
+    private final int[] fineCents;
+    private final byte[] renewals;
+    private final String[] authors;
+
+    /**
+     * Folds a contiguous row range into an accumulator. accumulate must only
+     * touch its own accumulator, since ranges are scanned concurrently.
+     */
+    public interface Aggregator<A> {
+        A create();
+
+        void accumulate(A accumulator, LoanColumns columns, int fromRow, int toRow);
+
+        A merge(A left, A right);
+    }
+
+    private LoanColumns(int size, int[] bookIds, int[] memberIds, int[] authorCodes, int[] borrowDays, int[] dueDays,
+                        int[] returnDays, int[] fineCents, byte[] renewals, String[] authors) {
+        this.size = size;
+        this.bookIds = bookIds;
+        this.memberIds = memberIds;
+        this.authorCodes = authorCodes;
+        this.borrowDays = borrowDays;
+        this.dueDays = dueDays;
+        this.returnDays = returnDays;
+        this.fineCents = fineCents;
+        this.renewals = renewals;
+        this.authors = authors;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Column accessors hand out the arrays themselves for scanning; callers must not write to them
+
+    public int[] bookIds() {
+        return bookIds;
+    }
+
+    public int[] memberIds() {
+        return memberIds;
+    }
+
+    public int[] authorCodes() {
+        return authorCodes;
+    }
+
+    public int[] borrowDays() {
+        return borrowDays;
+    }
+
+    public int[] dueDays() {
+        return dueDays;
+    }
+
+    public int[] returnDays() {
+        return returnDays;
+    }
+
+    public int[] fineCents() {
+        return fineCents;
+    }
+
+    public byte[] renewals() {
+        return renewals;
+    }
+
+    public int authorCount() {
+        return authors.length;
+    }
+
+    public String author(int code) {
+        return authors[code];
+    }
+
+    // First row borrowed on or after the given day (size if none)
+    public int firstRowOnOrAfter(int day) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (borrowDays[mid] < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Scans rows borrowed between the two days, inclusive
+    public <A> A scan(ForkJoinPool pool, int fromDay, int toDay, Aggregator<A> aggregator) {
+        int fromRow = firstRowOnOrAfter(fromDay);
+        int toRow = toDay == Integer.MAX_VALUE ? size : firstRowOnOrAfter(toDay + 1);
+        if (fromRow >= toRow) {
+            return aggregator.create();
+        }
+        int threshold = Math.max(MIN_SPLIT, (toRow - fromRow) / (pool.getParallelism() * PIECES_PER_WORKER));
+        return pool.invoke(new ScanTask<>(this, aggregator, fromRow, toRow, threshold));
+    }
+
+    private static final class ScanTask<A> extends RecursiveTask<A> {
+        private final LoanColumns columns;
+        private final Aggregator<A> aggregator;
+        private final int fromRow;
+        private final int toRow;
+        private final int threshold;
+
+        ScanTask(LoanColumns columns, Aggregator<A> aggregator, int fromRow, int toRow, int threshold) {
+            this.columns = columns;
+            this.aggregator = aggregator;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected A compute() {
+            if (toRow - fromRow <= threshold) {
+                A accumulator = aggregator.create();
+                aggregator.accumulate(accumulator, columns, fromRow, toRow);
+                return accumulator;
+            }
+            int mid = (fromRow + toRow) >>> 1;
+            ScanTask<A> left = new ScanTask<>(columns, aggregator, fromRow, mid, threshold);
+            left.fork();
+            A right = new ScanTask<>(columns, aggregator, mid, toRow, threshold).compute();
+            return aggregator.merge(left.join(), right);
+        }
+    }
+
+    /**
+     * Collects rows in any order; build sorts them by borrow day. Not
+     * thread-safe, and not reusable once built.
+     */
+    public static class Builder {
+        private int size;
+        private int[] bookIds = new int[1024];
+        private int[] memberIds = new int[1024];
+        private int[] authorCodes = new int[1024];
+        private int[] borrowDays = new int[1024];
+        private int[] dueDays = new int[1024];
+        private int[] returnDays = new int[1024];
+        private int[] fineCents = new int[1024];
+        private byte[] renewals = new byte[1024];
+        private final Map<String, Integer> authorCodeByName = new HashMap<>();
+
+        public void add(int bookId, int memberId, String author, int borrowDay, int dueDay, int returnDay,
+                        int fineCents, int renewals) {
+            if (size == bookIds.length) {
+                grow();
+            }
+            this.bookIds[size] = bookId;
+            this.memberIds[size] = memberId;
+            this.authorCodes[size] = authorCodeByName.computeIfAbsent(author, name -> authorCodeByName.size());
+            this.borrowDays[size] = borrowDay;
+            this.dueDays[size] = dueDay;
+            this.returnDays[size] = returnDay;
+            this.fineCents[size] = fineCents;
+            this.renewals[size] = (byte) Math.min(renewals, Byte.MAX_VALUE);
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public LoanColumns build() {
+            // Sort keys carry the row index in the low bits, so one primitive sort yields the permutation
+            long[] order = new long[size];
+            for (int row = 0; row < size; row++) {
+                order[row] = ((long) borrowDays[row] << 32) | row;
+            }
+            Arrays.parallelSort(order);
+            int[] permutation = new int[size];
+            for (int row = 0; row < size; row++) {
+                permutation[row] = (int) order[row];
+            }
+
+            String[] authors = new String[authorCodeByName.size()];
+            authorCodeByName.forEach((name, code) -> authors[code] = name);
+            return new LoanColumns(size, permute(bookIds, permutation), permute(memberIds, permutation),
+                permute(authorCodes, permutation), permute(borrowDays, permutation), permute(dueDays, permutation),
+                permute(returnDays, permutation), permute(fineCents, permutation), permute(renewals, permutation),
+                authors);
+        }
+
+        private void grow() {
+            int capacity = bookIds.length * 2;
+            bookIds = Arrays.copyOf(bookIds, capacity);
+            memberIds = Arrays.copyOf(memberIds, capacity);
+            authorCodes = Arrays.copyOf(authorCodes, capacity);
+            borrowDays = Arrays.copyOf(borrowDays, capacity);
+            dueDays = Arrays.copyOf(dueDays, capacity);
+            returnDays = Arrays.copyOf(returnDays, capacity);
+            fineCents = Arrays.copyOf(fineCents, capacity);
+            renewals = Arrays.copyOf(renewals, capacity);
+        }
+
+        private static int[] permute(int[] column, int[] permutation) {
+            int[] sorted = new int[permutation.length];
+            for (int row = 0; row < permutation.length; row++) {
+                sorted[row] = column[permutation[row]];
+            }
+            return sorted;
+        }
+
+        private static byte[] permute(byte[] column, int[] permutation) {
+            byte[] sorted = new byte[permutation.length];
+            for (int row = 0; row < permutation.length; row++) {
+                sorted[row] = column[permutation[row]];
+            }
+            return sorted;
+        }
+    }
+}
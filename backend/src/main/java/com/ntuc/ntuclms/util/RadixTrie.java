@@ -0,0 +1,267 @@
+package com.ntuc.ntuclms.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Compressed (radix) trie mapping lower-cased keys to the display strings
+ * added under them, each with its own count; several titles can share a
+ * key ("java" for both "Effective Java" and "Core Java"). Each node caches
+ * the highest count in its subtree, so top-k completions are found
+ * best-first without walking the whole subtree.
+ * Not thread-safe; callers guard concurrent access.
+ */
+public class RadixTrie {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node("");
+    private int size;
+
+    private static class Node {
+        String label;
+        char[] keys = NO_KEYS;        // first char of each child label, sorted
+        Node[] children = NO_CHILDREN;
+        Map<String, Integer> displays; // count per display string of the keys ending here, or null
+        int best;                      // max display count in this subtree
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int indexOf(char c) {
+            return Arrays.binarySearch(keys, c);
+        }
+
+        void addChild(Node child) {
+            int insertAt = -(indexOf(child.label.charAt(0)) + 1);
+            keys = insert(keys, insertAt, child.label.charAt(0));
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, insertAt);
+            grown[insertAt] = child;
+            System.arraycopy(children, insertAt, grown, insertAt + 1, children.length - insertAt);
+            children = grown;
+        }
+
+        void removeChild(int index) {
+            char[] shrunkKeys = new char[keys.length - 1];
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(keys, 0, shrunkKeys, 0, index);
+            System.arraycopy(keys, index + 1, shrunkKeys, index, keys.length - index - 1);
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            keys = shrunkKeys.length == 0 ? NO_KEYS : shrunkKeys;
+            children = shrunk.length == 0 ? NO_CHILDREN : shrunk;
+        }
+
+        boolean isKey() {
+            return displays != null;
+        }
+
+        void recomputeBest() {
+            int max = 0;
+            if (displays != null) {
+                for (int count : displays.values()) {
+                    max = Math.max(max, count);
+                }
+            }
+            for (Node child : children) {
+                max = Math.max(max, child.best);
+            }
+            best = max;
+        }
+
+        private static char[] insert(char[] array, int index, char value) {
+            char[] grown = new char[array.length + 1];
+            System.arraycopy(array, 0, grown, 0, index);
+            grown[index] = value;
+            System.arraycopy(array, index, grown, index + 1, array.length - index);
+            return grown;
+        }
+    }
+
+    // Adds one occurrence of display under key; repeats of the same pair accumulate weight
+    public void add(String key, String display) {
+        if (key.isEmpty()) {
+            return;
+        }
+        insert(root, key, 0, display);
+    }
+
+    // Removes one occurrence of display under key; returns false if it was not present
+    public boolean remove(String key, String display) {
+        if (key.isEmpty()) {
+            return false;
+        }
+        return delete(root, key, 0, display);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns up to k distinct display strings whose key starts with prefix,
+     * heaviest first (ties broken alphabetically).
+     */
+    public List<String> topK(String prefix, int k) {
+        Node start = find(prefix);
+        if (start == null || k <= 0) {
+            return List.of();
+        }
+        // Entries are either unexpanded subtrees (ranked by best) or terminal hits (ranked by weight)
+        PriorityQueue<Object[]> queue = new PriorityQueue<>((a, b) -> {
+            int byWeight = Integer.compare((int) b[1], (int) a[1]);
+            if (byWeight != 0) {
+                return byWeight;
+            }
+            // Expand subtrees of equal weight first so tied hits surface in alphabetical order
+            boolean aHit = a[0] instanceof String;
+            boolean bHit = b[0] instanceof String;
+            if (aHit != bHit) {
+                return aHit ? 1 : -1;
+            }
+            return aHit ? ((String) a[0]).compareTo((String) b[0]) : 0;
+        });
+        queue.add(new Object[]{start, start.best});
+        Set<String> results = new LinkedHashSet<>();
+        while (!queue.isEmpty() && results.size() < k) {
+            Object[] entry = queue.poll();
+            if (entry[0] instanceof String display) {
+                results.add(display);
+                continue;
+            }
+            Node node = (Node) entry[0];
+            if (node.isKey()) {
+                node.displays.forEach((display, count) -> queue.add(new Object[]{display, count}));
+            }
+            for (Node child : node.children) {
+                queue.add(new Object[]{child, child.best});
+            }
+        }
+        return new ArrayList<>(results);
+    }
+
+    private void insert(Node node, String key, int pos, String display) {
+        if (pos == key.length()) {
+            if (!node.isKey()) {
+                node.displays = new HashMap<>(2);
+                size++;
+            }
+            node.displays.merge(display, 1, Integer::sum);
+            node.recomputeBest();
+            return;
+        }
+        int index = node.indexOf(key.charAt(pos));
+        if (index < 0) {
+            Node leaf = new Node(key.substring(pos));
+            leaf.displays = new HashMap<>(2);
+            leaf.displays.put(display, 1);
+            leaf.best = 1;
+            node.addChild(leaf);
+            size++;
+            node.recomputeBest();
+            return;
+        }
+        Node child = node.children[index];
+        int common = commonPrefix(child.label, key, pos);
+        if (common < child.label.length()) {
+            // Split the edge so the shared prefix becomes its own node
+            Node split = new Node(child.label.substring(0, common));
+            child.label = child.label.substring(common);
+            split.addChild(child);
+            split.recomputeBest();
+            node.children[index] = split;
+            child = split;
+        }
+        insert(child, key, pos + common, display);
+        node.recomputeBest();
+    }
+
+    private boolean delete(Node node, String key, int pos, String display) {
+        int index = node.indexOf(key.charAt(pos));
+        if (index < 0) {
+            return false;
+        }
+        Node child = node.children[index];
+        if (!key.startsWith(child.label, pos)) {
+            return false;
+        }
+        int next = pos + child.label.length();
+        if (next == key.length()) {
+            Integer count = child.isKey() ? child.displays.get(display) : null;
+            if (count == null) {
+                return false;
+            }
+            if (count > 1) {
+                child.displays.put(display, count - 1);
+            } else {
+                child.displays.remove(display);
+                if (child.displays.isEmpty()) {
+                    child.displays = null;
+                    size--;
+                }
+            }
+            child.recomputeBest();
+        } else if (!delete(child, key, next, display)) {
+            return false;
+        }
+        compact(node, index);
+        node.recomputeBest();
+        return true;
+    }
+
+    // Drops empty leaves and merges pass-through nodes back into their single child
+    private void compact(Node parent, int index) {
+        Node child = parent.children[index];
+        if (child.isKey()) {
+            return;
+        }
+        if (child.children.length == 0) {
+            parent.removeChild(index);
+        } else if (child.children.length == 1) {
+            Node grandchild = child.children[0];
+            grandchild.label = child.label + grandchild.label;
+            parent.children[index] = grandchild;
+        }
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        int pos = 0;
+        while (pos < prefix.length()) {
+            int index = node.indexOf(prefix.charAt(pos));
+            if (index < 0) {
+                return null;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, prefix, pos);
+            if (pos + common == prefix.length()) {
+                // The prefix ends inside (or exactly at the end of) this edge
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            node = child;
+            pos += common;
+        }
+        return node;
+    }
+
+    private static int commonPrefix(String label, String key, int pos) {
+        int max = Math.min(label.length(), key.length() - pos);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(pos + i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,157 @@
+package com.ntuc.ntuclms.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel: timers are bucketed into levels of 64 slots,
+ * each level's slots spanning 64 times more ticks than the level below.
+ * Scheduling and cancelling are O(1); as time advances, the slots of a
+ * higher level are cascaded down once per rotation of the level below, so
+ * each timer is touched at most once per level before it expires. Deadlines
+ * beyond the top level's range wait in its last slot and are re-placed when
+ * it cascades. Each key has at most one pending timer; scheduling it again
+ * replaces the old deadline. Not thread-safe; callers guard concurrent access.
+ */
+public class TimingWheel<K> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private static final class Timer<K> {
+        final K key;
+        final long tick;
+        Timer<K> prev;
+        Timer<K> next;
+        int level;
+        int slot;
+
+        Timer(K key, long tick) {
+            this.key = key;
+            this.tick = tick;
+        }
+    }
+
+    private final long tickMillis;
+    private final int levels;
+    private final Timer<K>[][] slots;
+    private final Map<K, Timer<K>> timers = new HashMap<>();
+    // The next tick advance() will process; everything before it has already fired
+    private long nextTick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int levels, long startMillis) {
+        if (tickMillis <= 0 || levels < 1 || levels * SLOT_BITS >= Long.SIZE - 1) {
+            throw new IllegalArgumentException("Invalid wheel geometry");
+        }
+        this.tickMillis = tickMillis;
+        this.levels = levels;
+        this.slots = new Timer[levels][SLOTS];
+        this.nextTick = Math.floorDiv(startMillis, tickMillis) + 1;
+    }
+
+    // A deadline at or before the current time fires on the next advance
+    public void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        // Rounded up so a timer never fires before its deadline
+        Timer<K> timer = new Timer<>(key, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        timers.put(key, timer);
+        place(timer);
+    }
+
+    public boolean cancel(K key) {
+        Timer<K> timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        unlink(timer);
+        return true;
+    }
+
+    public boolean contains(K key) {
+        return timers.containsKey(key);
+    }
+
+    public int size() {
+        return timers.size();
+    }
+
+    // Processes every tick up to nowMillis and returns the keys whose timers expired, earliest tick first
+    public List<K> advance(long nowMillis) {
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        List<K> expired = new ArrayList<>();
+        while (nextTick <= target && !timers.isEmpty()) {
+            cascade(nextTick);
+            Timer<K> timer = detach(0, (int) (nextTick & SLOT_MASK));
+            while (timer != null) {
+                Timer<K> next = timer.next;
+                timers.remove(timer.key);
+                expired.add(timer.key);
+                timer = next;
+            }
+            nextTick++;
+        }
+        if (timers.isEmpty() && nextTick <= target) {
+            nextTick = target + 1;
+        }
+        return expired;
+    }
+
+    // Entering a new rotation of a level pulls the matching slot of the level above down
+    private void cascade(long tick) {
+        for (int level = 1; level < levels; level++) {
+            if ((tick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                return;
+            }
+            Timer<K> timer = detach(level, (int) ((tick >> (SLOT_BITS * level)) & SLOT_MASK));
+            while (timer != null) {
+                Timer<K> next = timer.next;
+                place(timer);
+                timer = next;
+            }
+        }
+    }
+
+    private void place(Timer<K> timer) {
+        long tick = Math.max(timer.tick, nextTick);
+        long delta = tick - nextTick;
+        int level = 0;
+        while (level < levels - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        if (delta >= 1L << (SLOT_BITS * levels)) {
+            // Out of range: park in the furthest slot and re-place when it cascades
+            tick = nextTick + (1L << (SLOT_BITS * levels)) - 1;
+        }
+        timer.level = level;
+        timer.slot = (int) ((tick >> (SLOT_BITS * level)) & SLOT_MASK);
+        timer.prev = null;
+        timer.next = slots[level][timer.slot];
+        if (timer.next != null) {
+            timer.next.prev = timer;
+        }
+        slots[level][timer.slot] = timer;
+    }
+
+    private void unlink(Timer<K> timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            slots[timer.level][timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = null;
+        timer.next = null;
+    }
+
+    private Timer<K> detach(int level, int slot) {
+        Timer<K> head = slots[level][slot];
+        slots[level][slot] = null;
+        return head;
+    }
+}
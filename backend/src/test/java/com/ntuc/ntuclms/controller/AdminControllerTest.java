@@ -1,10 +1,22 @@
 package com.ntuc.ntuclms.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ntuc.ntuclms.dto.MemberSummary;
 import com.ntuc.ntuclms.entity.Member;
 import com.ntuc.ntuclms.service.MemberService;
 import com.ntuc.ntuclms.service.BookService;
 import com.ntuc.ntuclms.service.LoanService;
+import com.ntuc.ntuclms.service.CatalogVersion;
+import com.ntuc.ntuclms.service.SecondLevelCache;
+import com.ntuc.ntuclms.service.OverdueSweep;
+import com.ntuc.ntuclms.service.FineLedger;
+import com.ntuc.ntuclms.service.CirculationDesk;
+import com.ntuc.ntuclms.service.CirculationStats;
+import com.ntuc.ntuclms.service.EventLog;
+import com.ntuc.ntuclms.service.LoanAnalytics;
+import com.ntuc.ntuclms.service.OutboxRelay;
+import com.ntuc.ntuclms.service.LoanArchiver;
+import com.ntuc.ntuclms.service.IdempotencyStore;
 import com.ntuc.ntuclms.util.JwtUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -43,6 +55,39 @@ public class AdminControllerTest {
     @MockBean
     private JwtUtil jwtUtil;
 
+    @MockBean
+    private CatalogVersion catalogVersion;
+
+    @MockBean
+    private SecondLevelCache secondLevelCache;
+
+    @MockBean
+    private OverdueSweep overdueSweep;
+
+    @MockBean
+    private FineLedger fineLedger;
+
+    @MockBean
+    private LoanArchiver loanArchiver;
+
+    @MockBean
+    private LoanAnalytics loanAnalytics;
+
+    @MockBean
+    private EventLog eventLog;
+
+    @MockBean
+    private OutboxRelay outboxRelay;
+
+    @MockBean
+    private CirculationStats circulationStats;
+
+    @MockBean
+    private CirculationDesk circulationDesk;
+
+    @MockBean
+    private IdempotencyStore idempotencyStore;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -82,6 +127,7 @@ public class AdminControllerTest {
         newUser.setRole(Member.Role.USER);
 
         when(memberService.addMember(any(Member.class))).thenReturn(testUser);
+        when(memberService.getSummary(testUser)).thenReturn(summaryOf(testUser));
 
         // When & Then
         mockMvc.perform(post("/api/admin/members")
@@ -107,6 +153,7 @@ public class AdminControllerTest {
         newAdmin.setRole(Member.Role.ADMIN);
 
         when(memberService.addMember(any(Member.class))).thenReturn(testAdmin);
+        when(memberService.getSummary(testAdmin)).thenReturn(summaryOf(testAdmin));
 
         // When & Then
         mockMvc.perform(post("/api/admin/members")
@@ -124,7 +171,7 @@ public class AdminControllerTest {
     @WithMockUser(roles = "ADMIN")
     public void testListAllUsers() throws Exception {
         // Given
-        List<Member> members = Arrays.asList(testUser, testAdmin);
+        List<MemberSummary> members = Arrays.asList(summaryOf(testUser), summaryOf(testAdmin));
         when(memberService.getAllMembers()).thenReturn(members);
 
         // When & Then
@@ -172,5 +219,9 @@ public class AdminControllerTest {
                 .content(objectMapper.writeValueAsString(newUser)))
                 .andExpect(status().isForbidden());
     }
-}
 
+    private static MemberSummary summaryOf(Member member) {
+        return new MemberSummary(member.getId(), member.getName(), member.getUsername(), member.getEmail(),
+                member.getRegistrationDate(), member.getRole(), member.getMembershipStatus(), 0);
+    }
+}
@@ -1,7 +1,10 @@
 package com.ntuc.ntuclms.controller;
 
+import com.ntuc.ntuclms.dto.BookSummary;
 import com.ntuc.ntuclms.entity.Book;
 import com.ntuc.ntuclms.service.BookService;
+import com.ntuc.ntuclms.service.CatalogVersion;
+import com.ntuc.ntuclms.service.IdempotencyStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +28,12 @@ public class BookControllerTest {
     @MockBean
     private BookService bookService;
 
+    @MockBean
+    private CatalogVersion catalogVersion;
+
+    @MockBean
+    private IdempotencyStore idempotencyStore;
+
     private Book book1;
     private Book book2;
 
@@ -48,7 +57,7 @@ public class BookControllerTest {
     @Test
     public void testListAllBooks() throws Exception {
         // Given
-        List<Book> books = Arrays.asList(book1, book2);
+        List<BookSummary> books = Arrays.asList(BookSummary.of(book1), BookSummary.of(book2));
         when(bookService.getAllBooks()).thenReturn(books);
 
         // When & Then
@@ -69,7 +78,7 @@ public class BookControllerTest {
     @Test
     public void testGetAvailableBooks() throws Exception {
         // Given
-        List<Book> availableBooks = Arrays.asList(book1);
+        List<BookSummary> availableBooks = Arrays.asList(BookSummary.of(book1));
         when(bookService.getAvailableBooks()).thenReturn(availableBooks);
 
         // When & Then
@@ -84,7 +93,7 @@ public class BookControllerTest {
     @Test
     public void testSearchBooksByTitle() throws Exception {
         // Given
-        List<Book> searchResults = Arrays.asList(book1);
+        List<BookSummary> searchResults = Arrays.asList(BookSummary.of(book1));
         when(bookService.searchBooks("Effective Java", null, null)).thenReturn(searchResults);
 
         // When & Then
@@ -99,7 +108,7 @@ public class BookControllerTest {
     @Test
     public void testSearchBooksByAuthor() throws Exception {
         // Given
-        List<Book> searchResults = Arrays.asList(book1);
+        List<BookSummary> searchResults = Arrays.asList(BookSummary.of(book1));
         when(bookService.searchBooks(null, "Joshua Bloch", null)).thenReturn(searchResults);
 
         // When & Then
@@ -114,7 +123,7 @@ public class BookControllerTest {
     @Test
     public void testSearchBooksByIsbn() throws Exception {
         // Given
-        List<Book> searchResults = Arrays.asList(book1);
+        List<BookSummary> searchResults = Arrays.asList(BookSummary.of(book1));
         when(bookService.searchBooks(null, null, "978-0134685991")).thenReturn(searchResults);
 
         // When & Then
@@ -1,9 +1,20 @@
 package com.ntuc.ntuclms.controller;
 
+import com.ntuc.ntuclms.dto.LoanView;
 import com.ntuc.ntuclms.entity.Book;
 import com.ntuc.ntuclms.entity.Loan;
 import com.ntuc.ntuclms.entity.Member;
 import com.ntuc.ntuclms.service.LoanService;
+import com.ntuc.ntuclms.service.CatalogVersion;
+import com.ntuc.ntuclms.service.SecondLevelCache;
+import com.ntuc.ntuclms.service.OverdueSweep;
+import com.ntuc.ntuclms.service.FineLedger;
+import com.ntuc.ntuclms.service.CirculationStats;
+import com.ntuc.ntuclms.service.EventLog;
+import com.ntuc.ntuclms.service.LoanAnalytics;
+import com.ntuc.ntuclms.service.OutboxRelay;
+import com.ntuc.ntuclms.service.LoanArchiver;
+import com.ntuc.ntuclms.service.IdempotencyStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,6 +40,36 @@ public class LoanControllerTest {
     @MockBean
     private LoanService loanService;
 
+    @MockBean
+    private CatalogVersion catalogVersion;
+
+    @MockBean
+    private SecondLevelCache secondLevelCache;
+
+    @MockBean
+    private OverdueSweep overdueSweep;
+
+    @MockBean
+    private FineLedger fineLedger;
+
+    @MockBean
+    private LoanArchiver loanArchiver;
+
+    @MockBean
+    private LoanAnalytics loanAnalytics;
+
+    @MockBean
+    private EventLog eventLog;
+
+    @MockBean
+    private OutboxRelay outboxRelay;
+
+    @MockBean
+    private CirculationStats circulationStats;
+
+    @MockBean
+    private IdempotencyStore idempotencyStore;
+
     private Loan loan1;
     private Loan loan2;
     private Member member;
@@ -73,7 +114,7 @@ public class LoanControllerTest {
     @WithMockUser(roles = "ADMIN")
     public void testListAllBookLoans() throws Exception {
         // Given
-        List<Loan> loans = Arrays.asList(loan1, loan2);
+        List<LoanView> loans = Arrays.asList(LoanView.of(loan1), LoanView.of(loan2));
         when(loanService.getAllLoans()).thenReturn(loans);
 
         // When & Then
@@ -82,8 +123,8 @@ public class LoanControllerTest {
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$.length()").value(2))
                 .andExpect(jsonPath("$[0].id").value(1))
-                .andExpect(jsonPath("$[0].member.name").value("John Doe"))
-                .andExpect(jsonPath("$[0].book.title").value("Effective Java"))
+                .andExpect(jsonPath("$[0].memberName").value("John Doe"))
+                .andExpect(jsonPath("$[0].bookTitle").value("Effective Java"))
                 .andExpect(jsonPath("$[0].overdue").value(false))
                 .andExpect(jsonPath("$[1].id").value(2))
                 .andExpect(jsonPath("$[1].overdue").value(true));
@@ -93,7 +134,7 @@ public class LoanControllerTest {
     @WithMockUser(roles = "ADMIN")
     public void testGetOverdueLoans() throws Exception {
         // Given
-        List<Loan> overdueLoans = Arrays.asList(loan2);
+        List<LoanView> overdueLoans = Arrays.asList(LoanView.of(loan2));
         when(loanService.getOverdueLoans()).thenReturn(overdueLoans);
 
         // When & Then
@@ -109,7 +150,7 @@ public class LoanControllerTest {
     @WithMockUser(roles = "ADMIN")
     public void testSearchLoansByMemberName() throws Exception {
         // Given
-        List<Loan> memberLoans = Arrays.asList(loan1, loan2);
+        List<LoanView> memberLoans = Arrays.asList(LoanView.of(loan1), LoanView.of(loan2));
         when(loanService.searchLoansByMemberName("John Doe")).thenReturn(memberLoans);
 
         // When & Then
@@ -118,8 +159,8 @@ public class LoanControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[0].member.name").value("John Doe"))
-                .andExpect(jsonPath("$[1].member.name").value("John Doe"));
+                .andExpect(jsonPath("$[0].memberName").value("John Doe"))
+                .andExpect(jsonPath("$[1].memberName").value("John Doe"));
     }
 
     @Test
@@ -0,0 +1,182 @@
+package com.ntuc.ntuclms.filter;
+
+import com.ntuc.ntuclms.service.IdempotencyStore;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({BCryptPasswordEncoder.class, IdempotencyFilter.class, IdempotencyStore.class})
+public class IdempotencyFilterTest {
+
+    @Autowired
+    private IdempotencyFilter idempotencyFilter;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private int nextStatus;
+
+    @BeforeEach
+    void setUp() {
+        nextStatus = 200;
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken("member", null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testRetryGetsTheFirstResponseWithoutRunningAgain() throws Exception {
+        MockHttpServletResponse first = perform("/api/member/borrow/7", "key-1");
+        MockHttpServletResponse retry = perform("/api/member/borrow/7", "key-1");
+
+        assertEquals(1, calls.get());
+        assertEquals(200, retry.getStatus());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals("application/json", retry.getContentType());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+
+        // Another user's identical key is a different key
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken("other", null, List.of()));
+        perform("/api/member/borrow/7", "key-1");
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testStoredResponsesAreReadBackFromTheTable() throws Exception {
+        MockHttpServletResponse first = perform("/api/member/return/3", "key-2");
+        idempotencyStore.evictAll();
+
+        MockHttpServletResponse retry = perform("/api/member/return/3", "key-2");
+        assertEquals(1, calls.get());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+    }
+
+    @Test
+    public void testKeyReusedForAnotherRequestIsRejected() throws Exception {
+        perform("/api/member/borrow/7", "key-3");
+        MockHttpServletResponse other = perform("/api/member/borrow/8", "key-3");
+
+        assertEquals(1, calls.get());
+        assertEquals(422, other.getStatus());
+    }
+
+    @Test
+    public void testFailedRequestReleasesTheKey() throws Exception {
+        nextStatus = 409;
+        assertEquals(409, perform("/api/member/borrow/7", "key-4").getStatus());
+        nextStatus = 200;
+        MockHttpServletResponse retry = perform("/api/member/borrow/7", "key-4");
+
+        assertEquals(2, calls.get());
+        assertEquals(200, retry.getStatus());
+        assertNull(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    public void testDuplicateWhileTheFirstIsRunningIsTurnedAway() {
+        String fingerprint = IdempotencyStore.fingerprint("POST", "/api/admin/loans", new byte[0]);
+        assertEquals(IdempotencyStore.Outcome.STARTED, idempotencyStore.begin("admin", "key-5", fingerprint).outcome());
+        assertEquals(IdempotencyStore.Outcome.IN_PROGRESS, idempotencyStore.begin("admin", "key-5", fingerprint).outcome());
+
+        idempotencyStore.abandon("admin", "key-5");
+        assertEquals(IdempotencyStore.Outcome.STARTED, idempotencyStore.begin("admin", "key-5", fingerprint).outcome());
+    }
+
+    @Test
+    public void testRequestsWithoutAKeyOrOnOtherPathsPassThrough() throws Exception {
+        perform("/api/member/borrow/7", null);
+        perform("/api/member/borrow/7", null);
+        perform("/api/member/holds/7", "key-6");
+        perform("/api/member/holds/7", "key-6");
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    public void testBufferedBodyCanBeReadThroughAReadListener() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/member/checkout");
+        request.addHeader(IdempotencyFilter.KEY_HEADER, "key-7");
+        request.setContent("{\"bookIds\":[1,2]}".getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        List<String> events = new ArrayList<>();
+        idempotencyFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException {
+                ServletInputStream input = req.getInputStream();
+                input.setReadListener(new ReadListener() {
+                    @Override
+                    public void onDataAvailable() throws IOException {
+                        events.add("data");
+                        byte[] buffer = new byte[4];
+                        int n;
+                        while (input.isReady() && (n = input.read(buffer)) != -1) {
+                            read.write(buffer, 0, n);
+                        }
+                    }
+
+                    @Override
+                    public void onAllDataRead() {
+                        events.add("done");
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        events.add("error");
+                    }
+                });
+                res.setStatus(200);
+            }
+        }));
+
+        assertEquals(List.of("data", "done"), events);
+        assertEquals("{\"bookIds\":[1,2]}", read.toString(StandardCharsets.UTF_8));
+    }
+
+    private MockHttpServletResponse perform(String path, String key) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.KEY_HEADER, key);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        idempotencyFilter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException {
+                int call = calls.incrementAndGet();
+                res.setStatus(nextStatus);
+                res.setContentType("application/json");
+                res.getOutputStream().write(("{\"call\":" + call + "}").getBytes(StandardCharsets.UTF_8));
+            }
+        }));
+        return response;
+    }
+}
@@ -0,0 +1,124 @@
+package com.ntuc.ntuclms.repository;
+
+import com.ntuc.ntuclms.dto.LoanView;
+import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.entity.Loan;
+import com.ntuc.ntuclms.entity.Member;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({BCryptPasswordEncoder.class, LoanArchiveRepository.class})
+public class LoanArchiveRepositoryTest {
+
+    @Autowired
+    private LoanArchiveRepository loanArchiveRepository;
+
+    @Autowired
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Member member;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        member = new Member();
+        member.setName("Long Time Reader");
+        member.setUsername("archive");
+        member.setEmail("archive@example.com");
+        member.setPassword("password");
+        memberRepository.saveAndFlush(member);
+        today = LocalDate.now();
+
+        // Returned two and three years ago, returned last week, and still open
+        loan(today.minusYears(2), today.minusYears(2).plusDays(10), "9780000000601");
+        loan(today.minusYears(3), today.minusYears(3).plusDays(5), "9780000000602");
+        loan(today.minusDays(20), today.minusDays(7), "9780000000603");
+        loan(today.minusDays(3), null, "9780000000604");
+        entityManager.clear();
+    }
+
+    @Test
+    public void testOldestReturnedLoansMoveToTheArchive() {
+        List<LoanArchiveRepository.ReturnedLoan> chunk = loanArchiveRepository.lockReturnedBefore(today.minusYears(1), 10);
+        assertEquals(2, chunk.size());
+        // Oldest return first
+        List<Long> ids = chunk.stream().map(LoanArchiveRepository.ReturnedLoan::getId).toList();
+        assertTrue(loanRepository.findById(ids.get(0)).orElseThrow().getReturnDate()
+            .isBefore(loanRepository.findById(ids.get(1)).orElseThrow().getReturnDate()));
+        entityManager.clear();
+
+        assertEquals(2, loanArchiveRepository.copyToArchive(ids, LocalDateTime.now()));
+        assertEquals(2, loanArchiveRepository.deleteLoans(ids));
+
+        assertEquals(2, loanArchiveRepository.countArchived());
+        assertEquals(2, loanRepository.count());
+        assertTrue(loanArchiveRepository.lockReturnedBefore(today.minusYears(1), 10).isEmpty());
+        assertEquals(today.minusYears(3).plusDays(5).getYear(),
+            archivedLoanRepository.findAll().stream().mapToInt(loan -> loan.getReturnYear()).min().orElseThrow());
+    }
+
+    @Test
+    public void testArchivedViewsMatchTheHotTierShape() {
+        List<Long> ids = loanArchiveRepository.lockReturnedBefore(today.minusYears(1), 10).stream()
+            .map(LoanArchiveRepository.ReturnedLoan::getId).toList();
+        loanArchiveRepository.copyToArchive(ids, LocalDateTime.now());
+        loanArchiveRepository.deleteLoans(ids);
+
+        List<LoanView> archived = archivedLoanRepository.findViewsByMember(member.getId());
+        assertEquals(2, archived.size());
+        assertTrue(archived.get(0).getBorrowDate().isAfter(archived.get(1).getBorrowDate()));
+        assertTrue(archived.stream().allMatch(view -> view.getBookTitle() != null
+            && view.getStatus() == Loan.LoanStatus.RETURNED && !view.isRenewable()));
+
+        // Keyset paging seeks past the last row of the previous page
+        LoanView first = archived.get(0);
+        List<LoanView> next = archivedLoanRepository.findPageByMemberOrderByBorrowDateDesc(member.getId(),
+            first.getBorrowDate(), first.getId(), PageRequest.of(0, 10));
+        assertEquals(List.of(archived.get(1).getId()), next.stream().map(LoanView::getId).toList());
+        assertEquals(2, loanRepository.findViewsByMember(member.getId()).size());
+    }
+
+    private void loan(LocalDate borrowDate, LocalDate returnDate, String isbn) {
+        Book book = new Book();
+        book.setIsbn(isbn);
+        book.setTitle("Title " + isbn);
+        book.setAuthor("Author");
+        book.setAvailable(returnDate != null);
+        bookRepository.saveAndFlush(book);
+
+        Loan loan = new Loan();
+        loan.setMember(member);
+        loan.setBook(book);
+        loan.setBorrowDate(borrowDate);
+        loan.setDueDate(borrowDate.plusDays(14));
+        loan.setReturnDate(returnDate);
+        loan.setActiveBookId(returnDate == null ? book.getId() : null);
+        loan.setStatus(returnDate == null ? Loan.LoanStatus.ACTIVE : Loan.LoanStatus.RETURNED);
+        loanRepository.saveAndFlush(loan);
+    }
+}
@@ -0,0 +1,141 @@
+package com.ntuc.ntuclms.repository;
+
+import com.ntuc.ntuclms.dto.LoanView;
+import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.entity.Loan;
+import com.ntuc.ntuclms.entity.Member;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({BCryptPasswordEncoder.class, LoanBatchRepository.class})
+public class LoanBatchRepositoryTest {
+
+    @Autowired
+    private LoanBatchRepository loanBatchRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Member member;
+    private Book free;
+    private Book taken;
+
+    @BeforeEach
+    void setUp() {
+        member = new Member();
+        member.setName("Batch Borrower");
+        member.setUsername("batch");
+        member.setEmail("batch@example.com");
+        member.setPassword("password");
+        memberRepository.saveAndFlush(member);
+
+        free = bookRepository.saveAndFlush(newBook("9780000000010", true));
+        taken = bookRepository.saveAndFlush(newBook("9780000000011", false));
+    }
+
+    @Test
+    public void testReserveBooksReportsEachRow() {
+        int[] counts = loanBatchRepository.reserveBooks(List.of(free.getId(), taken.getId(), -1L));
+
+        assertArrayEquals(new int[]{1, 0, 0}, counts);
+        entityManager.clear();
+        assertFalse(bookRepository.findById(free.getId()).orElseThrow().isAvailable());
+    }
+
+    @Test
+    public void testInsertOpenLoansIsVisibleThroughLoanViews() {
+        LocalDate today = LocalDate.now();
+        loanBatchRepository.insertOpenLoans(member.getId(), List.of(free.getId(), taken.getId()), today, today.plusDays(14));
+
+        List<LoanView> views = loanRepository.findViewsByActiveBookIdIn(List.of(free.getId(), taken.getId()));
+        assertEquals(2, views.size());
+        assertTrue(views.stream().allMatch(view -> view.getMemberId().equals(member.getId())
+            && view.getDueDate().equals(today.plusDays(14)) && view.getReturnDate() == null));
+
+        // The one-open-loan-per-member-and-book key holds for batch inserts too
+        assertThrows(DuplicateKeyException.class,
+            () -> loanBatchRepository.insertOpenLoans(member.getId(), List.of(free.getId()), today, today.plusDays(14)));
+    }
+
+    @Test
+    public void testOverdueChunksCoverEveryOpenOverdueLoanOnce() {
+        LocalDate today = LocalDate.now();
+        List<Long> overdue = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Book book = bookRepository.saveAndFlush(newBook("978000000002" + i, false));
+            // Two loans share each due date so chunk boundaries fall inside a run of equal dates
+            loanBatchRepository.insertOpenLoans(member.getId(), List.of(book.getId()),
+                today.minusDays(20), today.minusDays(1 + i / 2));
+            overdue.add(book.getId());
+        }
+        loanBatchRepository.insertOpenLoans(member.getId(), List.of(free.getId()), today, today.plusDays(14));
+
+        LoanBatchRepository.DueKey after = null;
+        List<Long> swept = new ArrayList<>();
+        List<Integer> chunkSizes = new ArrayList<>();
+        while (true) {
+            List<LoanBatchRepository.OverdueLoan> chunk = loanBatchRepository.lockOverdueChunk(today, after, 2);
+            chunkSizes.add(chunk.size());
+            chunk.forEach(loan -> swept.add(loan.getId()));
+            if (chunk.size() < 2) {
+                break;
+            }
+            LoanBatchRepository.OverdueLoan last = chunk.get(chunk.size() - 1);
+            after = new LoanBatchRepository.DueKey(last.getDueDate(), last.getId());
+        }
+
+        assertEquals(List.of(2, 2, 1), chunkSizes);
+        List<Long> expected = loanRepository.findViewsByActiveBookIdIn(overdue).stream().map(LoanView::getId).sorted().toList();
+        assertEquals(expected, swept.stream().sorted().toList());
+    }
+
+    @Test
+    public void testMarkOverdueByIdSkipsLoansNoLongerDue() {
+        LocalDate today = LocalDate.now();
+        loanBatchRepository.insertOpenLoans(member.getId(), List.of(free.getId()), today.minusDays(20), today.minusDays(3));
+        loanBatchRepository.insertOpenLoans(member.getId(), List.of(taken.getId()), today.minusDays(20), today.plusDays(1));
+        List<Object[]> active = loanRepository.findActiveDueDates();
+        assertEquals(2, active.size());
+
+        // The second loan's timer is stale: it was renewed after being scheduled
+        List<Long> fired = active.stream().map(row -> (Long) row[0]).toList();
+        assertEquals(1, loanBatchRepository.markOverdue(fired, today, Loan.FINE_PER_DAY));
+
+        entityManager.clear();
+        LoanView overdue = loanRepository.findViewsByActiveBookIdIn(List.of(free.getId())).get(0);
+        assertEquals(Loan.LoanStatus.OVERDUE, overdue.getStatus());
+        assertEquals(3 * Loan.FINE_PER_DAY, overdue.getFine(), 0.001);
+        assertEquals(1, loanRepository.findActiveDueDates().size());
+    }
+
+    private static Book newBook(String isbn, boolean available) {
+        Book book = new Book();
+        book.setIsbn(isbn);
+        book.setTitle("Title " + isbn);
+        book.setAuthor("Author");
+        book.setAvailable(available);
+        return book;
+    }
+}
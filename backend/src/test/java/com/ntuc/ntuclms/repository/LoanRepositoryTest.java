@@ -0,0 +1,182 @@
+package com.ntuc.ntuclms.repository;
+
+import com.ntuc.ntuclms.dto.LoanView;
+import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.entity.Loan;
+import com.ntuc.ntuclms.entity.Member;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against an embedded H2 database; the application's startup data needs a PasswordEncoder
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({BCryptPasswordEncoder.class, BookCounterRepository.class})
+public class LoanRepositoryTest {
+
+    private static final int LOANS = 1000;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCounterRepository bookCounterRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Member member;
+
+    private void seedLoans() {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Member m = newMember("member" + i);
+            m.setName("Member " + i);
+            members.add(m);
+        }
+        memberRepository.saveAll(members);
+        member = members.get(0);
+
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < LOANS; i++) {
+            Book book = newBook(String.format("978%010d", i));
+            book.setTitle("Title " + i);
+            book.setAuthor("Author " + i % 50);
+            book.setAvailable(false);
+            books.add(book);
+        }
+        bookRepository.saveAll(books);
+
+        List<Loan> loans = new ArrayList<>();
+        for (int i = 0; i < LOANS; i++) {
+            Loan loan = new Loan();
+            loan.setMember(members.get(i % members.size()));
+            loan.setBook(books.get(i));
+            loan.setBorrowDate(LocalDate.now().minusDays(i % 30));
+            // Every third loan is past due
+            loan.setDueDate(i % 3 == 0 ? LocalDate.now().minusDays(1) : LocalDate.now().plusDays(7));
+            loan.setActiveBookId(books.get(i).getId());
+            loans.add(loan);
+        }
+        loanRepository.saveAll(loans);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void testLoanListingsRunOneStatementRegardlessOfSize() {
+        seedLoans();
+
+        List<LoanView> all = assertSingleStatement(() -> loanRepository.findAllViews());
+        assertEquals(LOANS, all.size());
+        assertEquals("Title 0", all.stream().filter(view -> view.getBookIsbn().equals("9780000000000"))
+            .findFirst().orElseThrow().getBookTitle());
+
+        List<LoanView> overdue = assertSingleStatement(() -> loanRepository.findOverdueViews(LocalDate.now()));
+        assertEquals(334, overdue.size());
+        assertTrue(overdue.stream().allMatch(LoanView::isOverdue));
+
+        List<LoanView> byName = assertSingleStatement(() -> loanRepository.findViewsByMemberName("member 1"));
+        // "Member 1" and "Member 10" to "Member 19"
+        assertEquals(11 * LOANS / 20, byName.size());
+
+        List<LoanView> history = assertSingleStatement(() -> loanRepository.findViewsByMember(member.getId()));
+        assertEquals(LOANS / 20, history.size());
+        assertTrue(history.stream().allMatch(view -> view.getMemberName().equals("Member 0")));
+
+        List<LoanView> current = assertSingleStatement(() -> loanRepository.findActiveViewsByMember(member.getId()));
+        assertEquals(LOANS / 20, current.size());
+    }
+
+    @Test
+    public void testReserveSucceedsOnlyWhileAvailable() {
+        Book book = bookRepository.saveAndFlush(newBook("9780000000001"));
+        long version = book.getVersion();
+
+        assertEquals(1, bookCounterRepository.reserve(book.getId()));
+        // A second borrower loses without waiting on a lock
+        assertEquals(0, bookCounterRepository.reserve(book.getId()));
+        assertEquals(0, bookCounterRepository.reserve(-1L));
+
+        entityManager.clear();
+        Book reserved = bookRepository.findById(book.getId()).orElseThrow();
+        assertFalse(reserved.isAvailable());
+        assertEquals(version + 1, reserved.getVersion());
+
+        assertEquals(1, bookCounterRepository.release(book.getId()));
+        assertEquals(0, bookCounterRepository.release(book.getId()));
+        assertEquals(1, bookCounterRepository.reserve(book.getId()));
+    }
+
+    @Test
+    public void testOnlyOneOpenLoanPerBook() {
+        Member borrower = newMember("borrower");
+        memberRepository.save(borrower);
+        Book book = bookRepository.save(newBook("9780000000002"));
+
+        // Returned loans release the key, so any number of them may reference the book
+        loanRepository.saveAndFlush(newLoan(borrower, book, null));
+        loanRepository.saveAndFlush(newLoan(borrower, book, null));
+        loanRepository.saveAndFlush(newLoan(borrower, book, book.getId()));
+
+        assertThrows(DataIntegrityViolationException.class,
+            () -> loanRepository.saveAndFlush(newLoan(borrower, book, book.getId())));
+    }
+
+    private static Member newMember(String username) {
+        Member m = new Member();
+        m.setName(username);
+        m.setUsername(username);
+        m.setEmail(username + "@example.com");
+        m.setPassword("password");
+        return m;
+    }
+
+    private static Book newBook(String isbn) {
+        Book book = new Book();
+        book.setIsbn(isbn);
+        book.setTitle("Title " + isbn);
+        book.setAuthor("Author");
+        return book;
+    }
+
+    private static Loan newLoan(Member member, Book book, Long activeBookId) {
+        Loan loan = new Loan();
+        loan.setMember(member);
+        loan.setBook(book);
+        loan.setActiveBookId(activeBookId);
+        if (activeBookId == null) {
+            loan.setReturnDate(LocalDate.now());
+        }
+        return loan;
+    }
+
+    private <T> T assertSingleStatement(Supplier<T> listing) {
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        T result = listing.get();
+        assertEquals(1, statistics.getPrepareStatementCount());
+        return result;
+    }
+}
@@ -0,0 +1,115 @@
+package com.ntuc.ntuclms.repository;
+
+import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.entity.Member;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({BCryptPasswordEncoder.class, MemberCounterRepository.class, LoanBatchRepository.class})
+public class MemberCounterRepositoryTest {
+
+    @Autowired
+    private MemberCounterRepository memberCounterRepository;
+
+    @Autowired
+    private LoanBatchRepository loanBatchRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Member member;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        member = new Member();
+        member.setName("Counted Borrower");
+        member.setUsername("counted");
+        member.setEmail("counted@example.com");
+        member.setPassword("password");
+        memberRepository.saveAndFlush(member);
+        today = LocalDate.now();
+    }
+
+    @Test
+    public void testAddOpenLoansStopsAtTheLimit() {
+        assertEquals(1, memberCounterRepository.addOpenLoans(member.getId(), 2, today.plusDays(14), 3));
+        assertEquals(1, memberCounterRepository.addOpenLoans(member.getId(), 1, today.plusDays(7), 3));
+        assertEquals(0, memberCounterRepository.addOpenLoans(member.getId(), 1, today.plusDays(1), 3));
+
+        Member counted = reload();
+        assertEquals(3, counted.getActiveLoanCount());
+        assertEquals(today.plusDays(7), counted.getEarliestActiveDueDate());
+    }
+
+    @Test
+    public void testClosingALoanRecomputesTheEarliestDueDate() {
+        Long early = openLoan("9780000000040", today.plusDays(2));
+        openLoan("9780000000041", today.plusDays(9));
+
+        jdbcTemplate.update("UPDATE loans SET return_date = ?, active_book_id = NULL WHERE id = ?", today, early);
+        memberCounterRepository.removeOpenLoan(member.getId());
+
+        Member counted = reload();
+        assertEquals(1, counted.getActiveLoanCount());
+        assertEquals(today.plusDays(9), counted.getEarliestActiveDueDate());
+    }
+
+    @Test
+    public void testRecomputeAllRepairsOnlyDriftedMembers() {
+        openLoan("9780000000042", today.plusDays(5));
+        Member idle = new Member();
+        idle.setName("Idle Member");
+        idle.setUsername("idle");
+        idle.setEmail("idle@example.com");
+        idle.setPassword("password");
+        memberRepository.saveAndFlush(idle);
+
+        jdbcTemplate.update("UPDATE members SET active_loan_count = 0, earliest_active_due_date = NULL WHERE id = ?",
+            member.getId());
+        assertEquals(1, memberCounterRepository.recomputeAll());
+        assertEquals(0, memberCounterRepository.recomputeAll());
+
+        Member counted = reload();
+        assertEquals(1, counted.getActiveLoanCount());
+        assertEquals(today.plusDays(5), counted.getEarliestActiveDueDate());
+    }
+
+    private Long openLoan(String isbn, LocalDate dueDate) {
+        Book book = new Book();
+        book.setIsbn(isbn);
+        book.setTitle("Title " + isbn);
+        book.setAuthor("Author");
+        book.setAvailable(false);
+        bookRepository.saveAndFlush(book);
+        loanBatchRepository.insertOpenLoans(member.getId(), List.of(book.getId()), today, dueDate);
+        assertEquals(1, memberCounterRepository.addOpenLoans(member.getId(), 1, dueDate, 3));
+        return jdbcTemplate.queryForObject("SELECT id FROM loans WHERE active_book_id = ?", Long.class, book.getId());
+    }
+
+    private Member reload() {
+        entityManager.clear();
+        return memberRepository.findById(member.getId()).orElseThrow();
+    }
+}
@@ -0,0 +1,108 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookSearchIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @InjectMocks
+    private BookSearchIndex bookSearchIndex;
+
+    @TempDir
+    Path indexDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(bookSearchIndex, "enabled", true);
+        ReflectionTestUtils.setField(bookSearchIndex, "indexDir", indexDir.toString());
+        ReflectionTestUtils.setField(bookSearchIndex, "maxResults", 10);
+        bookSearchIndex.open();
+
+        when(bookRepository.findContentWatermark()).thenReturn(watermark(4, 4, 0));
+        when(bookRepository.findAllFacetFields()).thenReturn(Arrays.asList(
+                new Object[]{1L, "Effective Java", "Joshua Bloch", true},
+                new Object[]{2L, "Effective C++", "Scott Meyers", true},
+                new Object[]{3L, "Java Concurrency in Practice", "Brian Goetz", true},
+                new Object[]{4L, "Clean Code", "Robert Martin", true}
+        ));
+        assertEquals(4, bookSearchIndex.rebuild());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        bookSearchIndex.close();
+    }
+
+    @Test
+    public void testFuzzyTitleSearch() {
+        List<Long> ids = bookSearchIndex.search("efective jva", null);
+        assertEquals(List.of(1L), ids);
+    }
+
+    @Test
+    public void testTitleAndAuthorMustBothMatch() {
+        assertEquals(List.of(1L), bookSearchIndex.search("java", "bloch"));
+        assertEquals(List.of(3L), bookSearchIndex.search("java", "goetz"));
+    }
+
+    @Test
+    public void testPhraseQuery() {
+        assertEquals(List.of(4L), bookSearchIndex.search("\"clean code\"", null));
+        assertEquals(List.of(), bookSearchIndex.search("\"code clean\"", null));
+    }
+
+    @Test
+    public void testWritesAreVisibleImmediately() {
+        Book book = new Book();
+        book.setId(5L);
+        book.setTitle("Java Puzzlers");
+        book.setAuthor("Joshua Bloch");
+        bookSearchIndex.onBookSaved(book);
+        bookSearchIndex.onBookDeleted(1L);
+
+        assertEquals(List.of(5L), bookSearchIndex.search(null, "bloch"));
+    }
+
+    @Test
+    public void testRestartKeepsTheIndexUnlessBooksWereWritten() throws Exception {
+        bookSearchIndex.close();
+        bookSearchIndex.open();
+        bookSearchIndex.rebuildIfStale();
+        verify(bookRepository, times(1)).findAllFacetFields();
+        assertEquals(List.of(4L), bookSearchIndex.search("clean", null));
+
+        // Same count, one title edited while the application was down
+        bookSearchIndex.close();
+        when(bookRepository.findContentWatermark()).thenReturn(watermark(4, 4, 1));
+        bookSearchIndex.open();
+        bookSearchIndex.rebuildIfStale();
+        verify(bookRepository, times(2)).findAllFacetFields();
+    }
+
+    private static List<Object[]> watermark(long count, long maxId, long versions) {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{count, maxId, versions});
+        return rows;
+    }
+}
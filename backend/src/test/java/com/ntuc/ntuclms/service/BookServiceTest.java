@@ -1,6 +1,10 @@
 package com.ntuc.ntuclms.service;
 
+import com.ntuc.ntuclms.dto.BookSummary;
+import com.ntuc.ntuclms.dto.CursorPage;
+import com.ntuc.ntuclms.dto.ImportReport;
 import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.repository.ArchivedLoanRepository;
 import com.ntuc.ntuclms.repository.BookRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,13 +12,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,6 +30,33 @@ public class BookServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private IsbnIndex isbnIndex;
+
+    @Mock
+    private SuggestionIndex suggestionIndex;
+
+    @Mock
+    private FacetIndex facetIndex;
+
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @Mock
+    private CatalogVersion catalogVersion;
+
+    @Mock
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Mock
+    private CopyInventory copyInventory;
+
+    @Mock
+    private HoldService holdService;
+
     @InjectMocks
     private BookService bookService;
 
@@ -94,11 +128,11 @@ public class BookServiceTest {
     @Test
     public void testGetAllBooks() {
         // Given
-        List<Book> books = Arrays.asList(book1, book2);
-        when(bookRepository.findAll()).thenReturn(books);
+        List<BookSummary> books = Arrays.asList(BookSummary.of(book1), BookSummary.of(book2));
+        when(bookRepository.findAllSummaries()).thenReturn(books);
 
         // When
-        List<Book> result = bookService.getAllBooks();
+        List<BookSummary> result = bookService.getAllBooks();
 
         // Then
         assertNotNull(result);
@@ -108,17 +142,17 @@ public class BookServiceTest {
         assertTrue(result.get(0).isAvailable());
         assertFalse(result.get(1).isAvailable());
 
-        verify(bookRepository).findAll();
+        verify(bookRepository).findAllSummaries();
     }
 
     @Test
     public void testGetAvailableBooks() {
         // Given
-        List<Book> availableBooks = Arrays.asList(book1);
-        when(bookRepository.findByAvailableTrue()).thenReturn(availableBooks);
+        List<BookSummary> availableBooks = Arrays.asList(BookSummary.of(book1));
+        when(bookRepository.findAvailableSummaries()).thenReturn(availableBooks);
 
         // When
-        List<Book> result = bookService.getAvailableBooks();
+        List<BookSummary> result = bookService.getAvailableBooks();
 
         // Then
         assertNotNull(result);
@@ -126,7 +160,7 @@ public class BookServiceTest {
         assertEquals("Effective Java", result.get(0).getTitle());
         assertTrue(result.get(0).isAvailable());
 
-        verify(bookRepository).findByAvailableTrue();
+        verify(bookRepository).findAvailableSummaries();
     }
 
     @Test
@@ -136,7 +170,7 @@ public class BookServiceTest {
         when(bookRepository.findByTitleContainingIgnoreCase("Effective Java")).thenReturn(searchResults);
 
         // When
-        List<Book> result = bookService.searchBooks("Effective Java", null, null);
+        List<BookSummary> result = bookService.searchBooks("Effective Java", null, null);
 
         // Then
         assertNotNull(result);
@@ -153,7 +187,7 @@ public class BookServiceTest {
         when(bookRepository.findByAuthorContainingIgnoreCase("Joshua Bloch")).thenReturn(searchResults);
 
         // When
-        List<Book> result = bookService.searchBooks(null, "Joshua Bloch", null);
+        List<BookSummary> result = bookService.searchBooks(null, "Joshua Bloch", null);
 
         // Then
         assertNotNull(result);
@@ -170,7 +204,7 @@ public class BookServiceTest {
         when(bookRepository.findByIsbnContainingIgnoreCase("978-0134685991")).thenReturn(searchResults);
 
         // When
-        List<Book> result = bookService.searchBooks(null, null, "978-0134685991");
+        List<BookSummary> result = bookService.searchBooks(null, null, "978-0134685991");
 
         // Then
         assertNotNull(result);
@@ -180,6 +214,23 @@ public class BookServiceTest {
         verify(bookRepository).findByIsbnContainingIgnoreCase("978-0134685991");
     }
 
+    @Test
+    public void testSearchBooksByIsbnUsesIndex() {
+        // Given
+        when(isbnIndex.isReady()).thenReturn(true);
+        when(isbnIndex.isLookupKey("0-13-468599-7")).thenReturn(true);
+        when(isbnIndex.lookup("0-13-468599-7")).thenReturn(OptionalLong.of(1L));
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book1));
+
+        // When
+        List<BookSummary> result = bookService.searchBooks(null, null, "0-13-468599-7");
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals("Effective Java", result.get(0).getTitle());
+        verify(bookRepository, never()).findByIsbnContainingIgnoreCase(any());
+    }
+
     @Test
     public void testSearchBooksWithTitleAndAuthor() {
         // Given
@@ -188,7 +239,7 @@ public class BookServiceTest {
                 .thenReturn(searchResults);
 
         // When
-        List<Book> result = bookService.searchBooks("Effective", "Joshua", null);
+        List<BookSummary> result = bookService.searchBooks("Effective", "Joshua", null);
 
         // Then
         assertNotNull(result);
@@ -199,6 +250,57 @@ public class BookServiceTest {
         verify(bookRepository).findByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCase("Effective", "Joshua");
     }
 
+    @Test
+    public void testSearchBooksUsesRankedIndex() {
+        // Given
+        when(bookSearchIndex.isReady()).thenReturn(true);
+        when(bookSearchIndex.search("Efective", null)).thenReturn(Arrays.asList(2L, 1L));
+        when(bookRepository.findSummariesByIdIn(Arrays.asList(2L, 1L)))
+                .thenReturn(Arrays.asList(BookSummary.of(book1), BookSummary.of(book2)));
+
+        // When
+        List<BookSummary> result = bookService.searchBooks("Efective", null, null);
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals("Effective C++", result.get(0).getTitle());
+        assertEquals("Effective Java", result.get(1).getTitle());
+        verify(bookRepository, never()).findByTitleContainingIgnoreCase(any());
+    }
+
+    @Test
+    public void testGetBooksPageByTitle() {
+        // Given
+        when(bookRepository.findPageOrderByTitle(eq(""), eq(0L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(BookSummary.of(book2), BookSummary.of(book1)));
+
+        // When
+        CursorPage<BookSummary> page = bookService.getBooksPage("title", null, 1);
+
+        // Then
+        assertEquals(1, page.getItems().size());
+        assertEquals("Effective C++", page.getItems().get(0).getTitle());
+        assertNotNull(page.getNextCursor());
+
+        // The cursor seeks past the last row of the previous page
+        when(bookRepository.findPageOrderByTitle(eq("Effective C++"), eq(2L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(BookSummary.of(book1)));
+        CursorPage<BookSummary> next = bookService.getBooksPage("title", page.getNextCursor(), 1);
+        assertEquals("Effective Java", next.getItems().get(0).getTitle());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    public void testGetBooksPageRejectsCursorFromOtherSort() {
+        // Given
+        when(bookRepository.findPageOrderById(eq(0L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(BookSummary.of(book1), BookSummary.of(book2)));
+        String cursor = bookService.getBooksPage("id", null, 1).getNextCursor();
+
+        // When & Then
+        assertThrows(RuntimeException.class, () -> bookService.getBooksPage("author", cursor, 1));
+    }
+
     @Test
     public void testUpdateBook() {
         // Given
@@ -225,19 +327,23 @@ public class BookServiceTest {
     @Test
     public void testDeleteAvailableBook() {
         // Given
+        when(bookRepository.lockAvailability(1L)).thenReturn(Optional.of(true));
         when(bookRepository.findById(1L)).thenReturn(Optional.of(book1));
 
         // When
         bookService.deleteBook(1L);
 
         // Then
+        verify(bookRepository).lockAvailability(1L);
         verify(bookRepository).findById(1L);
+        verify(holdService).removeBookHolds(1L);
         verify(bookRepository).deleteById(1L);
     }
 
     @Test
     public void testDeleteUnavailableBook() {
         // Given
+        when(bookRepository.lockAvailability(2L)).thenReturn(Optional.of(false));
         when(bookRepository.findById(2L)).thenReturn(Optional.of(book2));
 
         // When & Then
@@ -249,5 +355,41 @@ public class BookServiceTest {
         verify(bookRepository).findById(2L);
         verify(bookRepository, never()).deleteById(any());
     }
-}
 
+    @Test
+    public void testUpsertBatchInsertsNewAndUpdatesChangedBooks() {
+        // Given
+        Book renamed = new Book();
+        renamed.setIsbn("978-0134685991");
+        renamed.setTitle("Effective Java, 3rd Edition");
+        renamed.setAuthor("Joshua Bloch");
+
+        Book same = new Book();
+        same.setIsbn("978-0321356680");
+        same.setTitle("Effective C++");
+        same.setAuthor("Scott Meyers");
+
+        Book fresh = new Book();
+        fresh.setIsbn("978-0132350884");
+        fresh.setTitle("Clean Code");
+        fresh.setAuthor("Robert Martin");
+
+        when(bookRepository.findByIsbnIn(any())).thenReturn(Arrays.asList(book1, book2));
+
+        // When
+        ImportReport.Chunk result = bookService.upsertBatch(List.of(renamed, same, fresh));
+
+        // Then
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getUnchanged());
+        assertEquals("Effective Java, 3rd Edition", book1.getTitle());
+        assertFalse(book2.isAvailable());
+        verify(bookRepository).saveAll(List.of(fresh));
+        verify(bookRepository).flush();
+        verify(suggestionIndex).onBookRemoved("Effective Java", "Joshua Bloch");
+        // One search-index refresh for the chunk, not one per row
+        verify(bookSearchIndex).onBooksSaved(List.of(fresh, book1));
+        verify(bookSearchIndex, never()).onBookSaved(any());
+    }
+}
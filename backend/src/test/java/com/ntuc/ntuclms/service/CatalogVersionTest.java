@@ -0,0 +1,57 @@
+package com.ntuc.ntuclms.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogVersionTest {
+
+    private final CatalogVersion catalogVersion = new CatalogVersion();
+
+    @Test
+    public void testBumpChangesOnlyAffectedTags() {
+        String books = catalogVersion.etag(CatalogVersion.BOOKS);
+        String members = catalogVersion.etag(CatalogVersion.MEMBERS);
+
+        catalogVersion.bump(CatalogVersion.Scope.BOOKS);
+
+        assertNotEquals(books, catalogVersion.etag(CatalogVersion.BOOKS));
+        assertEquals(members, catalogVersion.etag(CatalogVersion.MEMBERS));
+        assertNotEquals(catalogVersion.etag(CatalogVersion.LOANS, "alice"), catalogVersion.etag(CatalogVersion.LOANS, "bob"));
+    }
+
+    @Test
+    public void testBumpInsideTransactionWaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            catalogVersion.bump(CatalogVersion.Scope.LOANS);
+            assertEquals(0, catalogVersion.current(CatalogVersion.Scope.LOANS));
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            assertEquals(1, catalogVersion.current(CatalogVersion.Scope.LOANS));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testMatchingIfNoneMatchIsNotModified() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+        request.addHeader("If-None-Match", catalogVersion.etag(CatalogVersion.BOOKS));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(catalogVersion.checkNotModified(new ServletWebRequest(request, response), CatalogVersion.BOOKS));
+        assertEquals(304, response.getStatus());
+        assertEquals("no-cache, private", response.getHeader("Cache-Control"));
+
+        catalogVersion.bump(CatalogVersion.Scope.BOOKS);
+        MockHttpServletResponse fresh = new MockHttpServletResponse();
+        assertFalse(catalogVersion.checkNotModified(new ServletWebRequest(request, fresh), CatalogVersion.BOOKS));
+        assertEquals(catalogVersion.etag(CatalogVersion.BOOKS), fresh.getHeader("ETag"));
+    }
+}
@@ -0,0 +1,137 @@
+package com.ntuc.ntuclms.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.entity.Loan;
+import com.ntuc.ntuclms.entity.Member;
+import com.ntuc.ntuclms.exception.ConflictException;
+import com.ntuc.ntuclms.repository.MemberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CirculationDeskTest {
+
+    @Mock
+    private LoanService loanService;
+
+    @Mock
+    private MemberRepository memberRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private CirculationDesk circulationDesk;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private Member member;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(circulationDesk, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(circulationDesk, "batchSize", 50);
+        member = new Member();
+        member.setId(7L);
+        member.setName("Desk Patron");
+        member.setUsername("patron");
+    }
+
+    @Test
+    public void testFailedScanSplitsTheBatchAndTheOthersCommit() throws Exception {
+        List<Integer> transactions = new ArrayList<>();
+        doAnswer(invocation -> {
+            transactions.add(1);
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(memberRepository.findById(7L)).thenReturn(Optional.of(member));
+        when(loanService.checkInScanned("B9-1")).thenReturn(loan(9L));
+        when(loanService.checkOutScanned(member, "B1-1")).thenReturn(loan(1L));
+        when(loanService.checkOutScanned(member, "B2-1")).thenThrow(new ConflictException("Copy is not on the shelf"));
+        when(loanService.checkOutScanned(member, "B3-1")).thenReturn(loan(3L));
+
+        List<JsonNode> results = run("B9-1\n{\"action\":\"MEMBER\",\"memberId\":7}\nB1-1\nB2-1\nB3-1\n");
+
+        assertEquals(5, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i + 1, results.get(i).get("seq").asInt());
+        }
+        assertEquals("RETURN", results.get(0).get("action").asText());
+        assertEquals(9, results.get(0).get("loan").get("bookId").asInt());
+        assertTrue(results.get(1).get("success").asBoolean());
+        assertEquals(7, results.get(2).get("memberId").asInt());
+        assertTrue(results.get(2).get("success").asBoolean());
+        assertFalse(results.get(3).get("success").asBoolean());
+        assertEquals("Copy is not on the shelf", results.get(3).get("error").asText());
+        assertTrue(results.get(4).get("success").asBoolean());
+
+        // The whole batch, then the scans before the failure, the failure alone and the rest
+        assertEquals(4, transactions.size());
+        verify(loanService, times(2)).checkInScanned("B9-1");
+        verify(loanService, times(2)).checkOutScanned(member, "B2-1");
+        verify(loanService, times(1)).checkOutScanned(member, "B3-1");
+    }
+
+    @Test
+    public void testMalformedScansAreAnsweredWithoutATransaction() throws Exception {
+        List<JsonNode> results = run("{\"action\":\"CHECKOUT\",\"code\":\"B1-1\"}\n{not json\n\n{\"action\":\"RETURN\"}\n");
+
+        assertEquals(3, results.size());
+        assertEquals("No member scanned for checkout", results.get(0).get("error").asText());
+        assertTrue(results.get(1).get("error").asText().startsWith("Unreadable scan"));
+        assertEquals("Scan has no code", results.get(2).get("error").asText());
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+        verify(loanService, never()).checkOutScanned(any(), anyString());
+        verify(loanService, never()).checkInScanned(eq("B1-1"));
+    }
+
+    private List<JsonNode> run(String input) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        circulationDesk.run(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readTree(line));
+        }
+        return results;
+    }
+
+    private Loan loan(Long bookId) {
+        Book book = new Book();
+        book.setId(bookId);
+        book.setIsbn("978000000000" + bookId);
+        book.setTitle("Title " + bookId);
+        book.setAuthor("Author");
+        Loan loan = new Loan();
+        loan.setId(bookId * 10);
+        loan.setMember(member);
+        loan.setBook(book);
+        loan.setBorrowDate(LocalDate.now());
+        loan.setDueDate(LocalDate.now().plusDays(14));
+        return loan;
+    }
+}
@@ -0,0 +1,147 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.dto.CopyView;
+import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.entity.BookCopy;
+import com.ntuc.ntuclms.exception.ConflictException;
+import com.ntuc.ntuclms.repository.BookCopyRepository;
+import com.ntuc.ntuclms.repository.BookCounterRepository;
+import com.ntuc.ntuclms.repository.BookRepository;
+import com.ntuc.ntuclms.repository.LoanBatchRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doThrow;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@ImportAutoConfiguration(TransactionAutoConfiguration.class)
+@Import({BCryptPasswordEncoder.class, CopyInventory.class, CopyCounters.class, AvailabilityIndex.class,
+    LoanBatchRepository.class, BookCounterRepository.class, SecondLevelCache.class})
+public class CopyInventoryTest {
+
+    @Autowired
+    private CopyInventory copyInventory;
+
+    @Autowired
+    private CopyCounters copyCounters;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @SpyBean
+    private BookCounterRepository bookCounterRepository;
+
+    @Autowired
+    private BookCopyRepository bookCopyRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        book = new Book();
+        book.setIsbn("9780000000601");
+        book.setTitle("Three Copies");
+        book.setAuthor("Author");
+        book.setTotalCopies(3);
+        book.setAvailable(true);
+        bookRepository.saveAndFlush(book);
+        copyInventory.addInitialCopies(book);
+    }
+
+    @Test
+    public void testCopiesAreLentUntilNoneIsLeft() {
+        Set<Long> lent = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(copyInventory.reserve(book.getId()));
+            lent.add(copyInventory.takeCopy(book.getId()));
+        }
+        assertEquals(3, lent.size());
+        assertFalse(copyInventory.reserve(book.getId()));
+
+        entityManager.clear();
+        Book reloaded = bookRepository.findById(book.getId()).orElseThrow();
+        assertEquals(0, reloaded.getAvailableCopies());
+        assertEquals(3, reloaded.getTotalCopies());
+        assertFalse(reloaded.isAvailable());
+
+        Long returned = lent.iterator().next();
+        copyInventory.returnCopy(returned);
+        assertTrue(copyInventory.release(book.getId()));
+        entityManager.clear();
+        reloaded = bookRepository.findById(book.getId()).orElseThrow();
+        assertEquals(1, reloaded.getAvailableCopies());
+        assertTrue(reloaded.isAvailable());
+        assertEquals(returned, copyInventory.takeCopy(book.getId()));
+    }
+
+    @Test
+    public void testReleaseNeverExceedsTotal() {
+        assertFalse(copyInventory.release(book.getId()));
+        entityManager.clear();
+        assertEquals(3, bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies());
+    }
+
+    @Test
+    public void testCountersTurnBorrowersAwayAndTheDatabaseHasTheLastWord() {
+        // Nothing on the shelf in memory: rejected without touching the row
+        copyCounters.put(book.getId(), 3, 0);
+        assertFalse(copyInventory.reserve(book.getId()));
+        assertEquals(1, copyCounters.reconcile());
+
+        // Memory says yes but the row says no: the database wins and the take is handed back
+        bookCounterRepository.reserve(book.getId());
+        bookCounterRepository.reserve(book.getId());
+        bookCounterRepository.reserve(book.getId());
+        copyCounters.put(book.getId(), 3, 3);
+        assertFalse(copyInventory.reserve(book.getId()));
+        assertEquals(1, copyCounters.reconcile());
+        assertEquals(CopyCounters.NONE_LEFT, copyCounters.tryTake(book.getId()));
+    }
+
+    @Test
+    public void testCopiesKeptAsideForHoldsCannotBeWithdrawn() {
+        // Two units reserved without a copy taken, as for two READY holds
+        assertTrue(copyInventory.reserve(book.getId()));
+        assertTrue(copyInventory.reserve(book.getId()));
+        List<CopyView> copies = copyInventory.getCopies(book.getId());
+        assertTrue(copies.stream().allMatch(copy -> copy.getStatus() == BookCopy.CopyStatus.AVAILABLE));
+
+        copyInventory.withdraw(copies.get(0).getId());
+        assertThrows(ConflictException.class, () -> copyInventory.withdraw(copies.get(1).getId()));
+        assertThrows(ConflictException.class, () -> copyInventory.withdraw(copies.get(0).getId()));
+
+        entityManager.clear();
+        Book reloaded = bookRepository.findById(book.getId()).orElseThrow();
+        assertEquals(2, reloaded.getTotalCopies());
+        assertEquals(0, reloaded.getAvailableCopies());
+        assertEquals(BookCopy.CopyStatus.WITHDRAWN,
+            bookCopyRepository.findById(copies.get(0).getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    public void testFailedUpdateHandsTheTakeBack() {
+        copyCounters.put(book.getId(), 3, 3);
+        doThrow(new QueryTimeoutException("Lock wait timeout exceeded")).when(bookCounterRepository).reserve(book.getId());
+
+        assertThrows(QueryTimeoutException.class, () -> copyInventory.reserve(book.getId()));
+        // All three units are still counted on the shelf
+        assertEquals(2, copyCounters.tryTake(book.getId()));
+    }
+}
@@ -0,0 +1,88 @@
+package com.ntuc.ntuclms.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ntuc.ntuclms.dto.CirculationEvent;
+import com.ntuc.ntuclms.entity.OutboxEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventLogTest {
+
+    @TempDir
+    Path logDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private EventLog eventLog;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        eventLog = open();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        eventLog.close();
+    }
+
+    @Test
+    public void testEventsAreNumberedAndReadBackFromASequence() {
+        eventLog.append(List.of(event(11L, OutboxEvent.Type.LOAN_OPENED), event(12L, OutboxEvent.Type.LOAN_RENEWED)));
+        eventLog.append(List.of(event(13L, OutboxEvent.Type.LOAN_RETURNED)));
+
+        assertEquals(3, eventLog.getLastSequence());
+        List<CirculationEvent> tail = eventLog.read(1, 10);
+        assertEquals(List.of(2L, 3L), tail.stream().map(CirculationEvent::getSequence).toList());
+        assertEquals(OutboxEvent.Type.LOAN_RENEWED, tail.get(0).getType());
+        assertEquals("2026-01-15", tail.get(0).getDetail().get("dueDate"));
+        assertEquals(1, eventLog.read(0, 1).size());
+        assertTrue(eventLog.read(3, 10).isEmpty());
+    }
+
+    @Test
+    public void testReopenResumesNumberingAndDropsATornLine() throws Exception {
+        eventLog.append(List.of(event(21L, OutboxEvent.Type.MEMBER_REGISTERED), event(22L, OutboxEvent.Type.LOAN_OPENED)));
+        eventLog.close();
+        // A crash in the middle of the next write
+        Path segment = logDir.resolve("events-" + LocalDate.now() + ".ndjson");
+        Files.write(segment, "{\"sequence\":3,\"eventId\":2".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        eventLog = open();
+        assertEquals(2, eventLog.getLastSequence());
+        assertEquals(List.of(21L, 22L), eventLog.getRecentEventIds());
+
+        eventLog.append(List.of(event(23L, OutboxEvent.Type.LOAN_RETURNED)));
+        List<CirculationEvent> all = eventLog.read(0, 10);
+        assertEquals(List.of(1L, 2L, 3L), all.stream().map(CirculationEvent::getSequence).toList());
+        assertEquals(23L, all.get(2).getEventId());
+    }
+
+    private EventLog open() throws Exception {
+        EventLog log = new EventLog();
+        ReflectionTestUtils.setField(log, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(log, "logDir", logDir.toString());
+        log.open();
+        return log;
+    }
+
+    private static CirculationEvent event(Long id, OutboxEvent.Type type) {
+        return new CirculationEvent(0, id, type, 1L, 100L + id, 200L, Map.of("dueDate", "2026-01-15"),
+            LocalDateTime.now(), LocalDateTime.now());
+    }
+}
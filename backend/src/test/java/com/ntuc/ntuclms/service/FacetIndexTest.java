@@ -0,0 +1,99 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class FacetIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Spy
+    private AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+
+    @InjectMocks
+    private FacetIndex facetIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(bookRepository.findAllFacetFields()).thenReturn(Arrays.asList(
+                new Object[]{1L, "Effective Java", "Joshua Bloch", true},
+                new Object[]{2L, "Effective C++", "Scott Meyers", false},
+                new Object[]{3L, "Java Puzzlers", "Joshua Bloch", false},
+                new Object[]{4L, "1984", "George Orwell", true}
+        ));
+        when(bookRepository.findAvailableIds()).thenReturn(List.of(1L, 4L));
+        ReflectionTestUtils.setField(availabilityIndex, "bookRepository", bookRepository);
+        availabilityIndex.rebuild();
+        facetIndex.rebuild();
+    }
+
+    @Test
+    public void testUnfilteredCounts() {
+        FacetIndex.Selection selection = facetIndex.select(null, null, null);
+
+        assertEquals(4, selection.matches().cardinality());
+        assertEquals(2, availabilityIndex.count());
+        Map<String, Integer> authors = selection.counts().get(FacetIndex.AUTHOR);
+        assertEquals(2, authors.get("Joshua Bloch"));
+        assertEquals("Joshua Bloch", authors.keySet().iterator().next());
+        assertEquals(2, selection.counts().get(FacetIndex.AVAILABLE).get("true"));
+        assertEquals(2, selection.counts().get(FacetIndex.AVAILABLE).get("false"));
+        assertEquals(2, selection.counts().get(FacetIndex.INITIAL).get("E"));
+        assertEquals(1, selection.counts().get(FacetIndex.INITIAL).get("1"));
+    }
+
+    @Test
+    public void testFilteredFacetKeepsOwnOptions() {
+        FacetIndex.Selection selection = facetIndex.select("Joshua Bloch", true, null);
+
+        assertEquals(1, selection.matches().cardinality());
+        assertTrue(selection.matches().contains(1));
+        // Author counts ignore the author filter but honour availability
+        assertEquals(1, selection.counts().get(FacetIndex.AUTHOR).get("Joshua Bloch"));
+        assertEquals(1, selection.counts().get(FacetIndex.AUTHOR).get("George Orwell"));
+        // Availability counts ignore the availability filter but honour the author
+        assertEquals(1, selection.counts().get(FacetIndex.AVAILABLE).get("true"));
+        assertEquals(1, selection.counts().get(FacetIndex.AVAILABLE).get("false"));
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        availabilityIndex.onAvailabilityChanged(3L, true);
+        facetIndex.onBookRemoved(2L, "Effective C++", "Scott Meyers");
+        availabilityIndex.onBookRemoved(2L);
+        facetIndex.onBookAdded(5L, "Joshua Tree", "Anon");
+
+        FacetIndex.Selection selection = facetIndex.select(null, true, "J");
+        assertEquals(1, selection.matches().cardinality());
+        assertTrue(selection.matches().contains(3));
+        assertFalse(selection.counts().get(FacetIndex.AUTHOR).containsKey("Scott Meyers"));
+        assertEquals(2, selection.counts().get(FacetIndex.AVAILABLE).get("true") + selection.counts().get(FacetIndex.AVAILABLE).get("false"));
+    }
+
+    @Test
+    public void testReconcileCorrectsDrift() {
+        // A flip the database never saw, e.g. from a failed transaction
+        availabilityIndex.onAvailabilityChanged(2L, true);
+        assertEquals(3, availabilityIndex.count());
+
+        assertEquals(1, availabilityIndex.reconcile());
+        assertEquals(2, availabilityIndex.count());
+        assertFalse(availabilityIndex.isAvailable(2L));
+    }
+}
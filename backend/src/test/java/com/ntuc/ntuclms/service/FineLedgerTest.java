@@ -0,0 +1,118 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.entity.FineEntry;
+import com.ntuc.ntuclms.entity.Loan;
+import com.ntuc.ntuclms.entity.Member;
+import com.ntuc.ntuclms.entity.MemberBalance;
+import com.ntuc.ntuclms.repository.BookRepository;
+import com.ntuc.ntuclms.repository.FineLedgerRepository;
+import com.ntuc.ntuclms.repository.LoanBatchRepository;
+import com.ntuc.ntuclms.repository.LoanRepository;
+import com.ntuc.ntuclms.repository.MemberRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({BCryptPasswordEncoder.class, FineLedger.class, FineLedgerRepository.class, LoanBatchRepository.class,
+    SecondLevelCache.class, CatalogVersion.class})
+public class FineLedgerTest {
+
+    @Autowired
+    private FineLedger fineLedger;
+
+    @Autowired
+    private LoanBatchRepository loanBatchRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Member member;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        member = new Member();
+        member.setName("Late Returner");
+        member.setUsername("late");
+        member.setEmail("late@example.com");
+        member.setPassword("password");
+        memberRepository.saveAndFlush(member);
+        today = LocalDate.now();
+
+        for (int i = 0; i < 2; i++) {
+            Book book = new Book();
+            book.setIsbn("978000000003" + i);
+            book.setTitle("Late " + i);
+            book.setAuthor("Author");
+            book.setAvailable(false);
+            bookRepository.saveAndFlush(book);
+            loanBatchRepository.insertOpenLoans(member.getId(), List.of(book.getId()),
+                today.minusDays(30), today.minusDays(3 + i));
+        }
+    }
+
+    @Test
+    public void testChargingOverdueLoansAccruesTheDifferenceOnce() {
+        List<Long> loanIds = loanIds();
+
+        assertEquals(2, fineLedger.chargeOverdue(loanIds, today));
+        // Already charged up to today: nothing is written again
+        assertEquals(0, fineLedger.chargeOverdue(loanIds, today));
+        // A day later only the extra day accrues
+        assertEquals(2, fineLedger.chargeOverdue(loanIds, today.plusDays(1)));
+
+        long perDay = FineLedger.toCents(Loan.FINE_PER_DAY);
+        MemberBalance balance = fineLedger.getBalance(member.getId());
+        assertEquals((4 + 5) * perDay, balance.getBalanceCents());
+        assertEquals(balance.getBalanceCents(), balance.getAccruedCents());
+        assertEquals(4, fineLedger.getEntries(member.getId(), 10).size());
+        assertEquals(balance.getBalanceCents(),
+            fineLedger.getEntries(member.getId(), 10).stream().mapToLong(FineEntry::getAmountCents).sum());
+
+        entityManager.clear();
+        assertTrue(loanRepository.findAllById(loanIds).stream().allMatch(loan ->
+            loan.getStatus() == Loan.LoanStatus.OVERDUE && FineLedger.toCents(loan.getFine()) > 0));
+    }
+
+    @Test
+    public void testPaymentsAndWaiversCannotExceedTheBalance() {
+        fineLedger.chargeOverdue(loanIds(), today);
+        long owed = fineLedger.getBalance(member.getId()).getBalanceCents();
+
+        MemberBalance afterPayment = fineLedger.settle(member.getId(), FineEntry.Type.PAYMENT, 150, "Cash");
+        assertEquals(owed - 150, afterPayment.getBalanceCents());
+        assertEquals(150, afterPayment.getPaidCents());
+
+        assertThrows(RuntimeException.class,
+            () -> fineLedger.settle(member.getId(), FineEntry.Type.WAIVER, owed, null));
+        MemberBalance afterWaiver = fineLedger.settle(member.getId(), FineEntry.Type.WAIVER, owed - 150, null);
+        assertEquals(0, afterWaiver.getBalanceCents());
+        assertEquals(owed - 150, afterWaiver.getWaivedCents());
+
+        assertEquals(0, fineLedger.getEntries(member.getId(), 10).stream().mapToLong(FineEntry::getAmountCents).sum());
+    }
+
+    private List<Long> loanIds() {
+        return loanRepository.findActiveDueDates().stream().map(row -> (Long) row[0]).toList();
+    }
+}
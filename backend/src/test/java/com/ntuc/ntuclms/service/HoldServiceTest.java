@@ -0,0 +1,174 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.dto.HoldView;
+import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.entity.Hold;
+import com.ntuc.ntuclms.entity.Member;
+import com.ntuc.ntuclms.exception.ConflictException;
+import com.ntuc.ntuclms.repository.BookCounterRepository;
+import com.ntuc.ntuclms.repository.BookRepository;
+import com.ntuc.ntuclms.repository.HoldRepository;
+import com.ntuc.ntuclms.repository.LoanBatchRepository;
+import com.ntuc.ntuclms.repository.MemberRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@ImportAutoConfiguration(TransactionAutoConfiguration.class)
+@Import({BCryptPasswordEncoder.class, HoldService.class, HoldQueue.class, AvailabilityIndex.class, CatalogVersion.class,
+    CopyInventory.class, CopyCounters.class, LoanBatchRepository.class, BookCounterRepository.class,
+    SecondLevelCache.class})
+public class HoldServiceTest {
+
+    @Autowired
+    private HoldService holdService;
+
+    @SpyBean
+    private HoldRepository holdRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Book book;
+    private Member first;
+    private Member second;
+
+    @BeforeEach
+    void setUp() {
+        first = member("first");
+        second = member("second");
+        book = new Book();
+        book.setIsbn("9780000000501");
+        book.setTitle("Popular");
+        book.setAuthor("Author");
+        book.setAvailable(false);
+        bookRepository.saveAndFlush(book);
+        holdService.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testReturnedBookGoesToTheHeadOfTheQueue() {
+        HoldView firstHold = placeHold(first);
+        HoldView secondHold = placeHold(second);
+        assertEquals(1, firstHold.getPosition());
+        assertEquals(2, secondHold.getPosition());
+
+        assertTrue(holdService.passOn(book.getId()));
+        entityManager.clear();
+        assertFalse(bookRepository.findById(book.getId()).orElseThrow().isAvailable());
+        assertEquals(Hold.HoldStatus.READY, holdRepository.findById(firstHold.getId()).orElseThrow().getStatus());
+
+        // Only the member at the head of the queue can claim it
+        assertFalse(holdService.claim(second.getId(), book.getId()));
+        assertTrue(holdService.claim(first.getId(), book.getId()));
+        assertFalse(holdService.claim(first.getId(), book.getId()));
+        entityManager.clear();
+        assertEquals(Hold.HoldStatus.FULFILLED, holdRepository.findById(firstHold.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    public void testCheckoutClaimsOnlyTheMembersReadyHolds() {
+        HoldView firstHold = placeHold(first);
+        HoldView secondHold = placeHold(second);
+        holdService.passOn(book.getId());
+
+        assertEquals(List.of(), holdService.claimAll(second.getId(), List.of(book.getId())));
+        assertEquals(List.of(book.getId()), holdService.claimAll(first.getId(), List.of(book.getId(), -1L)));
+        assertEquals(List.of(), holdService.claimAll(first.getId(), List.of(book.getId())));
+        entityManager.clear();
+        assertEquals(Hold.HoldStatus.FULFILLED, holdRepository.findById(firstHold.getId()).orElseThrow().getStatus());
+        assertEquals(Hold.HoldStatus.WAITING, holdRepository.findById(secondHold.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    public void testHeadCancelledAfterTheLookupIsSkipped() {
+        HoldView firstHold = placeHold(first);
+        HoldView secondHold = placeHold(second);
+        holdRepository.cancel(firstHold.getId(), Hold.HoldStatus.WAITING);
+        // A lookup from a snapshot taken before the cancel still sees the cancelled hold at the head
+        doReturn(List.of(firstHold.getId())).when(holdRepository).findWaitingIds(eq(book.getId()), eq(0L), any());
+
+        assertTrue(holdService.passOn(book.getId()));
+        entityManager.clear();
+        assertEquals(Hold.HoldStatus.CANCELLED, holdRepository.findById(firstHold.getId()).orElseThrow().getStatus());
+        assertEquals(Hold.HoldStatus.READY, holdRepository.findById(secondHold.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    public void testBookIsReleasedWhenNobodyIsWaiting() {
+        assertFalse(holdService.passOn(book.getId()));
+        entityManager.clear();
+        assertTrue(bookRepository.findById(book.getId()).orElseThrow().isAvailable());
+        assertThrows(RuntimeException.class, () -> placeHold(first));
+    }
+
+    @Test
+    public void testDuplicateHoldIsRejected() {
+        placeHold(first);
+        assertThrows(ConflictException.class, () -> placeHold(first));
+    }
+
+    @Test
+    public void testMissedPickupPassesTheBookOn() {
+        HoldView firstHold = placeHold(first);
+        HoldView secondHold = placeHold(second);
+        holdService.passOn(book.getId());
+        LocalDateTime missed = LocalDateTime.now().minusMinutes(1);
+        entityManager.createQuery("update Hold h set h.expiresAt = :missed where h.id = :id")
+            .setParameter("missed", missed).setParameter("id", firstHold.getId()).executeUpdate();
+        entityManager.clear();
+
+        // What the pickup timer runs once the deadline passes
+        assertTrue(holdService.expire(firstHold.getId()));
+        entityManager.clear();
+        assertEquals(Hold.HoldStatus.EXPIRED, holdRepository.findById(firstHold.getId()).orElseThrow().getStatus());
+        assertEquals(Hold.HoldStatus.READY, holdRepository.findById(secondHold.getId()).orElseThrow().getStatus());
+        assertFalse(bookRepository.findById(book.getId()).orElseThrow().isAvailable());
+        assertEquals(List.of(), holdRepository.findActiveViewsByMember(first.getId()));
+    }
+
+    private HoldView placeHold(Member member) {
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(member.getUsername(), null, List.of()));
+        return holdService.placeHold(book.getId());
+    }
+
+    private Member member(String username) {
+        Member member = new Member();
+        member.setName(username);
+        member.setUsername(username);
+        member.setEmail(username + "@example.com");
+        member.setPassword("password");
+        return memberRepository.saveAndFlush(member);
+    }
+}
@@ -1,6 +1,8 @@
 package com.ntuc.ntuclms.service;
 
+import com.ntuc.ntuclms.dto.MemberSummary;
 import com.ntuc.ntuclms.entity.Member;
+import com.ntuc.ntuclms.repository.ArchivedLoanRepository;
 import com.ntuc.ntuclms.repository.MemberRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,6 +31,18 @@ public class MemberServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private CatalogVersion catalogVersion;
+
+    @Mock
+    private HoldService holdService;
+
+    @Mock
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Mock
+    private Outbox outbox;
+
     @InjectMocks
     private MemberService memberService;
 
@@ -123,11 +137,15 @@ public class MemberServiceTest {
     @Test
     public void testGetAllMembers() {
         // Given
-        List<Member> members = Arrays.asList(testUser, testAdmin);
-        when(memberRepository.findAll()).thenReturn(members);
+        List<MemberSummary> members = Arrays.asList(
+            new MemberSummary(1L, "John Doe", "johndoe", "john.doe@example.com", LocalDate.now(),
+                Member.Role.USER, Member.MembershipStatus.ACTIVE, 1),
+            new MemberSummary(2L, "Jane Smith", "janesmith", "jane.smith@example.com", LocalDate.now(),
+                Member.Role.ADMIN, Member.MembershipStatus.ACTIVE, 0));
+        when(memberRepository.findAllSummaries()).thenReturn(members);
 
         // When
-        List<Member> result = memberService.getAllMembers();
+        List<MemberSummary> result = memberService.getAllMembers();
 
         // Then
         assertNotNull(result);
@@ -136,8 +154,9 @@ public class MemberServiceTest {
         assertEquals("Jane Smith", result.get(1).getName());
         assertEquals(Member.Role.USER, result.get(0).getRole());
         assertEquals(Member.Role.ADMIN, result.get(1).getRole());
+        assertEquals(1, result.get(0).getActiveLoans());
 
-        verify(memberRepository).findAll();
+        verify(memberRepository).findAllSummaries();
     }
 
     @Test
@@ -222,5 +241,35 @@ public class MemberServiceTest {
         verify(memberRepository).findById(999L);
         verify(memberRepository, never()).deleteById(any());
     }
-}
 
+    @Test
+    public void testCanBorrowReadsCountersOnly() {
+        testUser.setActiveLoanCount(MemberService.MAX_ACTIVE_LOANS - 1);
+        testUser.setEarliestActiveDueDate(LocalDate.now());
+
+        assertTrue(memberService.canBorrow(testUser));
+        assertNull(testUser.getLoans());
+    }
+
+    @Test
+    public void testCannotBorrowAtLoanLimit() {
+        testUser.setActiveLoanCount(MemberService.MAX_ACTIVE_LOANS);
+
+        assertFalse(memberService.canBorrow(testUser));
+    }
+
+    @Test
+    public void testCannotBorrowWithOverdueLoan() {
+        testUser.setActiveLoanCount(1);
+        testUser.setEarliestActiveDueDate(LocalDate.now().minusDays(1));
+
+        assertFalse(memberService.canBorrow(testUser));
+    }
+
+    @Test
+    public void testCannotBorrowWithInactiveMembership() {
+        testUser.setMembershipStatus(Member.MembershipStatus.SUSPENDED);
+
+        assertFalse(memberService.canBorrow(testUser));
+    }
+}
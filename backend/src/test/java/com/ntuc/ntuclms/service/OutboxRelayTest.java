@@ -0,0 +1,101 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.dto.CirculationEvent;
+import com.ntuc.ntuclms.entity.Member;
+import com.ntuc.ntuclms.entity.OutboxEvent;
+import com.ntuc.ntuclms.repository.MemberRepository;
+import com.ntuc.ntuclms.repository.OutboxEventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "outbox.log-dir=${java.io.tmpdir}/ntuclms-events-${random.uuid}",
+    "outbox.batch-size=2"
+})
+@ImportAutoConfiguration({TransactionAutoConfiguration.class, JacksonAutoConfiguration.class})
+@Import({BCryptPasswordEncoder.class, Outbox.class, OutboxRelay.class, EventLog.class, CirculationStats.class})
+public class OutboxRelayTest {
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private EventLog eventLog;
+
+    @Autowired
+    private CirculationStats circulationStats;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Test
+    public void testPendingEventsArePublishedInOrderToTheLogAndSubscribers() {
+        Member member = member("relayed");
+        outbox.member(OutboxEvent.Type.MEMBER_REGISTERED, member);
+        outbox.member(OutboxEvent.Type.MEMBERSHIP_RENEWED, member);
+        outbox.memberDeleted(member.getId());
+        long before = eventLog.getLastSequence();
+
+        // Three events in batches of two
+        assertEquals(3, outboxRelay.relay());
+        assertEquals(0, outboxEventRepository.countByPublishedAtIsNull());
+
+        List<CirculationEvent> logged = eventLog.read(before, 10);
+        assertEquals(List.of(OutboxEvent.Type.MEMBER_REGISTERED, OutboxEvent.Type.MEMBERSHIP_RENEWED,
+            OutboxEvent.Type.MEMBER_DELETED), logged.stream().map(CirculationEvent::getType).toList());
+        assertEquals(List.of(before + 1, before + 2, before + 3),
+            logged.stream().map(CirculationEvent::getSequence).toList());
+        assertEquals("relayed", logged.get(0).getDetail().get("username"));
+
+        @SuppressWarnings("unchecked")
+        Map<OutboxEvent.Type, Long> today = (Map<OutboxEvent.Type, Long>) circulationStats.snapshot().get("today");
+        assertEquals(1L, today.get(OutboxEvent.Type.MEMBER_DELETED));
+        assertEquals(0, outboxRelay.relay());
+    }
+
+    @Test
+    public void testEventsAlreadyInTheLogAreNotPublishedTwice() {
+        Member member = member("recovered");
+        outbox.member(OutboxEvent.Type.MEMBER_UPDATED, member);
+        OutboxEvent pending = outboxEventRepository.findAll().stream()
+            .filter(event -> event.getPublishedAt() == null).findFirst().orElseThrow();
+        // A relay that crashed after appending the event but before marking it published
+        eventLog.append(List.of(new CirculationEvent(0, pending.getId(), pending.getType(), member.getId(),
+            null, null, null, pending.getOccurredAt(), LocalDateTime.now())));
+        long before = eventLog.getLastSequence();
+        ReflectionTestUtils.setField(outboxRelay, "reconciled", false);
+
+        assertEquals(0, outboxRelay.relay());
+        assertEquals(0, outboxEventRepository.countByPublishedAtIsNull());
+        assertEquals(before, eventLog.getLastSequence());
+    }
+
+    private Member member(String username) {
+        Member member = new Member();
+        member.setName("Relay Reader");
+        member.setUsername(username);
+        member.setEmail(username + "@example.com");
+        member.setPassword("password");
+        return memberRepository.saveAndFlush(member);
+    }
+}
@@ -0,0 +1,187 @@
+package com.ntuc.ntuclms.service;
+
+import com.ntuc.ntuclms.entity.Book;
+import com.ntuc.ntuclms.entity.Loan;
+import com.ntuc.ntuclms.entity.Member;
+import com.ntuc.ntuclms.repository.BookCounterRepository;
+import com.ntuc.ntuclms.repository.LoanBatchRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Each step runs in its own committed transaction, since the second-level cache is only filled and read across sessions
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({BCryptPasswordEncoder.class, SecondLevelCache.class, CopyInventory.class, CopyCounters.class,
+    AvailabilityIndex.class, LoanBatchRepository.class, BookCounterRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SecondLevelCacheTest {
+
+    private static final String MEMBER_LOANS = Member.class.getName() + ".loans";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private SecondLevelCache secondLevelCache;
+
+    @Autowired
+    private CopyInventory copyInventory;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+    private Long bookId;
+    private Long otherBookId;
+    private Long memberId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        inTransaction(entityManager -> {
+            Book book = new Book();
+            book.setIsbn("9780000000701");
+            book.setTitle("Cached Title");
+            book.setAuthor("Author");
+            entityManager.persist(book);
+            Book other = new Book();
+            other.setIsbn("9780000000702");
+            other.setTitle("Other Title");
+            other.setAuthor("Author");
+            entityManager.persist(other);
+            Member member = new Member();
+            member.setName("Cached Member");
+            member.setUsername("cached");
+            member.setEmail("cached@example.com");
+            member.setPassword("password");
+            entityManager.persist(member);
+            Loan loan = new Loan();
+            loan.setBook(book);
+            loan.setMember(member);
+            loan.setBorrowDate(LocalDate.now());
+            loan.setDueDate(LocalDate.now().plusDays(14));
+            loan.setReturnDate(LocalDate.now());
+            loan.setStatus(Loan.LoanStatus.RETURNED);
+            entityManager.persist(loan);
+            bookId = book.getId();
+            otherBookId = other.getId();
+            memberId = member.getId();
+        });
+        cache().evictAllRegions();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        inTransaction(entityManager -> {
+            entityManager.createQuery("delete from Loan l where l.member.id = :id").setParameter("id", memberId)
+                .executeUpdate();
+            entityManager.createQuery("delete from Member m where m.id = :id").setParameter("id", memberId)
+                .executeUpdate();
+            entityManager.createQuery("delete from Book b where b.id in :ids")
+                .setParameter("ids", List.of(bookId, otherBookId)).executeUpdate();
+        });
+        cache().evictAllRegions();
+    }
+
+    @Test
+    public void testBooksAndMembersAreServedFromTheCacheUntilEvicted() {
+        inTransaction(entityManager -> entityManager.find(Book.class, bookId));
+        inTransaction(entityManager -> entityManager.find(Member.class, memberId));
+        assertTrue(cache().containsEntity(Book.class, bookId));
+        assertTrue(cache().containsEntity(Member.class, memberId));
+
+        long queries = statistics.getPrepareStatementCount();
+        assertEquals("Cached Title", fetch(entityManager -> entityManager.find(Book.class, bookId)).getTitle());
+        assertEquals("cached", fetch(entityManager -> entityManager.find(Member.class, memberId)).getUsername());
+        assertEquals(queries, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityStatistics(Book.class.getName()).getCacheHitCount());
+        assertEquals(1, statistics.getEntityStatistics(Member.class.getName()).getCacheHitCount());
+
+        // Outside a transaction the evictions apply at once
+        secondLevelCache.evictBooks(List.of(bookId));
+        secondLevelCache.evictMember(memberId);
+        assertFalse(cache().containsEntity(Book.class, bookId));
+        assertFalse(cache().containsEntity(Member.class, memberId));
+        inTransaction(entityManager -> entityManager.find(Book.class, bookId));
+        assertEquals(queries + 1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testTakingACopyEvictsOnlyThatBook() {
+        inTransaction(entityManager -> entityManager.find(Book.class, bookId));
+        inTransaction(entityManager -> entityManager.find(Book.class, otherBookId));
+
+        inTransaction(entityManager -> assertTrue(copyInventory.reserve(bookId)));
+        assertFalse(cache().containsEntity(Book.class, bookId));
+        assertTrue(cache().containsEntity(Book.class, otherBookId));
+        assertEquals(0, fetch(entityManager -> entityManager.find(Book.class, bookId)).getAvailableCopies());
+
+        inTransaction(entityManager -> entityManager.find(Book.class, bookId));
+        inTransaction(entityManager -> assertTrue(copyInventory.release(bookId)));
+        assertFalse(cache().containsEntity(Book.class, bookId));
+        assertTrue(cache().containsEntity(Book.class, otherBookId));
+        assertEquals(1, fetch(entityManager -> entityManager.find(Book.class, bookId)).getAvailableCopies());
+    }
+
+    @Test
+    public void testMemberLoansCollectionIsCachedAndEvictedOnCommit() {
+        assertEquals(1, (int) fetch(entityManager -> entityManager.find(Member.class, memberId).getLoans().size()));
+        assertTrue(cache().containsCollection(MEMBER_LOANS, memberId));
+        assertEquals(1, (int) fetch(entityManager -> entityManager.find(Member.class, memberId).getLoans().size()));
+        assertEquals(1, statistics.getCollectionStatistics(MEMBER_LOANS).getCacheHitCount());
+
+        // Inside a transaction the eviction waits for the commit, and a rollback keeps the cached collection
+        inTransactionRolledBack(entityManager -> secondLevelCache.evictMemberLoans(memberId));
+        assertTrue(cache().containsCollection(MEMBER_LOANS, memberId));
+        inTransaction(entityManager -> secondLevelCache.evictMemberLoans(memberId));
+        assertFalse(cache().containsCollection(MEMBER_LOANS, memberId));
+    }
+
+    private Cache cache() {
+        return entityManagerFactory.getCache().unwrap(Cache.class);
+    }
+
+    private void inTransaction(Consumer<EntityManager> work) {
+        transactionTemplate.executeWithoutResult(status -> work.accept(entityManager));
+    }
+
+    private <T> T fetch(Function<EntityManager, T> work) {
+        return transactionTemplate.execute(status -> work.apply(entityManager));
+    }
+
+    private void inTransactionRolledBack(Consumer<EntityManager> work) {
+        transactionTemplate.executeWithoutResult(status -> {
+            work.accept(entityManager);
+            status.setRollbackOnly();
+        });
+    }
+}
@@ -0,0 +1,78 @@
+package com.ntuc.ntuclms.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressedBitmapTest {
+
+    @Test
+    public void testAddRemoveAndCardinality() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        assertTrue(bitmap.add(7));
+        assertFalse(bitmap.add(7));
+        assertTrue(bitmap.add(1 << 20));
+        assertEquals(2, bitmap.cardinality());
+        assertTrue(bitmap.contains(1 << 20));
+
+        assertTrue(bitmap.remove(7));
+        assertFalse(bitmap.remove(7));
+        assertFalse(bitmap.contains(7));
+        assertEquals(1, bitmap.cardinality());
+        assertEquals(1 << 20, bitmap.nextSetBit(0));
+        assertEquals(-1, bitmap.nextSetBit((1 << 20) + 1));
+    }
+
+    @Test
+    public void testDenseChunkConvertsAndShrinksBack() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int i = 0; i < 10000; i++) {
+            bitmap.add(i * 2);
+        }
+        assertEquals(10000, bitmap.cardinality());
+        for (int i = 0; i < 9000; i++) {
+            bitmap.remove(i * 2);
+        }
+        assertEquals(1000, bitmap.cardinality());
+        assertEquals(18000, bitmap.nextSetBit(0));
+        assertEquals(18002, bitmap.nextSetBit(18001));
+    }
+
+    @Test
+    public void testSetOperationsMatchBitSet() {
+        Random random = new Random(42);
+        CompressedBitmap a = new CompressedBitmap();
+        CompressedBitmap b = new CompressedBitmap();
+        BitSet expectedA = new BitSet();
+        BitSet expectedB = new BitSet();
+        // Mix of sparse and dense chunks on both sides
+        for (int i = 0; i < 50000; i++) {
+            int x = random.nextInt(i % 2 == 0 ? 70000 : 400000);
+            int y = random.nextInt(i % 3 == 0 ? 70000 : 400000);
+            a.add(x);
+            expectedA.set(x);
+            b.add(y);
+            expectedB.set(y);
+        }
+
+        BitSet and = (BitSet) expectedA.clone();
+        and.and(expectedB);
+        BitSet andNot = (BitSet) expectedA.clone();
+        andNot.andNot(expectedB);
+
+        assertEquals(and, toBitSet(CompressedBitmap.and(a, b)));
+        assertEquals(andNot, toBitSet(CompressedBitmap.andNot(a, b)));
+        assertEquals(and.cardinality(), CompressedBitmap.andCardinality(a, b));
+        assertEquals(CompressedBitmap.and(a, b).cardinality(), and.cardinality());
+        assertEquals(expectedA, toBitSet(a.copy()));
+    }
+
+    private static BitSet toBitSet(CompressedBitmap bitmap) {
+        BitSet bits = new BitSet();
+        bitmap.forEach(bits::set);
+        return bits;
+    }
+}
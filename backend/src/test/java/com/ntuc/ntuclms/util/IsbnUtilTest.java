@@ -0,0 +1,42 @@
+package com.ntuc.ntuclms.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IsbnUtilTest {
+
+    @Test
+    public void testIsbn13WithHyphens() {
+        assertEquals(9780134685991L, IsbnUtil.toKey("978-0134685991"));
+        assertEquals(9780134685991L, IsbnUtil.toKey("978 0 13 468599 1"));
+    }
+
+    @Test
+    public void testIsbn10ConvertsToIsbn13() {
+        assertEquals(9780134685991L, IsbnUtil.toKey("0-13-468599-7"));
+        assertEquals(9780306406157L, IsbnUtil.toKey("0-306-40615-2"));
+        assertEquals(9780804429573L, IsbnUtil.toKey("080442957X"));
+    }
+
+    @Test
+    public void testInvalidChecksumsAreRejected() {
+        assertEquals(IsbnUtil.INVALID, IsbnUtil.toKey("978-0134685992"));
+        assertEquals(IsbnUtil.INVALID, IsbnUtil.toKey("0-13-468599-8"));
+        assertEquals(IsbnUtil.INVALID, IsbnUtil.toKey("X801344685"));
+    }
+
+    @Test
+    public void testMalformedInputIsRejected() {
+        assertEquals(IsbnUtil.INVALID, IsbnUtil.toKey(null));
+        assertEquals(IsbnUtil.INVALID, IsbnUtil.toKey(""));
+        assertEquals(IsbnUtil.INVALID, IsbnUtil.toKey("978-01346"));
+        assertEquals(IsbnUtil.INVALID, IsbnUtil.toKey("978-0134685991-1"));
+        assertEquals(IsbnUtil.INVALID, IsbnUtil.toKey("ISBN9780134685991"));
+    }
+
+    @Test
+    public void testFormat() {
+        assertEquals("9780134685991", IsbnUtil.format(IsbnUtil.toKey("0-13-468599-7")));
+    }
+}
@@ -0,0 +1,95 @@
+package com.ntuc.ntuclms.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoanColumnsTest {
+
+    // Counts rows per author, the shape of the analytics aggregators
+    private static final LoanColumns.Aggregator<long[]> PER_AUTHOR = new LoanColumns.Aggregator<>() {
+        @Override
+        public long[] create() {
+            return new long[4];
+        }
+
+        @Override
+        public void accumulate(long[] acc, LoanColumns columns, int fromRow, int toRow) {
+            for (int row = fromRow; row < toRow; row++) {
+                acc[columns.authorCodes()[row]]++;
+            }
+        }
+
+        @Override
+        public long[] merge(long[] left, long[] right) {
+            for (int i = 0; i < left.length; i++) {
+                left[i] += right[i];
+            }
+            return left;
+        }
+    };
+
+    @Test
+    public void testRowsAreSortedByBorrowDay() {
+        LoanColumns.Builder builder = new LoanColumns.Builder();
+        builder.add(1, 1, "B", 30, 44, LoanColumns.OPEN, 0, 0);
+        builder.add(2, 1, "A", 10, 24, 20, 150, 1);
+        builder.add(3, 2, "B", 20, 34, 40, 0, 0);
+        LoanColumns columns = builder.build();
+
+        assertArrayEquals(new int[]{10, 20, 30}, columns.borrowDays());
+        assertArrayEquals(new int[]{2, 3, 1}, columns.bookIds());
+        assertArrayEquals(new int[]{150, 0, 0}, columns.fineCents());
+        assertEquals("A", columns.author(columns.authorCodes()[0]));
+        assertEquals(2, columns.authorCount());
+        assertEquals(1, columns.firstRowOnOrAfter(11));
+        assertEquals(3, columns.firstRowOnOrAfter(31));
+    }
+
+    @Test
+    public void testParallelScanMatchesBruteForce() {
+        // Enough rows to split into many pieces
+        Random random = new Random(7);
+        int rows = 300_000;
+        int[] days = new int[rows];
+        int[] authorCodes = new int[rows];
+        String[] names = {"A", "B", "C", "D"};
+        LoanColumns.Builder builder = new LoanColumns.Builder();
+        for (int i = 0; i < rows; i++) {
+            days[i] = random.nextInt(2000) - 500;
+            int author = random.nextInt(4);
+            authorCodes[i] = author;
+            builder.add(i + 1, random.nextInt(100) + 1, names[author], days[i], days[i] + 14, LoanColumns.OPEN, 0, 0);
+        }
+        LoanColumns columns = builder.build();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int[] range : new int[][]{{Integer.MIN_VALUE, Integer.MAX_VALUE}, {0, 999}, {-500, -500}, {5000, 6000}}) {
+                long[] expected = new long[4];
+                for (int i = 0; i < rows; i++) {
+                    if (days[i] >= range[0] && days[i] <= range[1]) {
+                        expected[authorCodes[i]]++;
+                    }
+                }
+                long[] actual = columns.scan(pool, range[0], range[1], PER_AUTHOR);
+                for (int author = 0; author < 4; author++) {
+                    assertEquals(expected[author], actual[codeOf(columns, names[author])]);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static int codeOf(LoanColumns columns, String author) {
+        for (int code = 0; code < columns.authorCount(); code++) {
+            if (columns.author(code).equals(author)) {
+                return code;
+            }
+        }
+        throw new AssertionError(author);
+    }
+}
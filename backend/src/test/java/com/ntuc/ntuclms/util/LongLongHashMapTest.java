@@ -0,0 +1,59 @@
+package com.ntuc.ntuclms.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongLongHashMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        LongLongHashMap map = new LongLongHashMap();
+        assertEquals(LongLongHashMap.NO_VALUE, map.put(9780134685991L, 1L));
+        assertEquals(1L, map.put(9780134685991L, 2L));
+        assertEquals(2L, map.get(9780134685991L));
+        assertEquals(1, map.size());
+
+        assertEquals(2L, map.remove(9780134685991L));
+        assertEquals(LongLongHashMap.NO_VALUE, map.get(9780134685991L));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testZeroKeyIsRejected() {
+        LongLongHashMap map = new LongLongHashMap();
+        assertThrows(IllegalArgumentException.class, () -> map.put(0L, 1L));
+    }
+
+    @Test
+    public void testMatchesHashMapUnderRandomOperations() {
+        LongLongHashMap map = new LongLongHashMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                Long previous = expected.remove(key);
+                assertEquals(previous == null ? LongLongHashMap.NO_VALUE : previous, map.remove(key));
+            } else {
+                long value = random.nextLong();
+                Long previous = expected.put(key, value);
+                assertEquals(previous == null ? LongLongHashMap.NO_VALUE : previous, map.put(key, value));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected.keySet(), LongStream.of(map.keys()).boxed().collect(Collectors.toSet()));
+        for (long key = 1; key <= 5_000; key++) {
+            Long value = expected.get(key);
+            assertEquals(value == null ? LongLongHashMap.NO_VALUE : value, map.get(key));
+        }
+    }
+}
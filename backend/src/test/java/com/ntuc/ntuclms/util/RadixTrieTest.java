@@ -0,0 +1,83 @@
+package com.ntuc.ntuclms.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RadixTrieTest {
+
+    @Test
+    public void testTopKOrdersByWeight() {
+        RadixTrie trie = new RadixTrie();
+        trie.add("effective java", "Effective Java");
+        trie.add("effective c++", "Effective C++");
+        trie.add("effective c++", "Effective C++");
+        trie.add("effective modern c++", "Effective Modern C++");
+        trie.add("eloquent javascript", "Eloquent JavaScript");
+
+        assertEquals(List.of("Effective C++", "Effective Java", "Effective Modern C++"), trie.topK("eff", 3));
+        assertEquals(List.of("Effective C++"), trie.topK("e", 1));
+        assertEquals(List.of("Eloquent JavaScript"), trie.topK("elo", 5));
+        assertEquals(List.of(), trie.topK("x", 5));
+    }
+
+    @Test
+    public void testPrefixEndingInsideEdge() {
+        RadixTrie trie = new RadixTrie();
+        trie.add("refactoring", "Refactoring");
+
+        assertEquals(List.of("Refactoring"), trie.topK("refac", 5));
+        assertEquals(List.of("Refactoring"), trie.topK("refactoring", 5));
+        assertEquals(List.of(), trie.topK("refactorings", 5));
+    }
+
+    @Test
+    public void testRemoveCompactsAndKeepsSiblings() {
+        RadixTrie trie = new RadixTrie();
+        trie.add("clean code", "Clean Code");
+        trie.add("clean architecture", "Clean Architecture");
+        trie.add("clean", "Clean");
+        assertEquals(3, trie.size());
+
+        assertTrue(trie.remove("clean", "Clean"));
+        assertFalse(trie.remove("clean", "Clean"));
+        assertTrue(trie.remove("clean code", "Clean Code"));
+
+        assertEquals(1, trie.size());
+        assertEquals(List.of("Clean Architecture"), trie.topK("cl", 5));
+        assertEquals(List.of(), trie.topK("clean c", 5));
+    }
+
+    @Test
+    public void testRemoveDecrementsWeight() {
+        RadixTrie trie = new RadixTrie();
+        trie.add("dune", "Dune");
+        trie.add("dune", "Dune");
+        trie.add("dracula", "Dracula");
+
+        trie.remove("dune", "Dune");
+        assertEquals(List.of("Dracula", "Dune"), trie.topK("d", 5));
+        trie.remove("dune", "Dune");
+        assertEquals(List.of("Dracula"), trie.topK("d", 5));
+    }
+
+    @Test
+    public void testTitlesSharingAKeyAreAllSuggested() {
+        RadixTrie trie = new RadixTrie();
+        trie.add("java", "Effective Java");
+        trie.add("java", "Core Java");
+        trie.add("java", "Core Java");
+        assertEquals(1, trie.size());
+        assertEquals(List.of("Core Java", "Effective Java"), trie.topK("ja", 5));
+
+        assertFalse(trie.remove("java", "Head First Java"));
+        assertTrue(trie.remove("java", "Effective Java"));
+        assertEquals(List.of("Core Java"), trie.topK("ja", 5));
+        assertTrue(trie.remove("java", "Core Java"));
+        assertTrue(trie.remove("java", "Core Java"));
+        assertEquals(0, trie.size());
+        assertEquals(List.of(), trie.topK("ja", 5));
+    }
+}
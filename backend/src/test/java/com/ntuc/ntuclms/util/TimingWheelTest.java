@@ -0,0 +1,82 @@
+package com.ntuc.ntuclms.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingWheelTest {
+
+    @Test
+    public void testTimerFiresOnceAtItsDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 3, 0);
+        wheel.schedule("a", 95);
+
+        assertTrue(wheel.advance(90).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(100));
+        assertTrue(wheel.advance(1000).isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testCancelAndReschedule() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 2, 0);
+        wheel.schedule(1L, 10);
+        wheel.schedule(2L, 10);
+        assertTrue(wheel.cancel(1L));
+        assertFalse(wheel.cancel(1L));
+        // Rescheduling replaces the pending deadline
+        wheel.schedule(2L, 5000);
+
+        assertTrue(wheel.advance(4999).isEmpty());
+        assertEquals(List.of(2L), wheel.advance(5000));
+    }
+
+    @Test
+    public void testPastDeadlineFiresOnNextAdvance() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1000, 4, 100_000);
+        wheel.schedule(7L, 50_000);
+
+        assertEquals(List.of(7L), wheel.advance(101_000));
+    }
+
+    @Test
+    public void testMatchesBruteForceAcrossLevelsAndBeyondRange() {
+        // Two levels cover 4096 ticks; some deadlines lie far past that
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 2, 0);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        Random random = new Random(42);
+        long now = 0;
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < 20; i++) {
+                int key = random.nextInt(500);
+                long deadline = now + (random.nextInt(4) == 0 ? random.nextInt(20_000) : random.nextInt(300));
+                wheel.schedule(key, deadline);
+                deadlines.put(key, deadline);
+            }
+            for (int i = 0; i < 5; i++) {
+                int key = random.nextInt(500);
+                assertEquals(deadlines.remove(key) != null, wheel.cancel(key));
+            }
+
+            now += random.nextInt(400);
+            List<Integer> expected = new ArrayList<>();
+            for (Map.Entry<Integer, Long> entry : deadlines.entrySet()) {
+                if (entry.getValue() <= now) {
+                    expected.add(entry.getKey());
+                }
+            }
+            expected.forEach(deadlines::remove);
+
+            List<Integer> fired = wheel.advance(now);
+            assertEquals(expected.size(), fired.size());
+            assertTrue(fired.containsAll(expected));
+            assertEquals(deadlines.size(), wheel.size());
+        }
+    }
+}
@@ -133,7 +133,9 @@ function BookCatalog() {
                 <p className="book-author">by {book.author}</p>
                 <p className="book-isbn">ISBN: {book.isbn}</p>
                 <div className={`availability ${book.available ? 'available' : 'unavailable'}`}>
-                  {book.available ? 'Available' : 'Not Available'}
+                  {book.totalCopies > 1
+                    ? `${book.availableCopies} of ${book.totalCopies} available`
+                    : (book.available ? 'Available' : 'Not Available')}
                 </div>
               </div>
               
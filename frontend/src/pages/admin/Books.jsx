@@ -47,7 +47,7 @@ function AdminBooks() {
         <button type="submit">Add Book</button>
       </form>
       <table>
-        <thead><tr><th>ID</th><th>ISBN</th><th>Title</th><th>Author</th></tr></thead>
+        <thead><tr><th>ID</th><th>ISBN</th><th>Title</th><th>Author</th><th>Copies</th></tr></thead>
         <tbody>
           {books.map(book => (
             <tr key={book.id}>
@@ -55,6 +55,7 @@ function AdminBooks() {
               <td>{book.isbn}</td>
               <td>{book.title}</td>
               <td>{book.author}</td>
+              <td>{book.availableCopies} of {book.totalCopies} available</td>
             </tr>
           ))}
         </tbody>
@@ -31,8 +31,8 @@ function AdminDashboard() {
         <tbody>
           {loans.map(loan => (
             <tr key={loan.id}>
-              <td>{loan.member.name}</td>
-              <td>{loan.book.title}</td>
+              <td>{loan.memberName}</td>
+              <td>{loan.bookTitle}</td>
               <td>{loan.borrowDate}</td>
               <td>{loan.dueDate}</td>
             </tr>
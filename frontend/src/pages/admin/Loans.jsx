@@ -91,8 +91,8 @@ function AdminLoans() {
           {loans.map(loan => (
             <tr key={loan.id}>
               <td>{loan.id}</td>
-              <td>{loan.member.name}</td>
-              <td>{loan.book.title}</td>
+              <td>{loan.memberName}</td>
+              <td>{loan.bookTitle}</td>
               <td>{loan.borrowDate}</td>
               <td>{loan.dueDate}</td>
               <td>{loan.returnDate}</td>
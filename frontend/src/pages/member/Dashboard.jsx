@@ -33,7 +33,7 @@ function MemberDashboard() {
         <tbody>
           {data.currentLoans.map(loan => (
             <tr key={loan.id}>
-              <td>{loan.book.title}</td>
+              <td>{loan.bookTitle}</td>
               <td>{loan.borrowDate}</td>
               <td>{loan.dueDate}</td>
             </tr>
@@ -46,7 +46,7 @@ function MemberDashboard() {
         <tbody>
           {data.history.map(loan => (
             <tr key={loan.id}>
-              <td>{loan.book.title}</td>
+              <td>{loan.bookTitle}</td>
               <td>{loan.borrowDate}</td>
               <td>{loan.returnDate || 'Active'}</td>
               <td>{loan.fine}</td>
@@ -19,10 +19,11 @@ class ApiService {
     return this.token || localStorage.getItem('token');
   }
 
-  async request(method, path, body = null) {
+  async request(method, path, body = null, extraHeaders = {}) {
     const url = `${BASE_URL}${path}`;
     const headers = {
       'Content-Type': 'application/json',
+      ...extraHeaders,
     };
 
     const token = this.getToken();
@@ -36,7 +37,7 @@ class ApiService {
     };
 
     if (body) {
-      options.body = JSON.stringify(body);
+      options.body = typeof body === 'string' ? body : JSON.stringify(body);
     }
 
     try {
@@ -66,6 +67,20 @@ class ApiService {
     }
   }
 
+  // For circulation mutations: a request lost to a network error is sent once more under the same
+  // Idempotency-Key, so the server replays the first result instead of applying it twice
+  async idempotentRequest(method, path, body = null) {
+    const headers = { 'Idempotency-Key': crypto.randomUUID() };
+    try {
+      return await this.request(method, path, body, headers);
+    } catch (error) {
+      if (!(error instanceof TypeError)) {
+        throw error;
+      }
+      return await this.request(method, path, body, headers);
+    }
+  }
+
   // Authentication methods
   async login(username, password) {
     const response = await this.request('POST', '/auth/login', { username, password });
@@ -123,15 +138,35 @@ class ApiService {
   }
 
   async borrowBook(bookId) {
-    return await this.request('POST', `/member/borrow/${bookId}`);
+    return await this.idempotentRequest('POST', `/member/borrow/${bookId}`);
   }
 
   async renewLoan(loanId) {
-    return await this.request('POST', `/member/renew/${loanId}`);
+    return await this.idempotentRequest('POST', `/member/renew/${loanId}`);
+  }
+
+  async checkoutBooks(bookIds) {
+    return await this.idempotentRequest('POST', '/member/checkout', { bookIds });
+  }
+
+  async renewLoans(loanIds) {
+    return await this.idempotentRequest('POST', '/member/renew', { loanIds });
   }
 
   async returnBook(loanId) {
-    return await this.request('POST', `/member/return/${loanId}`);
+    return await this.idempotentRequest('POST', `/member/return/${loanId}`);
+  }
+
+  async getHolds() {
+    return await this.request('GET', '/member/holds');
+  }
+
+  async placeHold(bookId) {
+    return await this.request('POST', `/member/holds/${bookId}`);
+  }
+
+  async cancelHold(holdId) {
+    return await this.request('DELETE', `/member/holds/${holdId}`);
   }
 
   async getTotalFines() {
@@ -171,6 +206,18 @@ class ApiService {
     return await this.request('GET', `/admin/members/search?name=${encodeURIComponent(name)}`);
   }
 
+  async getMemberFines(id) {
+    return await this.request('GET', `/admin/members/${id}/fines`);
+  }
+
+  async recordFinePayment(id, amountCents, note) {
+    return await this.request('POST', `/admin/members/${id}/fines/payments`, { amountCents, note });
+  }
+
+  async waiveFines(id, amountCents, note) {
+    return await this.request('POST', `/admin/members/${id}/fines/waivers`, { amountCents, note });
+  }
+
   async getAllBooks() {
     return await this.request('GET', '/books');
   }
@@ -191,6 +238,18 @@ class ApiService {
     return await this.request('DELETE', `/admin/books/${id}`);
   }
 
+  async getBookCopies(bookId) {
+    return await this.request('GET', `/admin/books/${bookId}/copies`);
+  }
+
+  async addBookCopies(bookId, count) {
+    return await this.request('POST', `/admin/books/${bookId}/copies`, { count });
+  }
+
+  async withdrawCopy(copyId) {
+    return await this.request('DELETE', `/admin/copies/${copyId}`);
+  }
+
   async searchBooks(title, author, isbn) {
     const params = new URLSearchParams();
     if (title) params.append('title', title);
@@ -200,12 +259,25 @@ class ApiService {
     return await this.request('GET', `/books/search?${params.toString()}`);
   }
 
+  async facetedSearch(filters = {}) {
+    const params = new URLSearchParams();
+    Object.entries(filters).forEach(([key, value]) => {
+      if (value !== undefined && value !== null && value !== '') params.append(key, value);
+    });
+    return await this.request('GET', `/books/facets?${params.toString()}`);
+  }
+
+  async suggestBooks(query, limit = 8) {
+    const params = new URLSearchParams({ q: query, limit });
+    return await this.request('GET', `/books/suggest?${params.toString()}`);
+  }
+
   async getAllLoans() {
     return await this.request('GET', '/admin/loans');
   }
 
   async createLoan(memberId, isbn) {
-    return await this.request('POST', '/admin/loans', { memberId, isbn });
+    return await this.idempotentRequest('POST', '/admin/loans', { memberId, isbn });
   }
 
   async extendLoan(id) {
@@ -216,6 +288,15 @@ class ApiService {
     return await this.request('DELETE', `/admin/loans/${id}`);
   }
 
+  // Desk scanning session: scans like { action: 'CHECKOUT', code, memberId } go up as JSON lines,
+  // one result per scan comes back in the same order
+  async deskScans(scans) {
+    const body = scans.map((scan) => JSON.stringify(scan)).join('\n') + '\n';
+    const text = await this.request('POST', '/admin/desk/scans', body,
+      { 'Content-Type': 'application/x-ndjson' });
+    return text.split('\n').filter((line) => line.trim()).map((line) => JSON.parse(line));
+  }
+
   async searchLoansByMemberName(name) {
     return await this.request('GET', `/admin/loans/search?name=${encodeURIComponent(name)}`);
   }